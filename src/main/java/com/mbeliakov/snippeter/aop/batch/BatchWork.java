@@ -0,0 +1,19 @@
+package com.mbeliakov.snippeter.aop.batch;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks background or bulk work, whose database connections are got from the batch pool rather than from the pool
+ * serving the interactive requests.
+ *
+ * @see BatchWorkAspect
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.METHOD, ElementType.TYPE })
+public @interface BatchWork {
+}
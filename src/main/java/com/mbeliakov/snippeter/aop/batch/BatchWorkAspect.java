@@ -0,0 +1,49 @@
+package com.mbeliakov.snippeter.aop.batch;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Aspect marking the current thread as doing batch work while a {@link BatchWork} method runs.
+ * <p>
+ * It runs before the transaction interceptor, so that the transaction of the method also gets its connection from
+ * the batch pool.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class BatchWorkAspect {
+
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    /**
+     * Whether the current thread is doing batch work.
+     *
+     * @return {@code true} within a {@link BatchWork} method.
+     */
+    public static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+
+    /**
+     * Run a {@link BatchWork} method, or a method of a {@link BatchWork} class, as batch work.
+     *
+     * @param joinPoint join point for advice.
+     * @return result.
+     * @throws Throwable throws the exception of the method.
+     */
+    @Around("@annotation(com.mbeliakov.snippeter.aop.batch.BatchWork) || @within(com.mbeliakov.snippeter.aop.batch.BatchWork)")
+    public Object batchWorkAround(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (isActive()) {
+            return joinPoint.proceed();
+        }
+        ACTIVE.set(Boolean.TRUE);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ACTIVE.remove();
+        }
+    }
+}
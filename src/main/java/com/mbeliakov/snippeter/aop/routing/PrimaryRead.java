@@ -0,0 +1,20 @@
+package com.mbeliakov.snippeter.aop.routing;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks reads that must see the latest committed writes, such as the security checks of revoked tokens, whose
+ * database connections are got from the primary pool even in a read-only transaction, rather than from a replica
+ * that may lag behind.
+ *
+ * @see PrimaryReadAspect
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.METHOD, ElementType.TYPE })
+public @interface PrimaryRead {
+}
@@ -0,0 +1,49 @@
+package com.mbeliakov.snippeter.aop.routing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Aspect marking the current thread as reading from the primary while a {@link PrimaryRead} method runs.
+ * <p>
+ * It runs before the transaction interceptor, so that the transaction of the method also gets its connection from
+ * the primary pool. A connection already got by an enclosing transaction is kept.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class PrimaryReadAspect {
+
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    /**
+     * Whether the current thread reads from the primary.
+     *
+     * @return {@code true} within a {@link PrimaryRead} method.
+     */
+    public static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+
+    /**
+     * Run a {@link PrimaryRead} method, or a method of a {@link PrimaryRead} class, reading from the primary.
+     *
+     * @param joinPoint join point for advice.
+     * @return result.
+     * @throws Throwable throws the exception of the method.
+     */
+    @Around("@annotation(com.mbeliakov.snippeter.aop.routing.PrimaryRead) || @within(com.mbeliakov.snippeter.aop.routing.PrimaryRead)")
+    public Object primaryReadAround(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (isActive()) {
+            return joinPoint.proceed();
+        }
+        ACTIVE.set(Boolean.TRUE);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ACTIVE.remove();
+        }
+    }
+}
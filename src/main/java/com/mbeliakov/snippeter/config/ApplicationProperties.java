@@ -1,5 +1,7 @@
 package com.mbeliakov.snippeter.config;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -9,4 +11,743 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final Security security = new Security();
+
+    private final Cache cache = new Cache();
+
+    private final Pagination pagination = new Pagination();
+
+    private final Purge purge = new Purge();
+
+    private final Database database = new Database();
+
+    private final StatementAccounting statementAccounting = new StatementAccounting();
+
+    public Security getSecurity() {
+        return security;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    public Purge getPurge() {
+        return purge;
+    }
+
+    public Database getDatabase() {
+        return database;
+    }
+
+    public StatementAccounting getStatementAccounting() {
+        return statementAccounting;
+    }
+
+    public static class Security {
+
+        private final TokenCache tokenCache = new TokenCache();
+
+        private final PasswordHashing passwordHashing = new PasswordHashing();
+
+        private final RefreshToken refreshToken = new RefreshToken();
+
+        private final TokenRevocation tokenRevocation = new TokenRevocation();
+
+        private final LoginThrottling loginThrottling = new LoginThrottling();
+
+        private final CredentialsCache credentialsCache = new CredentialsCache();
+
+        private final ApiKey apiKey = new ApiKey();
+
+        public TokenCache getTokenCache() {
+            return tokenCache;
+        }
+
+        public PasswordHashing getPasswordHashing() {
+            return passwordHashing;
+        }
+
+        public RefreshToken getRefreshToken() {
+            return refreshToken;
+        }
+
+        public TokenRevocation getTokenRevocation() {
+            return tokenRevocation;
+        }
+
+        public LoginThrottling getLoginThrottling() {
+            return loginThrottling;
+        }
+
+        public CredentialsCache getCredentialsCache() {
+            return credentialsCache;
+        }
+
+        public ApiKey getApiKey() {
+            return apiKey;
+        }
+
+        /**
+         * Cache of verified JWT authentications, keyed by a digest of the token.
+         */
+        public static class TokenCache {
+
+            private boolean enabled = true;
+
+            private long maxEntries = 10000;
+
+            private long timeToLiveSeconds = 300;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public long getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+        }
+
+        /**
+         * Bounded pool on which passwords are hashed and verified.
+         */
+        public static class PasswordHashing {
+
+            /**
+             * Number of hashing threads, defaults to the number of available processors.
+             */
+            private int poolSize = 0;
+
+            private int queueCapacity = 32;
+
+            /**
+             * Number of bulk hashing operations on the pool at once, defaults to half the pool.
+             */
+            private int batchConcurrency = 0;
+
+            private long retryAfterSeconds = 1;
+
+            /**
+             * BCrypt work factor, used as is when calibration is disabled.
+             */
+            private int strength = 10;
+
+            private final Calibration calibration = new Calibration();
+
+            public int getPoolSize() {
+                return poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+            }
+
+            public void setPoolSize(int poolSize) {
+                this.poolSize = poolSize;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+
+            public int getBatchConcurrency() {
+                return batchConcurrency > 0 ? batchConcurrency : Math.max(1, getPoolSize() / 2);
+            }
+
+            public void setBatchConcurrency(int batchConcurrency) {
+                this.batchConcurrency = batchConcurrency;
+            }
+
+            public long getRetryAfterSeconds() {
+                return retryAfterSeconds;
+            }
+
+            public void setRetryAfterSeconds(long retryAfterSeconds) {
+                this.retryAfterSeconds = retryAfterSeconds;
+            }
+
+            public int getStrength() {
+                return strength;
+            }
+
+            public void setStrength(int strength) {
+                this.strength = strength;
+            }
+
+            public Calibration getCalibration() {
+                return calibration;
+            }
+
+            /**
+             * Startup measurement of the BCrypt work factor that fits a per-hash latency budget.
+             */
+            public static class Calibration {
+
+                private boolean enabled = true;
+
+                private long targetLatencyMillis = 100;
+
+                private int minStrength = 10;
+
+                private int maxStrength = 16;
+
+                public boolean isEnabled() {
+                    return enabled;
+                }
+
+                public void setEnabled(boolean enabled) {
+                    this.enabled = enabled;
+                }
+
+                public long getTargetLatencyMillis() {
+                    return targetLatencyMillis;
+                }
+
+                public void setTargetLatencyMillis(long targetLatencyMillis) {
+                    this.targetLatencyMillis = targetLatencyMillis;
+                }
+
+                public int getMinStrength() {
+                    return minStrength;
+                }
+
+                public void setMinStrength(int minStrength) {
+                    this.minStrength = minStrength;
+                }
+
+                public int getMaxStrength() {
+                    return maxStrength;
+                }
+
+                public void setMaxStrength(int maxStrength) {
+                    this.maxStrength = maxStrength;
+                }
+            }
+        }
+
+        /**
+         * Persisted refresh tokens, traded for short-lived access tokens without checking the password again.
+         */
+        public static class RefreshToken {
+
+            private boolean enabled = true;
+
+            /**
+             * Validity of the access tokens issued along with a refresh token.
+             */
+            private long accessTokenValidityInSeconds = 900;
+
+            private long tokenValidityInSeconds = 86400;
+
+            private long tokenValidityInSecondsForRememberMe = 2592000;
+
+            /**
+             * Number of expired refresh tokens deleted per transaction.
+             */
+            private int cleanupBatchSize = 1000;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getAccessTokenValidityInSeconds() {
+                return accessTokenValidityInSeconds;
+            }
+
+            public void setAccessTokenValidityInSeconds(long accessTokenValidityInSeconds) {
+                this.accessTokenValidityInSeconds = accessTokenValidityInSeconds;
+            }
+
+            public long getTokenValidityInSeconds() {
+                return tokenValidityInSeconds;
+            }
+
+            public void setTokenValidityInSeconds(long tokenValidityInSeconds) {
+                this.tokenValidityInSeconds = tokenValidityInSeconds;
+            }
+
+            public long getTokenValidityInSecondsForRememberMe() {
+                return tokenValidityInSecondsForRememberMe;
+            }
+
+            public void setTokenValidityInSecondsForRememberMe(long tokenValidityInSecondsForRememberMe) {
+                this.tokenValidityInSecondsForRememberMe = tokenValidityInSecondsForRememberMe;
+            }
+
+            public int getCleanupBatchSize() {
+                return cleanupBatchSize;
+            }
+
+            public void setCleanupBatchSize(int cleanupBatchSize) {
+                this.cleanupBatchSize = cleanupBatchSize;
+            }
+        }
+
+        /**
+         * Denylist of revoked JWTs, mirrored in an in-memory Bloom filter.
+         */
+        public static class TokenRevocation {
+
+            /**
+             * Number of live denylist entries the Bloom filter is sized for.
+             */
+            private long expectedEntries = 10000;
+
+            private double falsePositiveProbability = 0.01;
+
+            /**
+             * Delay between two rebuilds of the Bloom filter, which pick up revocations made by other instances.
+             */
+            private long rebuildIntervalMillis = 60000;
+
+            private int cleanupBatchSize = 1000;
+
+            public long getExpectedEntries() {
+                return expectedEntries;
+            }
+
+            public void setExpectedEntries(long expectedEntries) {
+                this.expectedEntries = expectedEntries;
+            }
+
+            public double getFalsePositiveProbability() {
+                return falsePositiveProbability;
+            }
+
+            public void setFalsePositiveProbability(double falsePositiveProbability) {
+                this.falsePositiveProbability = falsePositiveProbability;
+            }
+
+            public long getRebuildIntervalMillis() {
+                return rebuildIntervalMillis;
+            }
+
+            public void setRebuildIntervalMillis(long rebuildIntervalMillis) {
+                this.rebuildIntervalMillis = rebuildIntervalMillis;
+            }
+
+            public int getCleanupBatchSize() {
+                return cleanupBatchSize;
+            }
+
+            public void setCleanupBatchSize(int cleanupBatchSize) {
+                this.cleanupBatchSize = cleanupBatchSize;
+            }
+        }
+
+        /**
+         * Rejection of authentication attempts after too many recent failures for a login or a client address.
+         */
+        public static class LoginThrottling {
+
+            private boolean enabled = true;
+
+            private int maxFailuresPerLogin = 10;
+
+            private int maxFailuresPerAddress = 50;
+
+            private long windowSeconds = 300;
+
+            /**
+             * Number of logins, and of client addresses, whose failures are counted at once.
+             */
+            private long maxEntries = 16384;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getMaxFailuresPerLogin() {
+                return maxFailuresPerLogin;
+            }
+
+            public void setMaxFailuresPerLogin(int maxFailuresPerLogin) {
+                this.maxFailuresPerLogin = maxFailuresPerLogin;
+            }
+
+            public int getMaxFailuresPerAddress() {
+                return maxFailuresPerAddress;
+            }
+
+            public void setMaxFailuresPerAddress(int maxFailuresPerAddress) {
+                this.maxFailuresPerAddress = maxFailuresPerAddress;
+            }
+
+            public long getWindowSeconds() {
+                return windowSeconds;
+            }
+
+            public void setWindowSeconds(long windowSeconds) {
+                this.windowSeconds = windowSeconds;
+            }
+
+            public long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+        }
+
+        /**
+         * Short-lived cache of recently verified HTTP Basic credentials.
+         */
+        public static class CredentialsCache {
+
+            private boolean enabled = false;
+
+            private long maxEntries = 1000;
+
+            private long timeToLiveSeconds = 30;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public long getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+        }
+
+        /**
+         * API keys of machine clients, sent in the {@code X-API-Key} header.
+         */
+        public static class ApiKey {
+
+            private int maxKeysPerUser = 10;
+
+            private long cacheMaxEntries = 10000;
+
+            /**
+             * Time for which a resolved key is cached, and so for which a deleted key may still be accepted by other instances.
+             */
+            private long cacheTimeToLiveSeconds = 60;
+
+            /**
+             * Time for which an unknown key is cached, and so for which a key created on another instance may be rejected.
+             */
+            private long unknownKeyCacheTimeToLiveSeconds = 5;
+
+            /**
+             * Delay between two writes of the last-used dates of the keys.
+             */
+            private long lastUsedFlushIntervalMillis = 60000;
+
+            public int getMaxKeysPerUser() {
+                return maxKeysPerUser;
+            }
+
+            public void setMaxKeysPerUser(int maxKeysPerUser) {
+                this.maxKeysPerUser = maxKeysPerUser;
+            }
+
+            public long getCacheMaxEntries() {
+                return cacheMaxEntries;
+            }
+
+            public void setCacheMaxEntries(long cacheMaxEntries) {
+                this.cacheMaxEntries = cacheMaxEntries;
+            }
+
+            public long getCacheTimeToLiveSeconds() {
+                return cacheTimeToLiveSeconds;
+            }
+
+            public void setCacheTimeToLiveSeconds(long cacheTimeToLiveSeconds) {
+                this.cacheTimeToLiveSeconds = cacheTimeToLiveSeconds;
+            }
+
+            public long getUnknownKeyCacheTimeToLiveSeconds() {
+                return unknownKeyCacheTimeToLiveSeconds;
+            }
+
+            public void setUnknownKeyCacheTimeToLiveSeconds(long unknownKeyCacheTimeToLiveSeconds) {
+                this.unknownKeyCacheTimeToLiveSeconds = unknownKeyCacheTimeToLiveSeconds;
+            }
+
+            public long getLastUsedFlushIntervalMillis() {
+                return lastUsedFlushIntervalMillis;
+            }
+
+            public void setLastUsedFlushIntervalMillis(long lastUsedFlushIntervalMillis) {
+                this.lastUsedFlushIntervalMillis = lastUsedFlushIntervalMillis;
+            }
+        }
+    }
+
+    /**
+     * Regions of the Hibernate second-level cache.
+     */
+    public static class Cache {
+
+        private final Region user = new Region(5000, 3600);
+
+        private final Region authority = new Region(100, 86400);
+
+        private final Region userAuthorities = new Region(5000, 3600);
+
+        public Region getUser() {
+            return user;
+        }
+
+        public Region getAuthority() {
+            return authority;
+        }
+
+        public Region getUserAuthorities() {
+            return userAuthorities;
+        }
+
+        public static class Region {
+
+            private long maxEntries;
+
+            private long timeToLiveSeconds;
+
+            public Region(long maxEntries, long timeToLiveSeconds) {
+                this.maxEntries = maxEntries;
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+
+            public long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public long getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+        }
+    }
+
+    /**
+     * Pagination of the listings that can estimate their total instead of counting it.
+     */
+    public static class Pagination {
+
+        /**
+         * How long a row count estimate is reused before the database statistics are read again.
+         */
+        private long countEstimateTimeToLiveSeconds = 60;
+
+        public long getCountEstimateTimeToLiveSeconds() {
+            return countEstimateTimeToLiveSeconds;
+        }
+
+        public void setCountEstimateTimeToLiveSeconds(long countEstimateTimeToLiveSeconds) {
+            this.countEstimateTimeToLiveSeconds = countEstimateTimeToLiveSeconds;
+        }
+    }
+
+    /**
+     * Scheduled purges of stale rows, which delete them a chunk at a time.
+     */
+    public static class Purge {
+
+        /**
+         * Number of rows purged per transaction.
+         */
+        private int chunkSize = 500;
+
+        /**
+         * Pause between two chunks, which leaves the tables to the other transactions for a while.
+         */
+        private long pauseMillis = 100;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public long getPauseMillis() {
+            return pauseMillis;
+        }
+
+        public void setPauseMillis(long pauseMillis) {
+            this.pauseMillis = pauseMillis;
+        }
+    }
+
+    /**
+     * Read replicas of the database, which serve the read-only transactions.
+     */
+    public static class Database {
+
+        /**
+         * Replicas used in turn by the read-only transactions. Each gets its own connection pool, configured like the
+         * {@code spring.datasource.hikari} one.
+         */
+        private final List<Replica> replicas = new ArrayList<>();
+
+        /**
+         * How long a replica that failed to give a connection is left aside, its reads going to the other replicas
+         * or to the primary.
+         */
+        private long replicaRetrySeconds = 30;
+
+        private final Batch batch = new Batch();
+
+        public List<Replica> getReplicas() {
+            return replicas;
+        }
+
+        public long getReplicaRetrySeconds() {
+            return replicaRetrySeconds;
+        }
+
+        public void setReplicaRetrySeconds(long replicaRetrySeconds) {
+            this.replicaRetrySeconds = replicaRetrySeconds;
+        }
+
+        public Batch getBatch() {
+            return batch;
+        }
+
+        /**
+         * Connection pool of the scheduled jobs, bulk operations and database migrations, configured like the
+         * {@code spring.datasource.hikari} one, so that they never take the connections of the interactive requests.
+         */
+        public static class Batch {
+
+            /**
+             * Maximum size of the batch pool, {@code 0} to run the batch work on the primary pool.
+             */
+            private int maximumPoolSize = 4;
+
+            public int getMaximumPoolSize() {
+                return maximumPoolSize;
+            }
+
+            public void setMaximumPoolSize(int maximumPoolSize) {
+                this.maximumPoolSize = maximumPoolSize;
+            }
+        }
+
+        public static class Replica {
+
+            private String url;
+
+            /**
+             * User of the replica, the {@code spring.datasource} one if not set.
+             */
+            private String username;
+
+            /**
+             * Password of the replica, the {@code spring.datasource} one if not set.
+             */
+            private String password;
+
+            public String getUrl() {
+                return url;
+            }
+
+            public void setUrl(String url) {
+                this.url = url;
+            }
+
+            public String getUsername() {
+                return username;
+            }
+
+            public void setUsername(String username) {
+                this.username = username;
+            }
+
+            public String getPassword() {
+                return password;
+            }
+
+            public void setPassword(String password) {
+                this.password = password;
+            }
+        }
+    }
+
+    /**
+     * Accounting of the SQL statements run by each HTTP request.
+     */
+    public static class StatementAccounting {
+
+        /**
+         * Whether the statements, rows and JDBC time of each request are published as metrics.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Whether they are also sent back in the {@code X-SQL-*} response headers.
+         */
+        private boolean headers = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isHeaders() {
+            return headers;
+        }
+
+        public void setHeaders(boolean headers) {
+            this.headers = headers;
+        }
+    }
+}
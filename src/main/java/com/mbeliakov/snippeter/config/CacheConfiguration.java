@@ -0,0 +1,84 @@
+package com.mbeliakov.snippeter.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.mbeliakov.snippeter.domain.Authority;
+import com.mbeliakov.snippeter.domain.User;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import javax.cache.CacheManager;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * In-process, JCache-backed Hibernate second-level cache, on top of Caffeine.
+ * <p>
+ * Every region is created here, with the size and time to live set in {@link ApplicationProperties.Cache}, and
+ * Hibernate is configured to fail on a region that was not. Region statistics are enabled, so that Spring Boot
+ * publishes the {@code cache.*} meters of each region, tagged with the region name.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    public static final String USER_AUTHORITIES_REGION = User.class.getName() + ".authorities";
+
+    private final Map<String, javax.cache.configuration.Configuration<Object, Object>> regions = new LinkedHashMap<>();
+
+    public CacheConfiguration(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Cache cache = applicationProperties.getCache();
+        regions.put(User.class.getName(), regionConfiguration(cache.getUser()));
+        regions.put(Authority.class.getName(), regionConfiguration(cache.getAuthority()));
+        regions.put(USER_AUTHORITIES_REGION, regionConfiguration(cache.getUserAuthorities()));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernatePropertiesCustomizer(CacheManager cacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+    }
+
+    @Bean
+    public JCacheManagerCustomizer cacheManagerCustomizer() {
+        return cacheManager -> regions.forEach((name, configuration) -> createCache(cacheManager, name, configuration));
+    }
+
+    /**
+     * Empty every second-level cache region, after the database was changed behind Hibernate's back.
+     *
+     * @param cacheManager the JCache cache manager holding the regions.
+     */
+    public static void clearRegions(CacheManager cacheManager) {
+        for (String name : cacheManager.getCacheNames()) {
+            javax.cache.Cache<Object, Object> cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    private static void createCache(
+        CacheManager cacheManager,
+        String name,
+        javax.cache.configuration.Configuration<Object, Object> configuration
+    ) {
+        javax.cache.Cache<Object, Object> cache = cacheManager.getCache(name);
+        if (cache != null) {
+            cache.clear();
+        } else {
+            cacheManager.createCache(name, configuration);
+        }
+    }
+
+    private static javax.cache.configuration.Configuration<Object, Object> regionConfiguration(ApplicationProperties.Cache.Region region) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(region.getMaxEntries()));
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(region.getTimeToLiveSeconds())));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
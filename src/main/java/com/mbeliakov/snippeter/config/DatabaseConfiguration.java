@@ -1,8 +1,23 @@
 package com.mbeliakov.snippeter.config;
 
+import com.mbeliakov.snippeter.aop.batch.BatchWorkAspect;
+import com.mbeliakov.snippeter.aop.routing.PrimaryReadAspect;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.hibernate.cfg.AvailableSettings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -10,6 +25,7 @@ import org.springframework.core.env.Environment;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.util.StringUtils;
 import tech.jhipster.config.JHipsterConstants;
 import tech.jhipster.config.h2.H2ConfigurationHelper;
 
@@ -41,6 +57,87 @@ public class DatabaseConfiguration {
         return H2ConfigurationHelper.createServer(port);
     }
 
+    /**
+     * Pools of the primary database, of the batch work and of the read replicas in {@code application.database.replicas}.
+     * The batch and replica pools are configured like the primary one, the replica pools being read-only.
+     *
+     * @return the data source routing batch work to the batch pool and read-only transactions to the replicas.
+     */
+    @Bean
+    public RoutingDataSource dataSource(
+        DataSourceProperties dataSourceProperties,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(env).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (!StringUtils.hasText(primary.getPoolName())) {
+            primary.setPoolName("Hikari");
+        }
+        ApplicationProperties.Database database = applicationProperties.getDatabase();
+        HikariDataSource batch = null;
+        if (database.getBatch().getMaximumPoolSize() > 0) {
+            batch = copyPool(primary, primary.getPoolName() + "-batch");
+            batch.setMaximumPoolSize(database.getBatch().getMaximumPoolSize());
+            // batch work comes and goes, its connections need not be kept open in between
+            batch.setMinimumIdle(0);
+        }
+        List<HikariDataSource> replicas = new ArrayList<>(database.getReplicas().size());
+        for (int i = 0; i < database.getReplicas().size(); i++) {
+            ApplicationProperties.Database.Replica properties = database.getReplicas().get(i);
+            HikariDataSource replica = copyPool(primary, primary.getPoolName() + "-replica-" + (i + 1));
+            replica.setJdbcUrl(properties.getUrl());
+            replica.setUsername(properties.getUsername() != null ? properties.getUsername() : primary.getUsername());
+            replica.setPassword(properties.getPassword() != null ? properties.getPassword() : primary.getPassword());
+            replica.setReadOnly(true);
+            // a replica that is down must not keep the application from starting
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(replica);
+        }
+        primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        if (batch != null) {
+            batch.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        }
+        replicas.forEach(replica -> replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry)));
+        log.debug(
+            "Routing batch work to {} and read-only transactions to {} replicas",
+            batch != null ? batch.getPoolName() : primary.getPoolName(),
+            replicas.size()
+        );
+        return new RoutingDataSource(primary, batch, replicas, Duration.ofSeconds(database.getReplicaRetrySeconds()), meterRegistry);
+    }
+
+    @Bean
+    public BatchWorkAspect batchWorkAspect() {
+        return new BatchWorkAspect();
+    }
+
+    @Bean
+    public PrimaryReadAspect primaryReadAspect() {
+        return new PrimaryReadAspect();
+    }
+
+    private static HikariDataSource copyPool(HikariDataSource primary, String poolName) {
+        HikariDataSource pool = new HikariDataSource();
+        primary.copyStateTo(pool);
+        pool.setPoolName(poolName);
+        return pool;
+    }
+
+    /**
+     * Let Hibernate get its connections through {@link StatementAccountingConnectionProvider}, so that the statements
+     * run for each HTTP request are counted.
+     *
+     * @param dataSource the data source of the application.
+     * @return the customizer setting the connection provider.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "application.statement-accounting", name = "enabled", matchIfMissing = true)
+    public HibernatePropertiesCustomizer statementAccountingHibernatePropertiesCustomizer(DataSource dataSource) {
+        return hibernateProperties ->
+            hibernateProperties.put(AvailableSettings.CONNECTION_PROVIDER, new StatementAccountingConnectionProvider(dataSource));
+    }
+
     private String getValidPortForH2() {
         int port = Integer.parseInt(env.getProperty("server.port"));
         if (port < 10000) {
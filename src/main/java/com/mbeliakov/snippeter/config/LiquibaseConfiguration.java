@@ -1,6 +1,8 @@
 package com.mbeliakov.snippeter.config;
 
+import com.mbeliakov.snippeter.service.AuthorityRegistry;
 import java.util.concurrent.Executor;
+import javax.cache.CacheManager;
 import javax.sql.DataSource;
 import liquibase.integration.spring.SpringLiquibase;
 import org.slf4j.Logger;
@@ -14,13 +16,14 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.Profiles;
+import org.springframework.dao.DataAccessException;
 import tech.jhipster.config.JHipsterConstants;
 import tech.jhipster.config.liquibase.SpringLiquibaseUtil;
 
 @Configuration
 public class LiquibaseConfiguration {
 
-    private final Logger log = LoggerFactory.getLogger(LiquibaseConfiguration.class);
+    private static final Logger log = LoggerFactory.getLogger(LiquibaseConfiguration.class);
 
     private final Environment env;
 
@@ -34,14 +37,25 @@ public class LiquibaseConfiguration {
         @LiquibaseDataSource ObjectProvider<DataSource> liquibaseDataSource,
         LiquibaseProperties liquibaseProperties,
         ObjectProvider<DataSource> dataSource,
-        DataSourceProperties dataSourceProperties
+        DataSourceProperties dataSourceProperties,
+        CacheManager cacheManager,
+        ObjectProvider<AuthorityRegistry> authorityRegistry
     ) {
+        Executor evictingExecutor = evictingExecutor(executor, cacheManager, authorityRegistry);
+        // Unless Liquibase has a database of its own, it migrates through the batch pool, away from the requests
+        DataSource migrationDataSource = liquibaseDataSource.getIfAvailable();
+        if (migrationDataSource == null && liquibaseProperties.getUrl() == null && liquibaseProperties.getUser() == null) {
+            DataSource applicationDataSource = dataSource.getIfUnique();
+            if (applicationDataSource instanceof RoutingDataSource) {
+                migrationDataSource = ((RoutingDataSource) applicationDataSource).getBatchDataSource();
+            }
+        }
         // If you don't want Liquibase to start asynchronously, substitute by this:
         // SpringLiquibase liquibase = SpringLiquibaseUtil.createSpringLiquibase(liquibaseDataSource.getIfAvailable(), liquibaseProperties, dataSource.getIfUnique(), dataSourceProperties);
         SpringLiquibase liquibase = SpringLiquibaseUtil.createAsyncSpringLiquibase(
             this.env,
-            executor,
-            liquibaseDataSource.getIfAvailable(),
+            evictingExecutor,
+            migrationDataSource,
             liquibaseProperties,
             dataSource.getIfUnique(),
             dataSourceProperties
@@ -66,4 +80,26 @@ public class LiquibaseConfiguration {
         }
         return liquibase;
     }
+
+    /**
+     * When Liquibase runs asynchronously, Hibernate and the {@link AuthorityRegistry} may already have loaded rows that
+     * it then changes: empty the second-level cache and reload the authorities once it is done.
+     */
+    static Executor evictingExecutor(Executor executor, CacheManager cacheManager, ObjectProvider<AuthorityRegistry> authorityRegistry) {
+        return task ->
+            executor.execute(
+                () -> {
+                    try {
+                        task.run();
+                    } finally {
+                        CacheConfiguration.clearRegions(cacheManager);
+                        try {
+                            authorityRegistry.ifAvailable(AuthorityRegistry::refresh);
+                        } catch (DataAccessException e) {
+                            log.warn("Could not reload the authorities after the database migration: {}", e.getMessage());
+                        }
+                    }
+                }
+            );
+    }
 }
@@ -0,0 +1,32 @@
+package com.mbeliakov.snippeter.config;
+
+import com.mbeliakov.snippeter.security.BCryptCalibration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Management endpoint exposing the BCrypt work factor chosen at startup, under {@code /management/passwordhashing}.
+ */
+@Component
+@Endpoint(id = "passwordhashing")
+public class PasswordHashingEndpoint {
+
+    private final BCryptCalibration bCryptCalibration;
+
+    public PasswordHashingEndpoint(BCryptCalibration bCryptCalibration) {
+        this.bCryptCalibration = bCryptCalibration;
+    }
+
+    @ReadOperation
+    public Map<String, Object> passwordHashing() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("strength", bCryptCalibration.getStrength());
+        result.put("calibrated", bCryptCalibration.isCalibrated());
+        result.put("targetLatencyMillis", bCryptCalibration.getTargetLatencyMillis());
+        result.put("measuredMillis", bCryptCalibration.getMeasuredMillis());
+        return result;
+    }
+}
@@ -0,0 +1,193 @@
+package com.mbeliakov.snippeter.config;
+
+import com.mbeliakov.snippeter.aop.batch.BatchWork;
+import com.mbeliakov.snippeter.aop.batch.BatchWorkAspect;
+import com.mbeliakov.snippeter.aop.routing.PrimaryRead;
+import com.mbeliakov.snippeter.aop.routing.PrimaryReadAspect;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Data source giving the connections of {@link BatchWork} from the batch pool, those of read-only transactions from
+ * the replica pools, in turn, and every other connection from the primary pool, including those of the read-only
+ * transactions of {@link PrimaryRead} methods, which must not see a lagging replica.
+ * <p>
+ * The batch pool is a bulkhead: however many connections scheduled jobs and bulk operations hold, the primary pool
+ * is left to the interactive requests. Without a batch pool, batch work shares the primary pool.
+ * <p>
+ * A replica whose pool fails to give a connection is left aside for a while, its reads going to the next replica,
+ * or to the primary once none is left. A transaction is only known to be read-only once it began, so the connection
+ * is only got from a pool on the first statement, as done by {@link LazyConnectionDataSourceProxy}.
+ * <p>
+ * The connections given by each pool are counted by {@code datasource.routing.connections}, the share of the
+ * connections of each pool in use is given by {@code datasource.routing.saturation}, and the replicas left aside are
+ * counted by {@code datasource.routing.failovers}, all tagged with the pool name.
+ */
+public class RoutingDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+    private final Logger log = LoggerFactory.getLogger(RoutingDataSource.class);
+
+    private final Pool primary;
+
+    private final Pool batch;
+
+    private final List<Replica> replicas;
+
+    private final long retryNanos;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    public RoutingDataSource(
+        HikariDataSource primary,
+        HikariDataSource batch,
+        List<HikariDataSource> replicas,
+        Duration retry,
+        MeterRegistry meterRegistry
+    ) {
+        this.primary = new Pool(primary, meterRegistry);
+        this.batch = batch != null ? new Pool(batch, meterRegistry) : null;
+        this.replicas = replicas.stream().map(replica -> new Replica(replica, meterRegistry)).collect(Collectors.toList());
+        this.retryNanos = retry.toNanos();
+        setTargetDataSource(new Router());
+        afterPropertiesSet();
+    }
+
+    /**
+     * Get the data source of the batch work started outside of this data source, such as database migrations.
+     *
+     * @return the batch pool, or the primary pool without a batch pool.
+     */
+    public DataSource getBatchDataSource() {
+        return batch != null ? batch.dataSource : primary.dataSource;
+    }
+
+    private Connection getRoutedConnection() throws SQLException {
+        if (batch != null && BatchWorkAspect.isActive()) {
+            return batch.getConnection();
+        }
+        if (!replicas.isEmpty() && TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !PrimaryReadAspect.isActive()) {
+            Connection connection = getReplicaConnection();
+            if (connection != null) {
+                return connection;
+            }
+        }
+        return primary.getConnection();
+    }
+
+    private Connection getReplicaConnection() {
+        int first = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((first + i) % replicas.size());
+            if (replica.aside && System.nanoTime() - replica.retryAt < 0) {
+                continue;
+            }
+            try {
+                Connection connection = replica.getConnection();
+                replica.aside = false;
+                return connection;
+            } catch (SQLException e) {
+                log.warn("Replica {} gave no connection, leaving it aside: {}", replica.dataSource.getPoolName(), e.getMessage());
+                replica.retryAt = System.nanoTime() + retryNanos;
+                replica.aside = true;
+                replica.failovers.increment();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Close the primary, batch and replica pools.
+     */
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+        if (batch != null) {
+            batch.dataSource.close();
+        }
+        primary.dataSource.close();
+    }
+
+    /**
+     * The data source the connections are lazily got from.
+     */
+    private final class Router extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return getRoutedConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return primary.dataSource.getConnection(username, password);
+        }
+    }
+
+    private static class Pool {
+
+        final HikariDataSource dataSource;
+
+        final Counter connections;
+
+        private Pool(HikariDataSource dataSource, MeterRegistry meterRegistry) {
+            this.dataSource = dataSource;
+            this.connections =
+                Counter
+                    .builder("datasource.routing.connections")
+                    .description("Connections given by a pool of the routing data source")
+                    .tag("pool", dataSource.getPoolName())
+                    .register(meterRegistry);
+            Gauge
+                .builder("datasource.routing.saturation", dataSource, Pool::saturation)
+                .description("Share of the connections of a pool of the routing data source in use")
+                .tag("pool", dataSource.getPoolName())
+                .register(meterRegistry);
+        }
+
+        Connection getConnection() throws SQLException {
+            Connection connection = dataSource.getConnection();
+            connections.increment();
+            return connection;
+        }
+
+        private static double saturation(HikariDataSource dataSource) {
+            // the pool only exists once a first connection was asked for
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            return pool == null ? 0 : (double) pool.getActiveConnections() / dataSource.getMaximumPoolSize();
+        }
+    }
+
+    private static final class Replica extends Pool {
+
+        private final Counter failovers;
+
+        private volatile boolean aside;
+
+        private volatile long retryAt;
+
+        private Replica(HikariDataSource dataSource, MeterRegistry meterRegistry) {
+            super(dataSource, meterRegistry);
+            this.failovers =
+                Counter
+                    .builder("datasource.routing.failovers")
+                    .description("Times a replica was left aside because it gave no connection")
+                    .tag("pool", dataSource.getPoolName())
+                    .register(meterRegistry);
+        }
+    }
+}
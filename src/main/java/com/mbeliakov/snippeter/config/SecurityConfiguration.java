@@ -1,21 +1,29 @@
 package com.mbeliakov.snippeter.config;
 
 import com.mbeliakov.snippeter.security.*;
+import com.mbeliakov.snippeter.security.apikey.ApiKeyConfigurer;
+import com.mbeliakov.snippeter.security.apikey.ApiKeyResolver;
 import com.mbeliakov.snippeter.security.jwt.*;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.security.web.header.writers.ReferrerPolicyHeaderWriter;
 import org.springframework.web.filter.CorsFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
 import org.zalando.problem.spring.web.advice.security.SecurityProblemSupport;
 import tech.jhipster.config.JHipsterProperties;
 
@@ -26,26 +34,63 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
     private final JHipsterProperties jHipsterProperties;
 
-    private final TokenProvider tokenProvider;
+    private final TokenAuthenticationCache tokenAuthenticationCache;
+
+    private final ApiKeyResolver apiKeyResolver;
 
     private final CorsFilter corsFilter;
     private final SecurityProblemSupport problemSupport;
 
+    private final HandlerExceptionResolver handlerExceptionResolver;
+
     public SecurityConfiguration(
-        TokenProvider tokenProvider,
+        TokenAuthenticationCache tokenAuthenticationCache,
+        ApiKeyResolver apiKeyResolver,
         CorsFilter corsFilter,
         JHipsterProperties jHipsterProperties,
-        SecurityProblemSupport problemSupport
+        SecurityProblemSupport problemSupport,
+        @Qualifier("handlerExceptionResolver") HandlerExceptionResolver handlerExceptionResolver
     ) {
-        this.tokenProvider = tokenProvider;
+        this.tokenAuthenticationCache = tokenAuthenticationCache;
+        this.apiKeyResolver = apiKeyResolver;
         this.corsFilter = corsFilter;
         this.problemSupport = problemSupport;
         this.jHipsterProperties = jHipsterProperties;
+        this.handlerExceptionResolver = handlerExceptionResolver;
+    }
+
+    @Bean
+    public BCryptCalibration bCryptCalibration(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        BCryptCalibration calibration = BCryptCalibration.of(applicationProperties.getSecurity().getPasswordHashing());
+        Gauge
+            .builder("security.password.bcrypt.strength", calibration, BCryptCalibration::getStrength)
+            .description("BCrypt work factor used for new password hashes")
+            .register(meterRegistry);
+        return calibration;
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PooledPasswordEncoder passwordEncoder(BCryptCalibration bCryptCalibration, PasswordHashingExecutor passwordHashingExecutor) {
+        return new PooledPasswordEncoder(new CalibratedBCryptPasswordEncoder(bCryptCalibration.getStrength()), passwordHashingExecutor);
+    }
+
+    @Bean
+    public AuthenticationProvider authenticationProvider(
+        DomainUserDetailsService userDetailsService,
+        PasswordEncoder passwordEncoder,
+        LoginAttemptThrottle loginAttemptThrottle,
+        LoginMetrics loginMetrics,
+        VerifiedCredentialsCache verifiedCredentialsCache
+    ) {
+        DaoAuthenticationProvider daoAuthenticationProvider = new InstrumentedDaoAuthenticationProvider(loginMetrics);
+        daoAuthenticationProvider.setUserDetailsService(userDetailsService);
+        daoAuthenticationProvider.setUserDetailsPasswordService(userDetailsService);
+        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder);
+        AuthenticationProvider authenticationProvider = daoAuthenticationProvider;
+        if (verifiedCredentialsCache.isEnabled()) {
+            authenticationProvider = new CachingAuthenticationProvider(authenticationProvider, verifiedCredentialsCache);
+        }
+        return new ThrottlingAuthenticationProvider(authenticationProvider, loginAttemptThrottle);
     }
 
     @Override
@@ -68,6 +113,7 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
             .csrf()
             .disable()
             .addFilterBefore(corsFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterBefore(new PasswordHashingRejectionFilter(handlerExceptionResolver), BasicAuthenticationFilter.class)
             .exceptionHandling()
                 .authenticationEntryPoint(problemSupport)
                 .accessDeniedHandler(problemSupport)
@@ -87,6 +133,7 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
         .and()
             .authorizeRequests()
             .antMatchers("/api/authenticate").permitAll()
+            .antMatchers("/api/authenticate/refresh").permitAll()
             .antMatchers("/api/register").permitAll()
             .antMatchers("/api/activate").permitAll()
             .antMatchers("/api/account/reset-password/init").permitAll()
@@ -101,11 +148,13 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
         .and()
             .httpBasic()
         .and()
-            .apply(securityConfigurerAdapter());
+            .apply(securityConfigurerAdapter())
+        .and()
+            .apply(new ApiKeyConfigurer(apiKeyResolver));
         // @formatter:on
     }
 
     private JWTConfigurer securityConfigurerAdapter() {
-        return new JWTConfigurer(tokenProvider);
+        return new JWTConfigurer(tokenAuthenticationCache);
     }
 }
@@ -0,0 +1,160 @@
+package com.mbeliakov.snippeter.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Counts of the SQL statements run by the current thread, the rows they read or changed, and the time spent
+ * running them, between {@link #start()} and {@link #stop()}.
+ * <p>
+ * Only the connections got while the thread is accounted for are counted, through JDBC proxies that keep three
+ * numbers, so that accounting can be left on in production. The rows read are counted by an
+ * {@link AccountedResultSet}, whose column getters are plain delegating calls.
+ */
+public final class StatementAccounting {
+
+    private static final ThreadLocal<StatementAccounting> CURRENT = new ThreadLocal<>();
+
+    private long statements;
+
+    private long rows;
+
+    private long nanos;
+
+    private StatementAccounting() {}
+
+    /**
+     * Start accounting for the statements of the current thread.
+     *
+     * @return the counts, updated until {@link #stop()} is called.
+     */
+    public static StatementAccounting start() {
+        StatementAccounting accounting = new StatementAccounting();
+        CURRENT.set(accounting);
+        return accounting;
+    }
+
+    /**
+     * Stop accounting for the statements of the current thread.
+     */
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Count the statements run over a connection, if the current thread is accounted for.
+     *
+     * @param connection the connection.
+     * @return the connection, wrapped if the current thread is accounted for.
+     */
+    public static Connection account(Connection connection) {
+        StatementAccounting accounting = CURRENT.get();
+        if (accounting == null) {
+            return connection;
+        }
+        return proxy(Connection.class, accounting.new ConnectionHandler(connection));
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    void countRow() {
+        rows++;
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(StatementAccounting.class.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection connection;
+
+        private ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = StatementAccounting.invoke(connection, method, args);
+            switch (method.getName()) {
+                case "createStatement":
+                    return proxy(Statement.class, new StatementHandler(result));
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class, new StatementHandler(result));
+                case "prepareCall":
+                    return proxy(CallableStatement.class, new StatementHandler(result));
+                default:
+                    return result;
+            }
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Object statement;
+
+        private StatementHandler(Object statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                Object result = StatementAccounting.invoke(statement, method, args);
+                return "getResultSet".equals(name) && result != null ? accountRows((ResultSet) result) : result;
+            }
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = StatementAccounting.invoke(statement, method, args);
+            } finally {
+                nanos += System.nanoTime() - start;
+                statements++;
+            }
+            if (result instanceof ResultSet) {
+                return accountRows((ResultSet) result);
+            } else if (result instanceof Integer || result instanceof Long) {
+                rows += Math.max(0, ((Number) result).longValue());
+            } else if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    rows += Math.max(0, count);
+                }
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    rows += Math.max(0, count);
+                }
+            }
+            return result;
+        }
+
+        private ResultSet accountRows(ResultSet resultSet) {
+            return new AccountedResultSet(resultSet, StatementAccounting.this);
+        }
+    }
+}
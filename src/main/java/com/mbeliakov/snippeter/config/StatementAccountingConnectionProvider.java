@@ -0,0 +1,21 @@
+package com.mbeliakov.snippeter.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.hibernate.engine.jdbc.connections.internal.DatasourceConnectionProviderImpl;
+
+/**
+ * Hibernate connection provider whose connections count their statements with {@link StatementAccounting}.
+ */
+public class StatementAccountingConnectionProvider extends DatasourceConnectionProviderImpl {
+
+    public StatementAccountingConnectionProvider(DataSource dataSource) {
+        setDataSource(dataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return StatementAccounting.account(super.getConnection());
+    }
+}
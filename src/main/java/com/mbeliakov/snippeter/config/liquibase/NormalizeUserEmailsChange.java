@@ -0,0 +1,114 @@
+package com.mbeliakov.snippeter.config.liquibase;
+
+import com.mbeliakov.snippeter.domain.User;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Liquibase change storing the emails of existing users in their normalized form, see {@link User#normalizeEmail}.
+ * <p>
+ * Users are walked by id in batches, each committed on its own, so that the table is never locked as a whole. An
+ * email whose normalized form is already used by another user is left as is, and logged.
+ */
+public class NormalizeUserEmailsChange implements CustomTaskChange {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String SELECT_BATCH = "select id, email from jhi_user where id > ? and email <> lower(email) order by id";
+
+    private static final String UPDATE =
+        "update jhi_user set email = ? where id = ? and not exists (select 1 from jhi_user other where other.email = ?)";
+
+    private final Logger log = LoggerFactory.getLogger(NormalizeUserEmailsChange.class);
+
+    private int normalized;
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+        long lastId = 0;
+        try {
+            Map<Long, String> batch;
+            do {
+                batch = selectBatch(connection, lastId);
+                if (!batch.isEmpty()) {
+                    normalize(connection, batch);
+                    lastId = Collections.max(batch.keySet());
+                }
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
+            } while (batch.size() == BATCH_SIZE);
+        } catch (SQLException e) {
+            throw new CustomChangeException("Could not normalize the emails of the users", e);
+        }
+    }
+
+    private Map<Long, String> selectBatch(Connection connection, long lastId) throws SQLException {
+        Map<Long, String> batch = new LinkedHashMap<>();
+        try (PreparedStatement select = connection.prepareStatement(SELECT_BATCH)) {
+            select.setMaxRows(BATCH_SIZE);
+            select.setLong(1, lastId);
+            try (ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next()) {
+                    batch.put(resultSet.getLong(1), resultSet.getString(2));
+                }
+            }
+        }
+        return batch;
+    }
+
+    private void normalize(Connection connection, Map<Long, String> batch) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(UPDATE)) {
+            for (Map.Entry<Long, String> entry : batch.entrySet()) {
+                String normalizedEmail = User.normalizeEmail(entry.getValue());
+                update.setString(1, normalizedEmail);
+                update.setLong(2, entry.getKey());
+                update.setString(3, normalizedEmail);
+                update.addBatch();
+            }
+            int[] counts = update.executeBatch();
+            int i = 0;
+            for (Map.Entry<Long, String> entry : batch.entrySet()) {
+                if (counts[i++] == 0) {
+                    log.warn("Not normalizing the email of user {}, as its normalized form is already used", entry.getKey());
+                } else {
+                    normalized++;
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Normalized the emails of " + normalized + " users";
+    }
+
+    @Override
+    public void setUp() {
+        // nothing to set up
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+        // no resources needed
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        return new ValidationErrors();
+    }
+}
@@ -0,0 +1,137 @@
+package com.mbeliakov.snippeter.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+/**
+ * An API key of a machine client, stored as the SHA-256 digest of the value handed out to the user.
+ */
+@Entity
+@Table(name = "jhi_api_key")
+public class ApiKey implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    private Long id;
+
+    @NotNull
+    @Size(min = 64, max = 64)
+    @Column(name = "key_hash", length = 64, unique = true, nullable = false)
+    private String keyHash;
+
+    /**
+     * The first characters of the key, so that the user can tell their keys apart.
+     */
+    @NotNull
+    @Size(max = 8)
+    @Column(name = "prefix", length = 8, nullable = false)
+    private String prefix;
+
+    @NotNull
+    @Size(min = 1, max = 50)
+    @Column(name = "name", length = 50, nullable = false)
+    private String name;
+
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate;
+
+    @Column(name = "last_used_date")
+    private Instant lastUsedDate;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getKeyHash() {
+        return keyHash;
+    }
+
+    public void setKeyHash(String keyHash) {
+        this.keyHash = keyHash;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Instant getLastUsedDate() {
+        return lastUsedDate;
+    }
+
+    public void setLastUsedDate(Instant lastUsedDate) {
+        this.lastUsedDate = lastUsedDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ApiKey)) {
+            return false;
+        }
+        return id != null && id.equals(((ApiKey) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ApiKey{" +
+            "id=" + id +
+            ", prefix='" + prefix + "'" +
+            ", name='" + name + "'" +
+            ", createdDate=" + createdDate +
+            ", lastUsedDate=" + lastUsedDate +
+            "}";
+    }
+}
@@ -8,12 +8,15 @@ import javax.persistence.Id;
 import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * An authority (a security role) used by Spring Security.
  */
 @Entity
 @Table(name = "jhi_authority")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Authority implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -32,20 +35,21 @@ public class Authority implements Serializable {
         this.name = name;
     }
 
+    // final, and going through getName(), so that a reference to an authority does not have to be initialized
     @Override
-    public boolean equals(Object o) {
+    public final boolean equals(Object o) {
         if (this == o) {
             return true;
         }
         if (!(o instanceof Authority)) {
             return false;
         }
-        return Objects.equals(name, ((Authority) o).name);
+        return Objects.equals(getName(), ((Authority) o).getName());
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hashCode(name);
+    public final int hashCode() {
+        return Objects.hashCode(getName());
     }
 
     // prettier-ignore
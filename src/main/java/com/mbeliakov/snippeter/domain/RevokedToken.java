@@ -0,0 +1,111 @@
+package com.mbeliakov.snippeter.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+/**
+ * A denylist entry for JWTs: either a single token, identified by its {@code jti} claim, or every token issued to
+ * {@code login} up to the revocation date.
+ */
+@Entity
+@Table(name = "jhi_revoked_token")
+public class RevokedToken implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    private Long id;
+
+    @Size(max = 36)
+    @Column(length = 36)
+    private String jti;
+
+    @Size(max = 50)
+    @Column(length = 50)
+    private String login;
+
+    @NotNull
+    @Column(name = "revoked_date", nullable = false)
+    private Instant revokedDate;
+
+    /**
+     * Date after which every token covered by this entry has expired anyway.
+     */
+    @NotNull
+    @Column(name = "expiry_date", nullable = false)
+    private Instant expiryDate;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getJti() {
+        return jti;
+    }
+
+    public void setJti(String jti) {
+        this.jti = jti;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public void setLogin(String login) {
+        this.login = login;
+    }
+
+    public Instant getRevokedDate() {
+        return revokedDate;
+    }
+
+    public void setRevokedDate(Instant revokedDate) {
+        this.revokedDate = revokedDate;
+    }
+
+    public Instant getExpiryDate() {
+        return expiryDate;
+    }
+
+    public void setExpiryDate(Instant expiryDate) {
+        this.expiryDate = expiryDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RevokedToken)) {
+            return false;
+        }
+        return id != null && id.equals(((RevokedToken) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "RevokedToken{" +
+            "id=" + id +
+            ", jti='" + jti + '\'' +
+            ", login='" + login + '\'' +
+            ", revokedDate=" + revokedDate +
+            ", expiryDate=" + expiryDate +
+            "}";
+    }
+}
@@ -0,0 +1,120 @@
+package com.mbeliakov.snippeter.purge;
+
+import com.mbeliakov.snippeter.aop.batch.BatchWork;
+import com.mbeliakov.snippeter.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntUnaryOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the purges of stale rows a chunk at a time.
+ * <p>
+ * Each chunk is deleted by set-based statements in its own transaction, so that locks are held and undo is kept for
+ * a bounded number of rows only, and the purge pauses between two chunks to leave the tables to the other
+ * transactions. Every purge reports its purged rows ({@code purge.rows}), the time spent per chunk
+ * ({@code purge.chunk}) and the throughput of its last run, in rows per second ({@code purge.throughput}).
+ * <p>
+ * Purges are {@link BatchWork}, run on the batch connection pool.
+ */
+@Component
+@BatchWork
+public class PurgeRunner {
+
+    private final Logger log = LoggerFactory.getLogger(PurgeRunner.class);
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ApplicationProperties.Purge properties;
+
+    private final Map<String, AtomicLong> throughputs = new ConcurrentHashMap<>();
+
+    public PurgeRunner(
+        PlatformTransactionManager transactionManager,
+        MeterRegistry meterRegistry,
+        ApplicationProperties applicationProperties
+    ) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.properties = applicationProperties.getPurge();
+    }
+
+    /**
+     * Run a purge in chunks of the configured size.
+     *
+     * @param name the name of the purge, used to tag its metrics.
+     * @param chunk purges at most the given number of rows, and returns the number of rows it purged.
+     * @return the number of purged rows.
+     * @see #purge(String, int, IntUnaryOperator)
+     */
+    public long purge(String name, IntUnaryOperator chunk) {
+        return purge(name, properties.getChunkSize(), chunk);
+    }
+
+    /**
+     * Run a purge until a chunk purges fewer rows than asked, or the thread is interrupted.
+     *
+     * @param name the name of the purge, used to tag its metrics.
+     * @param chunkSize the maximum number of rows purged per transaction.
+     * @param chunk purges at most the given number of rows, and returns the number of rows it purged.
+     * @return the number of purged rows.
+     */
+    public long purge(String name, int chunkSize, IntUnaryOperator chunk) {
+        int limit = Math.max(1, chunkSize);
+        Counter rows = Counter.builder("purge.rows").description("Rows deleted by a purge").tag("name", name).register(meterRegistry);
+        Timer timer = Timer.builder("purge.chunk").description("Time spent per chunk of a purge").tag("name", name).register(meterRegistry);
+        long start = System.nanoTime();
+        long total = 0;
+        int purged;
+        do {
+            Integer result = timer.record(() -> transactionTemplate.execute(status -> chunk.applyAsInt(limit)));
+            purged = result == null ? 0 : result;
+            rows.increment(purged);
+            total += purged;
+        } while (purged >= limit && pause());
+        long elapsedNanos = Math.max(1, System.nanoTime() - start);
+        long rowsPerSecond = total * 1_000_000_000L / elapsedNanos;
+        throughput(name).set(rowsPerSecond);
+        log.debug("Purge {} deleted {} rows in {} ms, {} rows/s", name, total, elapsedNanos / 1_000_000, rowsPerSecond);
+        return total;
+    }
+
+    private boolean pause() {
+        if (properties.getPauseMillis() <= 0) {
+            return !Thread.currentThread().isInterrupted();
+        }
+        try {
+            Thread.sleep(properties.getPauseMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private AtomicLong throughput(String name) {
+        return throughputs.computeIfAbsent(
+            name,
+            key -> {
+                AtomicLong throughput = new AtomicLong();
+                Gauge
+                    .builder("purge.throughput", throughput, AtomicLong::get)
+                    .description("Rows per second deleted by the last run of a purge")
+                    .tag("name", key)
+                    .register(meterRegistry);
+                return throughput;
+            }
+        );
+    }
+}
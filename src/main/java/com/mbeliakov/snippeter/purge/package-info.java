@@ -0,0 +1,4 @@
+/**
+ * Chunked purges of stale rows, run by the service and security layers alike.
+ */
+package com.mbeliakov.snippeter.purge;
@@ -0,0 +1,36 @@
+package com.mbeliakov.snippeter.repository;
+
+import com.mbeliakov.snippeter.aop.routing.PrimaryRead;
+import com.mbeliakov.snippeter.domain.ApiKey;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the {@link ApiKey} entity.
+ */
+@Repository
+public interface ApiKeyRepository extends JpaRepository<ApiKey, Long> {
+    @PrimaryRead
+    @EntityGraph(attributePaths = { "user", "user.authorities" })
+    Optional<ApiKey> findOneWithUserByKeyHash(String keyHash);
+
+    List<ApiKey> findAllByUserLoginOrderByCreatedDate(String login);
+
+    Optional<ApiKey> findOneByIdAndUserLogin(Long id, String login);
+
+    long countByUserLogin(String login);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+        "update ApiKey apiKey set apiKey.lastUsedDate = :date " +
+        "where apiKey.id in :ids and (apiKey.lastUsedDate is null or apiKey.lastUsedDate < :date)"
+    )
+    int updateLastUsedDate(@Param("ids") List<Long> ids, @Param("date") Instant date);
+}
@@ -0,0 +1,103 @@
+package com.mbeliakov.snippeter.repository;
+
+import java.util.Objects;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Position of a keyset (seek) page: the sort order, and the row the page starts after, or ends before.
+ * <p>
+ * Rows are ordered by the sort property, with {@code null} values after all others, then by id in the same
+ * direction, so that the order is total and a page can be found with an indexed predicate instead of an offset.
+ */
+public final class Keyset {
+
+    private final Sort.Order order;
+
+    private final Object value;
+
+    private final Long id;
+
+    private final boolean before;
+
+    private Keyset(Sort.Order order, Object value, Long id, boolean before) {
+        this.order = Objects.requireNonNull(order);
+        this.value = value;
+        this.id = id;
+        this.before = before;
+    }
+
+    /**
+     * @param order the sort order.
+     * @return the position of the first page.
+     */
+    public static Keyset first(Sort.Order order) {
+        return new Keyset(order, null, null, false);
+    }
+
+    /**
+     * @param order the sort order.
+     * @param value the value of the sort property of the row, {@code null} when sorting by id.
+     * @param id the id of the row.
+     * @return the position of the page starting after the row.
+     */
+    public static Keyset after(Sort.Order order, Object value, Long id) {
+        return new Keyset(order, value, Objects.requireNonNull(id), false);
+    }
+
+    /**
+     * @param order the sort order.
+     * @param value the value of the sort property of the row, {@code null} when sorting by id.
+     * @param id the id of the row.
+     * @return the position of the page ending before the row.
+     */
+    public static Keyset before(Sort.Order order, Object value, Long id) {
+        return new Keyset(order, value, Objects.requireNonNull(id), true);
+    }
+
+    public Sort.Order getOrder() {
+        return order;
+    }
+
+    public String getProperty() {
+        return order.getProperty();
+    }
+
+    public boolean isSortedById() {
+        return "id".equals(order.getProperty());
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public boolean isFirst() {
+        return id == null;
+    }
+
+    public boolean isBefore() {
+        return before;
+    }
+
+    /**
+     * @return whether the rows of the page are scanned in descending order, which is the opposite of the sort
+     * direction for a page ending before a row.
+     */
+    public boolean isScannedDescending() {
+        return order.isDescending() != before;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "Keyset{" +
+            "order=" + order +
+            ", value=" + value +
+            ", id=" + id +
+            ", before=" + before +
+            "}";
+    }
+}
@@ -0,0 +1,43 @@
+package com.mbeliakov.snippeter.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A page of a keyset pagination, with the positions of the pages around it. Unlike a
+ * {@link org.springframework.data.domain.Page}, it has no total count.
+ *
+ * @param <T> the type of the content.
+ */
+public final class KeysetPage<T> {
+
+    private final List<T> content;
+
+    private final Keyset next;
+
+    private final Keyset previous;
+
+    public KeysetPage(List<T> content, Keyset next, Keyset previous) {
+        this.content = content;
+        this.next = next;
+        this.previous = previous;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * @return the position of the next page, empty on the last page.
+     */
+    public Optional<Keyset> getNext() {
+        return Optional.ofNullable(next);
+    }
+
+    /**
+     * @return the position of the previous page, empty on the first page.
+     */
+    public Optional<Keyset> getPrevious() {
+        return Optional.ofNullable(previous);
+    }
+}
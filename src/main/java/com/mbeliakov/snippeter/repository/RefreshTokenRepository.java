@@ -0,0 +1,38 @@
+package com.mbeliakov.snippeter.repository;
+
+import com.mbeliakov.snippeter.domain.RefreshToken;
+import com.mbeliakov.snippeter.domain.User;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the {@link RefreshToken} entity.
+ */
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    @EntityGraph(attributePaths = { "user", "user.authorities" })
+    Optional<RefreshToken> findOneWithUserByTokenHash(String tokenHash);
+
+    @Query("select refreshToken.id from RefreshToken refreshToken where refreshToken.expiryDate < :date order by refreshToken.id")
+    List<Long> findIdsByExpiryDateBefore(@Param("date") Instant date, Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from RefreshToken refreshToken where refreshToken.id in :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from RefreshToken refreshToken where refreshToken.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from RefreshToken refreshToken where refreshToken.user = :user")
+    int deleteByUser(@Param("user") User user);
+}
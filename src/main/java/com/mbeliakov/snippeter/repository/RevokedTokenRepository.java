@@ -0,0 +1,34 @@
+package com.mbeliakov.snippeter.repository;
+
+import com.mbeliakov.snippeter.aop.routing.PrimaryRead;
+import com.mbeliakov.snippeter.domain.RevokedToken;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the {@link RevokedToken} entity.
+ */
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+    @PrimaryRead
+    List<RevokedToken> findAllByExpiryDateAfter(Instant date);
+
+    @PrimaryRead
+    boolean existsByJti(String jti);
+
+    @PrimaryRead
+    boolean existsByLoginAndRevokedDateGreaterThanEqual(String login, Instant issuedAt);
+
+    @Query("select revokedToken.id from RevokedToken revokedToken where revokedToken.expiryDate < :date order by revokedToken.id")
+    List<Long> findIdsByExpiryDateBefore(@Param("date") Instant date, Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from RevokedToken revokedToken where revokedToken.id in :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+}
@@ -1,35 +1,118 @@
 package com.mbeliakov.snippeter.repository;
 
 import com.mbeliakov.snippeter.domain.User;
-import java.time.Instant;
+import com.mbeliakov.snippeter.service.dto.AdminUserDTO;
+import com.mbeliakov.snippeter.service.dto.UserDTO;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
  * Spring Data JPA repository for the {@link User} entity.
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository
+    extends JpaRepository<User, Long>, UserRepositoryWithKeyset, UserRepositoryWithCountEstimate, UserRepositoryWithPurge {
     Optional<User> findOneByActivationKey(String activationKey);
 
-    List<User> findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(Instant dateTime);
-
     Optional<User> findOneByResetKey(String resetKey);
 
-    Optional<User> findOneByEmailIgnoreCase(String email);
+    Optional<User> findOneByEmail(String email);
+
+    /**
+     * Find a user by email regardless of case, with an exact match on the normalized email.
+     *
+     * @param email the email, in any case.
+     * @return the user.
+     */
+    default Optional<User> findOneByEmailIgnoreCase(String email) {
+        return findOneByEmail(User.normalizeEmail(email));
+    }
 
     Optional<User> findOneByLogin(String login);
 
+    @Query("select user.login from User user where user.login in :logins")
+    List<String> findAllLoginsByLoginIn(@Param("logins") Collection<String> logins);
+
+    @Query("select user.email from User user where user.email in :emails")
+    List<String> findAllEmailsByEmailIn(@Param("emails") Collection<String> emails);
+
     @EntityGraph(attributePaths = "authorities")
     Optional<User> findOneWithAuthoritiesByLogin(String login);
 
     @EntityGraph(attributePaths = "authorities")
-    Optional<User> findOneWithAuthoritiesByEmailIgnoreCase(String email);
+    Optional<User> findOneWithAuthoritiesByEmail(String email);
+
+    /**
+     * Find a user with its authorities by email regardless of case, with an exact match on the normalized email.
+     *
+     * @param email the email, in any case.
+     * @return the user.
+     */
+    default Optional<User> findOneWithAuthoritiesByEmailIgnoreCase(String email) {
+        return findOneWithAuthoritiesByEmail(User.normalizeEmail(email));
+    }
+
+    /**
+     * Selection of the JPQL projections into {@link AdminUserDTO}, whose authorities are selected separately.
+     */
+    String ADMIN_USER_DTO =
+        "new com.mbeliakov.snippeter.service.dto.AdminUserDTO(user.id, user.login, user.firstName, user.lastName, user.email, " +
+        "user.imageUrl, user.activated, user.langKey, user.createdBy, user.createdDate, user.lastModifiedBy, user.lastModifiedDate)";
+
+    /**
+     * Selection of the JPQL projections into {@link UserDTO}.
+     */
+    String USER_DTO = "new com.mbeliakov.snippeter.service.dto.UserDTO(user.id, user.login)";
+
+    @Query(
+        value = "select " + USER_DTO + " from User user where user.activated = true",
+        countQuery = "select count(user) from User user where user.activated = true"
+    )
+    Page<UserDTO> findAllPublicUsers(Pageable pageable);
+
+    @Query("select " + USER_DTO + " from User user where user.activated = true")
+    Slice<UserDTO> findSliceOfPublicUsers(Pageable pageable);
+
+    @Query("select " + USER_DTO + " from User user where user.id in :ids")
+    List<UserDTO> findAllPublicUsersByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "select " + ADMIN_USER_DTO + " from User user", countQuery = "select count(user) from User user")
+    Page<AdminUserDTO> findAllAdminUsers(Pageable pageable);
+
+    @Query("select " + ADMIN_USER_DTO + " from User user")
+    Slice<AdminUserDTO> findSliceOfAdminUsers(Pageable pageable);
+
+    @Query("select " + ADMIN_USER_DTO + " from User user where user.id in :ids")
+    List<AdminUserDTO> findAllAdminUsersByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Stream all the users, in the order of their ids, from a forward-only cursor: the stream must be closed, within
+     * the transaction it was opened in.
+     *
+     * @return the users, without their authorities.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select " + ADMIN_USER_DTO + " from User user order by user.id")
+    Stream<AdminUserDTO> streamAllAdminUsers();
 
-    Page<User> findAllByIdNotNullAndActivatedIsTrue(Pageable pageable);
+    /**
+     * Select the authorities of users, read from the join table.
+     *
+     * @param ids the ids of the users.
+     * @return pairs of a user id and the name of one of its authorities.
+     */
+    @Query("select user.id, authority.name from User user join user.authorities authority where user.id in :ids")
+    List<Object[]> findAuthorityNamesByUserIdIn(@Param("ids") Collection<Long> ids);
 }
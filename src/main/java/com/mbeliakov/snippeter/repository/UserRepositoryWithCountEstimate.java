@@ -0,0 +1,14 @@
+package com.mbeliakov.snippeter.repository;
+
+/**
+ * Row count estimate of the {@link com.mbeliakov.snippeter.domain.User} table.
+ */
+public interface UserRepositoryWithCountEstimate {
+    /**
+     * Estimate the number of users from the statistics of the database, without scanning the table. Falls back
+     * to an exact count on databases without such statistics, and on tables that were never analyzed.
+     *
+     * @return the estimated number of users, activated or not.
+     */
+    long estimateCount();
+}
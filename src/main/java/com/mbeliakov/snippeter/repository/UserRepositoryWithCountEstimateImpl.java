@@ -0,0 +1,48 @@
+package com.mbeliakov.snippeter.repository;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+/**
+ * Implementation of {@link UserRepositoryWithCountEstimate}, reading {@code pg_class.reltuples} on PostgreSQL and
+ * the {@code ROW_COUNT_ESTIMATE} of the information schema on H2.
+ */
+public class UserRepositoryWithCountEstimateImpl implements UserRepositoryWithCountEstimate {
+
+    private static final String POSTGRESQL_ESTIMATE = "select reltuples from pg_class where oid = to_regclass('jhi_user')";
+
+    private static final String H2_ESTIMATE =
+        "select row_count_estimate from information_schema.tables where table_schema = schema() and table_name = 'JHI_USER'";
+
+    private final EntityManager entityManager;
+
+    private final String estimateQuery;
+
+    public UserRepositoryWithCountEstimateImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        Dialect dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        if (dialect instanceof PostgreSQL81Dialect) {
+            this.estimateQuery = POSTGRESQL_ESTIMATE;
+        } else if (dialect instanceof H2Dialect) {
+            this.estimateQuery = H2_ESTIMATE;
+        } else {
+            this.estimateQuery = null;
+        }
+    }
+
+    @Override
+    public long estimateCount() {
+        if (estimateQuery != null) {
+            List<?> result = entityManager.createNativeQuery(estimateQuery).getResultList();
+            // a table that was never analyzed has no estimate, or an estimate of zero on older PostgreSQL versions
+            if (!result.isEmpty() && result.get(0) instanceof Number && ((Number) result.get(0)).longValue() > 0) {
+                return ((Number) result.get(0)).longValue();
+            }
+        }
+        return entityManager.createQuery("select count(user) from User user", Long.class).getSingleResult();
+    }
+}
@@ -0,0 +1,19 @@
+package com.mbeliakov.snippeter.repository;
+
+import java.util.List;
+
+/**
+ * Keyset pagination over the {@link com.mbeliakov.snippeter.domain.User} entity.
+ */
+public interface UserRepositoryWithKeyset {
+    /**
+     * Select the users of a keyset page, as the positions right after each of them: their id and the value of
+     * their sort property, which are all a page needs to load them and to link to the pages around it.
+     *
+     * @param keyset the position of the page.
+     * @param activatedOnly whether to select only activated users.
+     * @param limit the maximum number of users.
+     * @return the positions, in the order they are scanned: reversed for a page ending before a row.
+     */
+    List<Keyset> findPositionsByKeyset(Keyset keyset, boolean activatedOnly, int limit);
+}
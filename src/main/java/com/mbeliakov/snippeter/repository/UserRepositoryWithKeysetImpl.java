@@ -0,0 +1,129 @@
+package com.mbeliakov.snippeter.repository;
+
+import com.mbeliakov.snippeter.domain.User;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.Parameter;
+import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.SingularAttribute;
+
+/**
+ * JPQL implementation of {@link UserRepositoryWithKeyset}.
+ * <p>
+ * The seek predicate and the order by clause are built from the sort property, which must be an attribute of
+ * {@link User}. The predicate bounds the property on its own, {@code value >= :value}, before telling apart the rows
+ * sharing its value by id, so that the index on the property and the id serves it as a range scan. {@code null}
+ * values are ordered after all others: the rows of an optional property are read in two segments, the non-null values
+ * then the {@code null} ones, each seeking the same index, the second one only when the first did not fill the page.
+ */
+public class UserRepositoryWithKeysetImpl implements UserRepositoryWithKeyset {
+
+    private final EntityManager entityManager;
+
+    public UserRepositoryWithKeysetImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Keyset> findPositionsByKeyset(Keyset keyset, boolean activatedOnly, int limit) {
+        // throws IllegalArgumentException on an unknown property, which is then never part of the query
+        SingularAttribute<? super User, ?> attribute = entityManager
+            .getMetamodel()
+            .entity(User.class)
+            .getSingularAttribute(keyset.getProperty());
+        boolean descending = keyset.isScannedDescending();
+        String comparison = descending ? " < " : " > ";
+        if (keyset.isSortedById()) {
+            return findSegment(keyset, null, keyset.isFirst() ? null : "user.id" + comparison + ":id", activatedOnly, limit);
+        }
+        String property = "user." + attribute.getName();
+        boolean nullable = attribute.isOptional();
+        boolean inNulls = !keyset.isFirst() && keyset.getValue() == null;
+
+        String valuesPredicate;
+        if (keyset.isFirst() || inNulls) {
+            valuesPredicate = nullable ? property + " is not null" : null;
+        } else {
+            valuesPredicate =
+                property +
+                (descending ? " <= " : " >= ") +
+                ":value and (" +
+                property +
+                comparison +
+                ":value or user.id" +
+                comparison +
+                ":id)";
+        }
+        String nullsPredicate = property + " is null" + (inNulls ? " and user.id" + comparison + ":id" : "");
+
+        // scanned in ascending order, the non-null values come first, then the nulls; in descending order, the reverse
+        List<Keyset> positions = new ArrayList<>();
+        if (descending) {
+            if (nullable && (keyset.isFirst() || inNulls)) {
+                positions.addAll(findSegment(keyset, null, nullsPredicate, activatedOnly, limit));
+            }
+            if (positions.size() < limit) {
+                positions.addAll(findSegment(keyset, property, valuesPredicate, activatedOnly, limit - positions.size()));
+            }
+        } else {
+            if (!inNulls) {
+                positions.addAll(findSegment(keyset, property, valuesPredicate, activatedOnly, limit));
+            }
+            if (nullable && positions.size() < limit) {
+                positions.addAll(findSegment(keyset, null, nullsPredicate, activatedOnly, limit - positions.size()));
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Select the positions of the rows matching a seek predicate, ordered by the sort property, if any, then by id.
+     *
+     * @param property the sort property, or {@code null} to order by id only, when sorting by id or among null values.
+     */
+    private List<Keyset> findSegment(Keyset keyset, String property, String predicate, boolean activatedOnly, int limit) {
+        String direction = keyset.isScannedDescending() ? " desc" : " asc";
+        List<String> predicates = new ArrayList<>();
+        if (activatedOnly) {
+            predicates.add("user.activated = true");
+        }
+        if (predicate != null) {
+            predicates.add(predicate);
+        }
+
+        StringBuilder jpql = new StringBuilder("select user.id");
+        if (property != null) {
+            jpql.append(", ").append(property);
+        }
+        jpql.append(" from User user");
+        if (!predicates.isEmpty()) {
+            jpql.append(" where ").append(String.join(" and ", predicates));
+        }
+        jpql.append(" order by ");
+        if (property != null) {
+            jpql.append(property).append(direction).append(", ");
+        }
+        jpql.append("user.id").append(direction);
+
+        List<Keyset> positions = new ArrayList<>();
+        if (property == null) {
+            for (Long id : bind(entityManager.createQuery(jpql.toString(), Long.class), keyset, limit).getResultList()) {
+                positions.add(Keyset.after(keyset.getOrder(), null, id));
+            }
+        } else {
+            for (Object[] row : bind(entityManager.createQuery(jpql.toString(), Object[].class), keyset, limit).getResultList()) {
+                positions.add(Keyset.after(keyset.getOrder(), row[1], (Long) row[0]));
+            }
+        }
+        return positions;
+    }
+
+    private static <T> TypedQuery<T> bind(TypedQuery<T> query, Keyset keyset, int limit) {
+        query.setMaxResults(limit);
+        for (Parameter<?> parameter : query.getParameters()) {
+            query.setParameter(parameter.getName(), "id".equals(parameter.getName()) ? keyset.getId() : keyset.getValue());
+        }
+        return query;
+    }
+}
@@ -0,0 +1,35 @@
+package com.mbeliakov.snippeter.repository;
+
+import java.time.Instant;
+
+/**
+ * Set-based purges of stale {@link com.mbeliakov.snippeter.domain.User} data, a bounded chunk at a time.
+ */
+public interface UserRepositoryWithPurge {
+    /**
+     * Delete not activated users, with their authorities, without loading them.
+     *
+     * @param createdBefore the date the users were created before.
+     * @param limit the maximum number of users to delete.
+     * @return the number of deleted users.
+     */
+    int deleteNotActivatedUsers(Instant createdBefore, int limit);
+
+    /**
+     * Delete the not activated users holding a login or an email, with their authorities, in a single statement.
+     *
+     * @param login the login.
+     * @param email the email, already normalized, or {@code null}.
+     * @return the number of deleted users.
+     */
+    int deleteNotActivatedUsers(String login, String email);
+
+    /**
+     * Clear the reset keys that expired, without loading their users.
+     *
+     * @param resetBefore the date the keys were issued before.
+     * @param limit the maximum number of keys to clear.
+     * @return the number of cleared keys.
+     */
+    int clearResetKeys(Instant resetBefore, int limit);
+}
@@ -0,0 +1,86 @@
+package com.mbeliakov.snippeter.repository;
+
+import com.mbeliakov.snippeter.domain.User;
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+/**
+ * Implementation of {@link UserRepositoryWithPurge}. A chunk selects the ids of its rows first, through an index and
+ * in id order, so that it stops at its limit, then updates or deletes those rows by id. The authorities of a deleted
+ * user are deleted by the cascade of their foreign key.
+ */
+public class UserRepositoryWithPurgeImpl implements UserRepositoryWithPurge {
+
+    private static final String DELETE_NOT_ACTIVATED_USERS = "delete from jhi_user where activated = false and (login = ? or email = ?)";
+
+    private final EntityManager entityManager;
+
+    public UserRepositoryWithPurgeImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public int deleteNotActivatedUsers(Instant createdBefore, int limit) {
+        List<Long> ids = entityManager
+            .createQuery(
+                "select user.id from User user where user.activated = false and user.createdDate < :date" +
+                " and user.activationKey is not null order by user.id",
+                Long.class
+            )
+            .setParameter("date", createdBefore)
+            .setMaxResults(limit)
+            .getResultList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return entityManager.createQuery("delete from User user where user.id in :ids").setParameter("ids", ids).executeUpdate();
+    }
+
+    @Override
+    public int deleteNotActivatedUsers(String login, String email) {
+        // the delete must see the pending changes, such as an activation
+        entityManager.flush();
+        // run over JDBC, as a Hibernate query would evict every cached user even when it deletes nothing
+        int deleted = entityManager
+            .unwrap(Session.class)
+            .doReturningWork(
+                connection -> {
+                    try (PreparedStatement statement = connection.prepareStatement(DELETE_NOT_ACTIVATED_USERS)) {
+                        statement.setString(1, login);
+                        statement.setString(2, email);
+                        return statement.executeUpdate();
+                    }
+                }
+            );
+        if (deleted > 0) {
+            Cache cache = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+            cache.evictEntityData(User.class);
+            cache.evictCollectionData(User.class.getName() + ".authorities");
+        }
+        return deleted;
+    }
+
+    @Override
+    public int clearResetKeys(Instant resetBefore, int limit) {
+        List<Long> ids = entityManager
+            .createQuery(
+                "select user.id from User user where user.resetDate < :date and user.resetKey is not null order by user.id",
+                Long.class
+            )
+            .setParameter("date", resetBefore)
+            .setMaxResults(limit)
+            .getResultList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return entityManager
+            .createQuery("update User user set user.resetKey = null, user.resetDate = null where user.id in :ids")
+            .setParameter("ids", ids)
+            .executeUpdate();
+    }
+}
@@ -0,0 +1,104 @@
+package com.mbeliakov.snippeter.security;
+
+import com.mbeliakov.snippeter.config.ApplicationProperties;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+/**
+ * The BCrypt work factor used by this node, and the timings it was chosen from.
+ * <p>
+ * When calibration is enabled, hashes are timed from the minimum strength upwards, and the highest strength
+ * whose hash still fits the latency target is kept. Each extra unit of strength doubles the hashing time, so
+ * the search stops as soon as the next strength is expected to exceed the target.
+ */
+public final class BCryptCalibration {
+
+    private static final Logger log = LoggerFactory.getLogger(BCryptCalibration.class);
+
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+
+    private static final int SAMPLES_PER_STRENGTH = 2;
+
+    private final int strength;
+
+    private final boolean calibrated;
+
+    private final long targetLatencyMillis;
+
+    private final Map<Integer, Double> measuredMillis;
+
+    private BCryptCalibration(int strength, boolean calibrated, long targetLatencyMillis, Map<Integer, Double> measuredMillis) {
+        this.strength = strength;
+        this.calibrated = calibrated;
+        this.targetLatencyMillis = targetLatencyMillis;
+        this.measuredMillis = Collections.unmodifiableMap(measuredMillis);
+    }
+
+    /**
+     * Choose the work factor from the configuration, measuring it if calibration is enabled.
+     *
+     * @param properties the password hashing properties.
+     * @return the chosen work factor.
+     */
+    public static BCryptCalibration of(ApplicationProperties.Security.PasswordHashing properties) {
+        ApplicationProperties.Security.PasswordHashing.Calibration calibration = properties.getCalibration();
+        if (!calibration.isEnabled()) {
+            log.debug("Using configured BCrypt strength {}", properties.getStrength());
+            return new BCryptCalibration(properties.getStrength(), false, 0, new TreeMap<>());
+        }
+        return calibrate(calibration.getMinStrength(), calibration.getMaxStrength(), calibration.getTargetLatencyMillis());
+    }
+
+    static BCryptCalibration calibrate(int minStrength, int maxStrength, long targetLatencyMillis) {
+        Map<Integer, Double> measuredMillis = new TreeMap<>();
+        // Warm up the JIT, so that the first measurement is not inflated
+        BCrypt.hashpw(SAMPLE_PASSWORD, BCrypt.gensalt(minStrength));
+        int strength = minStrength;
+        double millis = measure(strength);
+        measuredMillis.put(strength, millis);
+        while (strength < maxStrength && millis * 2 <= targetLatencyMillis) {
+            strength++;
+            millis = measure(strength);
+            measuredMillis.put(strength, millis);
+        }
+        if (millis > targetLatencyMillis && strength > minStrength) {
+            strength--;
+        }
+        log.info("Calibrated BCrypt strength to {} for a {} ms target, measured {}", strength, targetLatencyMillis, measuredMillis);
+        return new BCryptCalibration(strength, true, targetLatencyMillis, measuredMillis);
+    }
+
+    private static double measure(int strength) {
+        String salt = BCrypt.gensalt(strength);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES_PER_STRENGTH; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw(SAMPLE_PASSWORD, salt);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1_000_000d;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    public boolean isCalibrated() {
+        return calibrated;
+    }
+
+    public long getTargetLatencyMillis() {
+        return targetLatencyMillis;
+    }
+
+    /**
+     * @return the fastest measured hashing time, in milliseconds, for each strength that was tried.
+     */
+    public Map<Integer, Double> getMeasuredMillis() {
+        return measuredMillis;
+    }
+}
@@ -0,0 +1,70 @@
+package com.mbeliakov.snippeter.security;
+
+import java.util.Optional;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * {@link AuthenticationProvider} that answers HTTP Basic authentications from the {@link VerifiedCredentialsCache},
+ * and only delegates on a miss. Other authentications, such as {@code /api/authenticate}, always go to the delegate.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private static final String BASIC_PREFIX = "Basic ";
+
+    private final AuthenticationProvider delegate;
+
+    private final VerifiedCredentialsCache verifiedCredentialsCache;
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, VerifiedCredentialsCache verifiedCredentialsCache) {
+        this.delegate = delegate;
+        this.verifiedCredentialsCache = verifiedCredentialsCache;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (!(authentication.getCredentials() instanceof String) || !isHttpBasic()) {
+            return delegate.authenticate(authentication);
+        }
+        String username = authentication.getName();
+        String password = (String) authentication.getCredentials();
+        Optional<UserDetails> cached = verifiedCredentialsCache.get(username, password);
+        if (cached.isPresent()) {
+            UserDetails userDetails = cached.get();
+            UsernamePasswordAuthenticationToken result = new UsernamePasswordAuthenticationToken(
+                userDetails,
+                password,
+                userDetails.getAuthorities()
+            );
+            result.setDetails(authentication.getDetails());
+            return result;
+        }
+        long generation = verifiedCredentialsCache.generation();
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.getPrincipal() instanceof UserDetails) {
+            verifiedCredentialsCache.put(username, password, (UserDetails) result.getPrincipal(), generation);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    private static boolean isHttpBasic() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes instanceof ServletRequestAttributes) {
+            String authorization = ((ServletRequestAttributes) requestAttributes).getRequest().getHeader(HttpHeaders.AUTHORIZATION);
+            return authorization != null && authorization.regionMatches(true, 0, BASIC_PREFIX, 0, BASIC_PREFIX.length());
+        }
+        return false;
+    }
+}
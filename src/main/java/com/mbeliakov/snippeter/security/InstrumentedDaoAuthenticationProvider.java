@@ -0,0 +1,45 @@
+package com.mbeliakov.snippeter.security;
+
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * {@link DaoAuthenticationProvider} that times the password match and counts the outcome of each authentication in
+ * the {@link LoginMetrics}.
+ */
+public class InstrumentedDaoAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private final LoginMetrics loginMetrics;
+
+    public InstrumentedDaoAuthenticationProvider(LoginMetrics loginMetrics) {
+        this.loginMetrics = loginMetrics;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        try {
+            Authentication result = super.authenticate(authentication);
+            loginMetrics.recordSuccess();
+            return result;
+        } catch (BadCredentialsException e) {
+            loginMetrics.recordBadCredentials();
+            throw e;
+        } catch (InternalAuthenticationServiceException e) {
+            if (e.getCause() instanceof UserNotActivatedException) {
+                loginMetrics.recordNotActivated();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails, UsernamePasswordAuthenticationToken authentication)
+        throws AuthenticationException {
+        loginMetrics.passwordMatch().record(() -> super.additionalAuthenticationChecks(userDetails, authentication));
+    }
+}
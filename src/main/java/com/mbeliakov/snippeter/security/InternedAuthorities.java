@@ -0,0 +1,94 @@
+package com.mbeliakov.snippeter.security;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Shared, immutable {@link GrantedAuthority} instances.
+ * <p>
+ * The roles of {@link AuthoritiesConstants} are interned up front, and the authority lists decoded from a
+ * comma-separated claim are memoized by raw claim value, so that turning a token into a principal does not
+ * allocate authorities on every request. Both tables are bounded: once full, unknown values are decoded
+ * without being retained.
+ */
+public final class InternedAuthorities {
+
+    private static final int MAX_INTERNED_VALUES = 256;
+
+    private static final ConcurrentMap<String, GrantedAuthority> AUTHORITIES = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<String, List<GrantedAuthority>> CLAIMS = new ConcurrentHashMap<>();
+
+    static {
+        List<String> roles = List.of(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER, AuthoritiesConstants.ANONYMOUS);
+        roles.forEach(role -> AUTHORITIES.put(role, new SimpleGrantedAuthority(role)));
+        CLAIMS.put("", Collections.emptyList());
+        for (String role : roles) {
+            fromClaim(role);
+            for (String other : roles) {
+                if (!role.equals(other)) {
+                    fromClaim(role + "," + other);
+                }
+            }
+        }
+    }
+
+    private InternedAuthorities() {}
+
+    /**
+     * Get the shared authority for a role name.
+     *
+     * @param name the name of the role.
+     * @return the shared authority, or a new one if the table is full.
+     */
+    public static GrantedAuthority of(String name) {
+        GrantedAuthority authority = AUTHORITIES.get(name);
+        if (authority != null) {
+            return authority;
+        }
+        authority = new SimpleGrantedAuthority(name);
+        if (AUTHORITIES.size() < MAX_INTERNED_VALUES) {
+            GrantedAuthority existing = AUTHORITIES.putIfAbsent(name, authority);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return authority;
+    }
+
+    /**
+     * Decode a comma-separated list of role names, as stored in the authorities claim of a token.
+     *
+     * @param claim the raw claim value.
+     * @return an immutable list of shared authorities, blank entries being skipped.
+     */
+    public static List<GrantedAuthority> fromClaim(String claim) {
+        List<GrantedAuthority> authorities = CLAIMS.get(claim);
+        if (authorities != null) {
+            return authorities;
+        }
+        authorities = decode(claim);
+        if (CLAIMS.size() < MAX_INTERNED_VALUES) {
+            List<GrantedAuthority> existing = CLAIMS.putIfAbsent(claim, authorities);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return authorities;
+    }
+
+    private static List<GrantedAuthority> decode(String claim) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (String name : claim.split(",")) {
+            if (!name.trim().isEmpty()) {
+                authorities.add(of(name));
+            }
+        }
+        return Collections.unmodifiableList(authorities);
+    }
+}
@@ -0,0 +1,143 @@
+package com.mbeliakov.snippeter.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mbeliakov.snippeter.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts failed authentications per login and per client address, so that brute force attempts are rejected before
+ * the user is loaded and the password hashed.
+ * <p>
+ * Failures are counted in two bounded caches, one per dimension, holding for each key the start of its window and a
+ * count packed in a single {@code long}, which starts over once the window has elapsed. Keys are compared exactly, so
+ * the failures of a key never throttle another one, and a spray of distinct keys only evicts the least used entries,
+ * the {@link Caffeine} admission policy favouring the keys failing repeatedly.
+ * <p>
+ * The client address is the one of the connection, so behind a reverse proxy the server must be configured to take
+ * it from the forwarded headers, see {@code server.forward-headers-strategy}; otherwise every client shares the
+ * address of the proxy, and {@code max-failures-per-address} must be raised accordingly.
+ */
+@Component
+public class LoginAttemptThrottle {
+
+    private static final long COUNT_MASK = 0xffffffffL;
+
+    private final ApplicationProperties.Security.LoginThrottling properties;
+
+    private final LongSupplier clock;
+
+    private final Cache<String, Long> loginFailures;
+
+    private final Cache<String, Long> addressFailures;
+
+    private final Counter throttled;
+
+    @Autowired
+    public LoginAttemptThrottle(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this(applicationProperties, meterRegistry, () -> TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
+    }
+
+    LoginAttemptThrottle(ApplicationProperties applicationProperties, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.properties = applicationProperties.getSecurity().getLoginThrottling();
+        this.clock = clock;
+        this.loginFailures = newFailureCache();
+        this.addressFailures = newFailureCache();
+        this.throttled =
+            Counter
+                .builder("security.login.throttled")
+                .description("Authentication attempts rejected because of too many recent failures")
+                .register(meterRegistry);
+    }
+
+    private Cache<String, Long> newFailureCache() {
+        return Caffeine
+            .newBuilder()
+            .maximumSize(properties.getMaxEntries())
+            .expireAfterWrite(Duration.ofSeconds(properties.getWindowSeconds()))
+            .ticker(() -> TimeUnit.SECONDS.toNanos(clock.getAsLong()))
+            .build();
+    }
+
+    /**
+     * Reject an authentication attempt if too many attempts failed recently for its login or client address.
+     *
+     * @param login the login, or email, being authenticated.
+     * @param address the client address, if known.
+     * @throws LoginThrottledException if the attempt must be rejected.
+     */
+    public void checkAllowed(String login, String address) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long now = clock.getAsLong();
+        long retryAfter = Math.max(
+            retryAfter(loginFailures, normalize(login), properties.getMaxFailuresPerLogin(), now),
+            address != null ? retryAfter(addressFailures, address, properties.getMaxFailuresPerAddress(), now) : 0
+        );
+        if (retryAfter > 0) {
+            throttled.increment();
+            throw new LoginThrottledException(retryAfter);
+        }
+    }
+
+    public void recordFailure(String login, String address) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long now = clock.getAsLong();
+        increment(loginFailures, normalize(login), now);
+        if (address != null) {
+            increment(addressFailures, address, now);
+        }
+    }
+
+    /**
+     * Forget the failures of a login, once it authenticated successfully. The failures of the client address are kept.
+     *
+     * @param login the login, or email, that authenticated.
+     */
+    public void recordSuccess(String login) {
+        if (properties.isEnabled()) {
+            loginFailures.invalidate(normalize(login));
+        }
+    }
+
+    private void increment(Cache<String, Long> failures, String key, long now) {
+        failures.asMap().merge(key, pack(now, 1), (window, first) -> isExpired(window, now) ? first : saturatedIncrement(window));
+    }
+
+    private static long saturatedIncrement(long window) {
+        return (window & COUNT_MASK) < COUNT_MASK ? window + 1 : window;
+    }
+
+    /**
+     * @return the number of seconds until the key drops below the threshold, or 0 if it is below already.
+     */
+    private long retryAfter(Cache<String, Long> failures, String key, long threshold, long now) {
+        Long window = failures.getIfPresent(key);
+        if (window == null || isExpired(window, now) || (window & COUNT_MASK) < threshold) {
+            return 0;
+        }
+        return (window >>> 32) + properties.getWindowSeconds() - now;
+    }
+
+    private boolean isExpired(long window, long now) {
+        return now - (window >>> 32) >= properties.getWindowSeconds();
+    }
+
+    private static long pack(long start, long count) {
+        return (start << 32) | count;
+    }
+
+    private static String normalize(String login) {
+        return login == null ? "" : login.toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,100 @@
+package com.mbeliakov.snippeter.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Meters of the login pipeline: one timer per phase of an authentication, and one counter per outcome.
+ * <p>
+ * The phases are the user lookup, tagged with whether the user was looked up by email or by login, the password
+ * match, the mapping of authorities and the signing of the token. Attempts rejected by the {@link LoginAttemptThrottle}
+ * are counted by the throttle itself.
+ */
+@Component
+public class LoginMetrics {
+
+    private final Timer lookupByEmail;
+
+    private final Timer lookupByLogin;
+
+    private final Timer passwordMatch;
+
+    private final Timer authorityMapping;
+
+    private final Timer tokenSigning;
+
+    private final Counter success;
+
+    private final Counter badCredentials;
+
+    private final Counter notActivated;
+
+    public LoginMetrics(MeterRegistry meterRegistry) {
+        this.lookupByEmail = lookupTimer(meterRegistry, "email");
+        this.lookupByLogin = lookupTimer(meterRegistry, "login");
+        this.passwordMatch =
+            Timer
+                .builder("security.login.password.match")
+                .description("Time spent matching the presented password against the stored hash")
+                .register(meterRegistry);
+        this.authorityMapping =
+            Timer
+                .builder("security.login.authorities")
+                .description("Time spent mapping the authorities of the user being authenticated")
+                .register(meterRegistry);
+        this.tokenSigning =
+            Timer
+                .builder("security.login.token.signing")
+                .description("Time spent creating and signing access tokens")
+                .register(meterRegistry);
+        this.success = outcomeCounter(meterRegistry, "success");
+        this.badCredentials = outcomeCounter(meterRegistry, "bad_credentials");
+        this.notActivated = outcomeCounter(meterRegistry, "not_activated");
+    }
+
+    public Timer lookup(boolean byEmail) {
+        return byEmail ? lookupByEmail : lookupByLogin;
+    }
+
+    public Timer passwordMatch() {
+        return passwordMatch;
+    }
+
+    public Timer authorityMapping() {
+        return authorityMapping;
+    }
+
+    public Timer tokenSigning() {
+        return tokenSigning;
+    }
+
+    public void recordSuccess() {
+        success.increment();
+    }
+
+    public void recordBadCredentials() {
+        badCredentials.increment();
+    }
+
+    public void recordNotActivated() {
+        notActivated.increment();
+    }
+
+    private static Timer lookupTimer(MeterRegistry meterRegistry, String by) {
+        return Timer
+            .builder("security.login.lookup")
+            .description("Time spent loading the user being authenticated")
+            .tag("by", by)
+            .register(meterRegistry);
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter
+            .builder("security.login.attempts")
+            .description("Authentication attempts by outcome")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,22 @@
+package com.mbeliakov.snippeter.security;
+
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * This exception is thrown when too many authentications failed recently for a login or a client address.
+ */
+public class LoginThrottledException extends AuthenticationException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(long retryAfterSeconds) {
+        super("Too many failed authentication attempts, retry later");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,202 @@
+package com.mbeliakov.snippeter.security;
+
+import com.mbeliakov.snippeter.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs password hashing on a dedicated pool, sized to the number of processors, with a bounded queue.
+ * <p>
+ * Hashing is CPU-bound, so running it on more threads than processors only adds latency. Once the queue is
+ * full, new hashing requests are rejected right away with a {@link PasswordHashingRejectedException}, which
+ * bounds the number of request threads that a login storm can hold.
+ * <p>
+ * Bulk hashing, such as a user import, only gets a few slots of the pool at once, the rest of its operations
+ * running on the calling thread, so that it never fills the queue that the logins rely on.
+ */
+@Component
+public class PasswordHashingExecutor implements DisposableBean {
+
+    public static final String EXECUTOR_NAME = "password-hashing";
+
+    private final Logger log = LoggerFactory.getLogger(PasswordHashingExecutor.class);
+
+    private final ThreadPoolExecutor threadPoolExecutor;
+
+    private final ExecutorService executorService;
+
+    private final Semaphore batchPermits;
+
+    private final long retryAfterSeconds;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter rejectedCounter;
+
+    public PasswordHashingExecutor(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        ApplicationProperties.Security.PasswordHashing properties = applicationProperties.getSecurity().getPasswordHashing();
+        log.debug("Creating password hashing executor with {} threads", properties.getPoolSize());
+        this.threadPoolExecutor =
+            new ThreadPoolExecutor(
+                properties.getPoolSize(),
+                properties.getPoolSize(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+                new CustomizableThreadFactory("snippeter-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy()
+            );
+        this.executorService = ExecutorServiceMetrics.monitor(meterRegistry, threadPoolExecutor, EXECUTOR_NAME, Tags.empty());
+        this.batchPermits = new Semaphore(properties.getBatchConcurrency());
+        this.retryAfterSeconds = properties.getRetryAfterSeconds();
+        this.meterRegistry = meterRegistry;
+        this.rejectedCounter =
+            Counter
+                .builder("security.password.hashing.rejected")
+                .description("Password hashing requests rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run a hashing operation on the pool, and wait for its result.
+     *
+     * @param operation the name of the operation, used to tag the latency metric.
+     * @param task the hashing operation.
+     * @param <T> the type of the result.
+     * @return the result of the operation.
+     * @throws PasswordHashingRejectedException if the queue of the pool is full.
+     */
+    public <T> T execute(String operation, Supplier<T> task) {
+        Timer timer = timer(operation);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Future<T> future;
+        try {
+            future = executorService.submit(task::get);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new PasswordHashingRejectedException(retryAfterSeconds);
+        }
+        try {
+            return await(future);
+        } finally {
+            sample.stop(timer);
+        }
+    }
+
+    /**
+     * Run hashing operations in parallel on the pool, and wait for all their results.
+     * <p>
+     * At most {@code batch-concurrency} operations of all the callers are on the pool at once, queued or running,
+     * and the others run on the calling thread, as do those that the queue cannot take: a caller submitting more of
+     * them than the pool keeps up with is slowed down rather than failed, and the logins of
+     * {@link #execute(String, Supplier)} keep the rest of the pool and of its queue.
+     *
+     * @param operation the name of the operations, used to tag the latency metric.
+     * @param tasks the hashing operations.
+     * @param <T> the type of the results.
+     * @return the results of the operations, in their order.
+     */
+    public <T> List<T> executeAll(String operation, List<Supplier<T>> tasks) {
+        Timer timer = timer(operation);
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Supplier<T> task : tasks) {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                Callable<T> timedTask = () -> {
+                    try {
+                        return task.get();
+                    } finally {
+                        sample.stop(timer);
+                    }
+                };
+                Future<T> future = submitBatchTask(timedTask);
+                if (future == null) {
+                    FutureTask<T> callerRuns = new FutureTask<>(timedTask);
+                    callerRuns.run();
+                    future = callerRuns;
+                }
+                futures.add(future);
+            }
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(await(future));
+            }
+            return results;
+        } finally {
+            // left over only when a task failed or the caller was interrupted
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * @return the future of the task on the pool, or {@code null} if the batch permits are all taken or the queue is full.
+     */
+    private <T> Future<T> submitBatchTask(Callable<T> task) {
+        if (!batchPermits.tryAcquire()) {
+            return null;
+        }
+        // the permit is released once the task is done, or cancelled before it ran
+        FutureTask<T> future = new FutureTask<>(task) {
+            @Override
+            protected void done() {
+                batchPermits.release();
+            }
+        };
+        try {
+            executorService.execute(future);
+            return future;
+        } catch (RejectedExecutionException e) {
+            batchPermits.release();
+            return null;
+        }
+    }
+
+    private Timer timer(String operation) {
+        return Timer
+            .builder("security.password.hashing")
+            .description("Time spent hashing or verifying a password, queueing included")
+            .tag("operation", operation)
+            .register(meterRegistry);
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        threadPoolExecutor.shutdown();
+    }
+}
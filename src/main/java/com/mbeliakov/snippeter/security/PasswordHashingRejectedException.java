@@ -0,0 +1,20 @@
+package com.mbeliakov.snippeter.security;
+
+/**
+ * This exception is thrown when the password hashing pool is saturated, and the request should be retried later.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingRejectedException(long retryAfterSeconds) {
+        super("Too many concurrent password verifications, retry later");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
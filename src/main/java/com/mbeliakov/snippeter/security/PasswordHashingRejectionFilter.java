@@ -0,0 +1,38 @@
+package com.mbeliakov.snippeter.security;
+
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.GenericFilterBean;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+/**
+ * Filter answering the {@link PasswordHashingRejectedException} thrown by the authentications of the security filter
+ * chain, such as HTTP Basic, like the REST controllers do: with a {@code 503 (Service Unavailable)} problem and a
+ * {@code Retry-After} header, rather than a servlet error.
+ */
+public class PasswordHashingRejectionFilter extends GenericFilterBean {
+
+    private final HandlerExceptionResolver handlerExceptionResolver;
+
+    public PasswordHashingRejectionFilter(HandlerExceptionResolver handlerExceptionResolver) {
+        this.handlerExceptionResolver = handlerExceptionResolver;
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
+        throws IOException, ServletException {
+        try {
+            filterChain.doFilter(servletRequest, servletResponse);
+        } catch (PasswordHashingRejectedException e) {
+            if (servletResponse.isCommitted()) {
+                throw e;
+            }
+            handlerExceptionResolver.resolveException((HttpServletRequest) servletRequest, (HttpServletResponse) servletResponse, null, e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.mbeliakov.snippeter.security;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * {@link PasswordEncoder} that runs the hashing of its delegate on the {@link PasswordHashingExecutor}.
+ */
+public class PooledPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+
+    private final PasswordHashingExecutor passwordHashingExecutor;
+
+    public PooledPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor passwordHashingExecutor) {
+        this.delegate = delegate;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return passwordHashingExecutor.execute("encode", () -> delegate.encode(rawPassword));
+    }
+
+    /**
+     * Encode passwords in parallel, with {@link PasswordHashingExecutor#executeAll(String, List)}.
+     *
+     * @param rawPasswords the passwords to encode.
+     * @return the encoded passwords, in the same order.
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        List<Supplier<String>> tasks = new ArrayList<>(rawPasswords.size());
+        for (CharSequence rawPassword : rawPasswords) {
+            tasks.add(() -> delegate.encode(rawPassword));
+        }
+        return passwordHashingExecutor.executeAll("encode", tasks);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return passwordHashingExecutor.execute("matches", () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,59 @@
+package com.mbeliakov.snippeter.security;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * {@link AuthenticationProvider} that consults the {@link LoginAttemptThrottle} before delegating, so that throttled
+ * attempts never reach the {@link DomainUserDetailsService} nor the password encoder.
+ */
+public class ThrottlingAuthenticationProvider implements AuthenticationProvider {
+
+    private final AuthenticationProvider delegate;
+
+    private final LoginAttemptThrottle loginAttemptThrottle;
+
+    public ThrottlingAuthenticationProvider(AuthenticationProvider delegate, LoginAttemptThrottle loginAttemptThrottle) {
+        this.delegate = delegate;
+        this.loginAttemptThrottle = loginAttemptThrottle;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String login = authentication.getName();
+        String address = clientAddress(authentication);
+        loginAttemptThrottle.checkAllowed(login, address);
+        try {
+            Authentication result = delegate.authenticate(authentication);
+            if (result != null) {
+                loginAttemptThrottle.recordSuccess(login);
+            }
+            return result;
+        } catch (BadCredentialsException e) {
+            loginAttemptThrottle.recordFailure(login, address);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    private static String clientAddress(Authentication authentication) {
+        if (authentication.getDetails() instanceof WebAuthenticationDetails) {
+            return ((WebAuthenticationDetails) authentication.getDetails()).getRemoteAddress();
+        }
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes instanceof ServletRequestAttributes) {
+            return ((ServletRequestAttributes) requestAttributes).getRequest().getRemoteAddr();
+        }
+        return null;
+    }
+}
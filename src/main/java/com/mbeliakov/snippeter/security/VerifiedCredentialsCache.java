@@ -0,0 +1,156 @@
+package com.mbeliakov.snippeter.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mbeliakov.snippeter.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Short-lived cache of credentials that were verified recently, so that clients sending the same HTTP Basic
+ * credentials on every request do not pay for a user lookup and a BCrypt verification each time.
+ * <p>
+ * Entries are keyed by an HMAC-SHA256 of the username and password, under a random key generated at startup and never
+ * stored: neither the password nor an offline-crackable digest of it is kept in memory. Entries expire after the
+ * configured time to live, and are invalidated by {@link #invalidate(String)} when the user changes.
+ */
+@Component
+public class VerifiedCredentialsCache {
+
+    public static final String CACHE_NAME = "verified-credentials";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+
+    private final ThreadLocal<Mac> mac;
+
+    private final Cache<ByteBuffer, UserDetails> cache;
+
+    /**
+     * Incremented on every invalidation, so that a verification that started before an invalidation is not cached.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    public VerifiedCredentialsCache(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        ApplicationProperties.Security.CredentialsCache properties = applicationProperties.getSecurity().getCredentialsCache();
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        this.mac = ThreadLocal.withInitial(this::newMac);
+        if (properties.isEnabled()) {
+            this.cache =
+                Caffeine
+                    .newBuilder()
+                    .maximumSize(properties.getMaxEntries())
+                    .expireAfterWrite(properties.getTimeToLiveSeconds(), TimeUnit.SECONDS)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        } else {
+            this.cache = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * @return the current generation, to be passed back to {@link #put(String, String, UserDetails, long)}.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Get the user whose credentials were verified recently.
+     *
+     * @param username the presented username.
+     * @param password the presented password.
+     * @return the user, or an empty {@link Optional} if these credentials were not verified recently.
+     */
+    public Optional<UserDetails> get(String username, String password) {
+        if (cache == null || username == null || password == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.getIfPresent(digest(username, password)));
+    }
+
+    /**
+     * Remember credentials that were just verified, unless an invalidation happened in the meantime.
+     *
+     * @param username the presented username.
+     * @param password the presented password.
+     * @param userDetails the user they resolved to.
+     * @param generation the {@link #generation()} read before the credentials were verified.
+     */
+    public void put(String username, String password, UserDetails userDetails, long generation) {
+        if (cache == null || username == null || password == null) {
+            return;
+        }
+        ByteBuffer digest = digest(username, password);
+        cache.put(digest, userDetails);
+        if (this.generation.get() != generation) {
+            cache.invalidate(digest);
+        }
+    }
+
+    /**
+     * Drop the cached credentials of a user, now and again once the current transaction commits, so that a
+     * verification running concurrently against the previous state of the user is not kept either.
+     *
+     * @param login the login of the user.
+     */
+    public void invalidate(String login) {
+        if (cache == null) {
+            return;
+        }
+        evict(login);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        evict(login);
+                    }
+                }
+            );
+        }
+    }
+
+    private void evict(String login) {
+        generation.incrementAndGet();
+        cache.asMap().values().removeIf(userDetails -> userDetails.getUsername().equalsIgnoreCase(login));
+    }
+
+    private ByteBuffer digest(String username, String password) {
+        Mac hmac = mac.get();
+        hmac.update(username.getBytes(StandardCharsets.UTF_8));
+        hmac.update((byte) 0);
+        return ByteBuffer.wrap(hmac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac hmac = Mac.getInstance(HMAC_ALGORITHM);
+            hmac.init(key);
+            return hmac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " is not available", e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.mbeliakov.snippeter.security.apikey;
+
+import org.springframework.security.config.annotation.SecurityConfigurerAdapter;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.web.DefaultSecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+public class ApiKeyConfigurer extends SecurityConfigurerAdapter<DefaultSecurityFilterChain, HttpSecurity> {
+
+    private final ApiKeyResolver apiKeyResolver;
+
+    public ApiKeyConfigurer(ApiKeyResolver apiKeyResolver) {
+        this.apiKeyResolver = apiKeyResolver;
+    }
+
+    @Override
+    public void configure(HttpSecurity http) {
+        ApiKeyFilter customFilter = new ApiKeyFilter(apiKeyResolver);
+        http.addFilterBefore(customFilter, UsernamePasswordAuthenticationFilter.class);
+    }
+}
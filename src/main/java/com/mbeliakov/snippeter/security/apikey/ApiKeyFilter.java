@@ -0,0 +1,36 @@
+package com.mbeliakov.snippeter.security.apikey;
+
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.GenericFilterBean;
+
+/**
+ * Filters incoming requests and installs a Spring Security principal if an {@value #API_KEY_HEADER} header
+ * corresponding to a valid API key is found.
+ */
+public class ApiKeyFilter extends GenericFilterBean {
+
+    public static final String API_KEY_HEADER = "X-API-Key";
+
+    private final ApiKeyResolver apiKeyResolver;
+
+    public ApiKeyFilter(ApiKeyResolver apiKeyResolver) {
+        this.apiKeyResolver = apiKeyResolver;
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
+        throws IOException, ServletException {
+        String apiKey = ((HttpServletRequest) servletRequest).getHeader(API_KEY_HEADER);
+        if (StringUtils.hasText(apiKey)) {
+            this.apiKeyResolver.getAuthentication(apiKey.trim()).ifPresent(SecurityContextHolder.getContext()::setAuthentication);
+        }
+        filterChain.doFilter(servletRequest, servletResponse);
+    }
+}
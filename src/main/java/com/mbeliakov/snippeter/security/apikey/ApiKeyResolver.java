@@ -0,0 +1,263 @@
+package com.mbeliakov.snippeter.security.apikey;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.mbeliakov.snippeter.aop.batch.BatchWork;
+import com.mbeliakov.snippeter.config.ApplicationProperties;
+import com.mbeliakov.snippeter.domain.ApiKey;
+import com.mbeliakov.snippeter.domain.Authority;
+import com.mbeliakov.snippeter.domain.User;
+import com.mbeliakov.snippeter.repository.ApiKeyRepository;
+import com.mbeliakov.snippeter.security.InternedAuthorities;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.crypto.codec.Hex;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Resolves the {@link Authentication} of an API key.
+ * <p>
+ * Keys are looked up by their SHA-256 digest, with a single query on a unique index that also fetches the user and
+ * its authorities, and the result is cached for a short time. Unknown keys are cached too, for a shorter time, so that
+ * a client retrying with a wrong key does not query the database on every request. Last-used dates are not written on every request: they
+ * are collected in memory, truncated to the minute, and flushed periodically with one update per distinct date.
+ */
+@Component
+public class ApiKeyResolver {
+
+    public static final String CACHE_NAME = "api-key-authentication";
+
+    private static final int FLUSH_BATCH_SIZE = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(ApiKeyResolver.class);
+
+    private final ApiKeyRepository apiKeyRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Cache<String, ResolvedApiKey> cache;
+
+    private final ConcurrentMap<Long, Instant> pendingLastUsedDates = new ConcurrentHashMap<>();
+
+    public ApiKeyResolver(
+        ApiKeyRepository apiKeyRepository,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.apiKeyRepository = apiKeyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        ApplicationProperties.Security.ApiKey properties = applicationProperties.getSecurity().getApiKey();
+        this.cache =
+            Caffeine
+                .newBuilder()
+                .maximumSize(properties.getCacheMaxEntries())
+                .expireAfter(
+                    new ResolvedApiKeyExpiry(
+                        TimeUnit.SECONDS.toNanos(properties.getCacheTimeToLiveSeconds()),
+                        TimeUnit.SECONDS.toNanos(properties.getUnknownKeyCacheTimeToLiveSeconds())
+                    )
+                )
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Get the authentication of an API key, and record that the key was used.
+     *
+     * @param key the raw API key.
+     * @return the authentication of the owner of the key, or an empty {@link Optional} if the key is unknown or its
+     * owner is not activated.
+     */
+    public Optional<Authentication> getAuthentication(String key) {
+        ResolvedApiKey resolved = cache.get(hash(key), this::load);
+        if (resolved == ResolvedApiKey.UNKNOWN) {
+            return Optional.empty();
+        }
+        pendingLastUsedDates.merge(
+            resolved.id,
+            Instant.now().truncatedTo(ChronoUnit.MINUTES),
+            (first, second) -> first.isAfter(second) ? first : second
+        );
+        return Optional.of(resolved.authentication);
+    }
+
+    /**
+     * Drop the cached API keys of a user, now and again once the current transaction completes.
+     *
+     * @param login the login of the user.
+     */
+    public void evictUser(String login) {
+        evict(entry -> login.equals(entry.getValue().login));
+    }
+
+    /**
+     * Drop a cached API key, or the cached fact that it is unknown, now and again once the current transaction completes.
+     *
+     * @param keyHash the digest of the key.
+     */
+    public void evictKey(String keyHash) {
+        evict(entry -> keyHash.equals(entry.getKey()));
+    }
+
+    /**
+     * Write the last-used dates collected since the previous flush.
+     */
+    @BatchWork
+    @Scheduled(fixedDelayString = "${application.security.api-key.last-used-flush-interval-millis:60000}")
+    @PreDestroy
+    public void flushLastUsedDates() {
+        if (pendingLastUsedDates.isEmpty()) {
+            return;
+        }
+        Map<Instant, List<Long>> idsByDate = new TreeMap<>();
+        for (Long id : pendingLastUsedDates.keySet()) {
+            Instant date = pendingLastUsedDates.remove(id);
+            if (date != null) {
+                idsByDate.computeIfAbsent(date, ignored -> new ArrayList<>()).add(id);
+            }
+        }
+        int updated = transactionTemplate.execute(
+            status -> {
+                int count = 0;
+                for (Map.Entry<Instant, List<Long>> entry : idsByDate.entrySet()) {
+                    List<Long> ids = entry.getValue();
+                    for (int from = 0; from < ids.size(); from += FLUSH_BATCH_SIZE) {
+                        List<Long> batch = ids.subList(from, Math.min(from + FLUSH_BATCH_SIZE, ids.size()));
+                        count += apiKeyRepository.updateLastUsedDate(batch, entry.getKey());
+                    }
+                }
+                return count;
+            }
+        );
+        log.debug("Updated the last-used date of {} API keys", updated);
+    }
+
+    /**
+     * @param key the raw API key.
+     * @return the hex-encoded SHA-256 digest under which the key is stored.
+     */
+    public static String hash(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return new String(Hex.encode(digest.digest(key.getBytes(StandardCharsets.US_ASCII))));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private ResolvedApiKey load(String keyHash) {
+        return apiKeyRepository
+            .findOneWithUserByKeyHash(keyHash)
+            .filter(apiKey -> apiKey.getUser().isActivated())
+            .map(ResolvedApiKey::new)
+            .orElse(ResolvedApiKey.UNKNOWN);
+    }
+
+    private void evict(Predicate<Map.Entry<String, ResolvedApiKey>> predicate) {
+        cache.asMap().entrySet().removeIf(predicate);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        cache.asMap().entrySet().removeIf(predicate);
+                    }
+                }
+            );
+        }
+    }
+
+    private static final class ResolvedApiKey {
+
+        /**
+         * Cached in place of the keys that are unknown or whose owner is not activated.
+         */
+        private static final ResolvedApiKey UNKNOWN = new ResolvedApiKey();
+
+        private final Long id;
+
+        private final String login;
+
+        private final Authentication authentication;
+
+        private ResolvedApiKey() {
+            this.id = null;
+            this.login = null;
+            this.authentication = null;
+        }
+
+        private ResolvedApiKey(ApiKey apiKey) {
+            User user = apiKey.getUser();
+            List<GrantedAuthority> authorities = user
+                .getAuthorities()
+                .stream()
+                .map(Authority::getName)
+                .map(InternedAuthorities::of)
+                .collect(Collectors.toList());
+            this.id = apiKey.getId();
+            this.login = user.getLogin();
+            this.authentication =
+                new UsernamePasswordAuthenticationToken(
+                    new org.springframework.security.core.userdetails.User(user.getLogin(), "", authorities),
+                    null,
+                    authorities
+                );
+        }
+    }
+
+    private static final class ResolvedApiKeyExpiry implements Expiry<String, ResolvedApiKey> {
+
+        private final long timeToLiveNanos;
+
+        private final long unknownKeyTimeToLiveNanos;
+
+        private ResolvedApiKeyExpiry(long timeToLiveNanos, long unknownKeyTimeToLiveNanos) {
+            this.timeToLiveNanos = timeToLiveNanos;
+            this.unknownKeyTimeToLiveNanos = unknownKeyTimeToLiveNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, ResolvedApiKey value, long currentTime) {
+            return value == ResolvedApiKey.UNKNOWN ? unknownKeyTimeToLiveNanos : timeToLiveNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, ResolvedApiKey value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, ResolvedApiKey value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.mbeliakov.snippeter.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.mbeliakov.snippeter.config.ApplicationProperties;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the {@link Authentication} of a JWT, verifying each distinct token only once.
+ * <p>
+ * Verified tokens are kept in a bounded cache keyed by a SHA-256 digest of the token, so that repeated
+ * requests with the same bearer token skip the Base64 decoding and HMAC check. An entry never outlives
+ * the expiry of its token, nor the configured time to live. Invalid tokens are never cached.
+ * <p>
+ * Cached or not, every token is checked against the {@link TokenDenylist}.
+ */
+@Component
+public class TokenAuthenticationCache {
+
+    public static final String CACHE_NAME = "jwt-authentication";
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(TokenAuthenticationCache::newSha256Digest);
+
+    private final TokenProvider tokenProvider;
+
+    private final TokenDenylist tokenDenylist;
+
+    private final Cache<ByteBuffer, CachedAuthentication> cache;
+
+    public TokenAuthenticationCache(
+        TokenProvider tokenProvider,
+        TokenDenylist tokenDenylist,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.tokenProvider = tokenProvider;
+        this.tokenDenylist = tokenDenylist;
+        ApplicationProperties.Security.TokenCache properties = applicationProperties.getSecurity().getTokenCache();
+        if (properties.isEnabled()) {
+            this.cache =
+                Caffeine
+                    .newBuilder()
+                    .maximumSize(properties.getMaxEntries())
+                    .expireAfter(new TokenExpiry(TimeUnit.SECONDS.toNanos(properties.getTimeToLiveSeconds())))
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        } else {
+            this.cache = null;
+        }
+    }
+
+    /**
+     * Get the authentication of a token, verifying it only if it is not already cached.
+     *
+     * @param token the raw token.
+     * @return the authentication, or an empty {@link Optional} if the token is invalid or revoked.
+     */
+    public Optional<Authentication> getAuthentication(String token) {
+        if (cache == null) {
+            return tokenProvider
+                .parseClaims(token)
+                .filter(claims -> !tokenDenylist.isRevoked(claims.getId(), claims.getSubject(), TokenProvider.getIssuedAt(claims)))
+                .map(claims -> tokenProvider.getAuthentication(claims, token));
+        }
+        ByteBuffer key = digest(token);
+        CachedAuthentication cached = cache.getIfPresent(key);
+        if (cached == null) {
+            Optional<Claims> claims = tokenProvider.parseClaims(token);
+            if (claims.isEmpty()) {
+                return Optional.empty();
+            }
+            cached = new CachedAuthentication(tokenProvider.getAuthentication(claims.get(), token), claims.get());
+            cache.put(key, cached);
+        }
+        if (tokenDenylist.isRevoked(cached.jti, cached.authentication.getName(), cached.issuedAt)) {
+            return Optional.empty();
+        }
+        return Optional.of(cached.authentication);
+    }
+
+    /**
+     * Drop every cached authentication.
+     */
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    private static ByteBuffer digest(String token) {
+        MessageDigest digest = SHA_256.get();
+        return ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static MessageDigest newSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class CachedAuthentication {
+
+        private final Authentication authentication;
+
+        private final String jti;
+
+        private final Date issuedAt;
+
+        private final long expiresAtMillis;
+
+        private CachedAuthentication(Authentication authentication, Claims claims) {
+            this.authentication = authentication;
+            this.jti = claims.getId();
+            this.issuedAt = TokenProvider.getIssuedAt(claims);
+            this.expiresAtMillis = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+        }
+    }
+
+    private static final class TokenExpiry implements Expiry<ByteBuffer, CachedAuthentication> {
+
+        private final long timeToLiveNanos;
+
+        private TokenExpiry(long timeToLiveNanos) {
+            this.timeToLiveNanos = timeToLiveNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, CachedAuthentication value, long currentTime) {
+            long remainingMillis = value.expiresAtMillis - System.currentTimeMillis();
+            if (remainingMillis <= 0) {
+                return 0;
+            }
+            return Math.min(timeToLiveNanos, TimeUnit.MILLISECONDS.toNanos(remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, CachedAuthentication value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, CachedAuthentication value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
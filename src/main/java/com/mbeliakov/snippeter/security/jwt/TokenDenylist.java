@@ -0,0 +1,229 @@
+package com.mbeliakov.snippeter.security.jwt;
+
+import com.mbeliakov.snippeter.aop.batch.BatchWork;
+import com.mbeliakov.snippeter.config.ApplicationProperties;
+import com.mbeliakov.snippeter.domain.RevokedToken;
+import com.mbeliakov.snippeter.purge.PurgeRunner;
+import com.mbeliakov.snippeter.repository.RevokedTokenRepository;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Denylist of revoked JWTs.
+ * <p>
+ * Entries are persisted, and mirrored in memory so that checking a token that was not revoked, the common case, never
+ * goes to the database: token ids are kept in a {@link BloomFilter}, whose rare false positives are confirmed against
+ * the database, and the per-user revocation dates are kept in a map. The in-memory copy is rebuilt on a fixed delay,
+ * which also picks up the revocations made by other instances.
+ * <p>
+ * The revocations of every token of a user are compared to the issue date of the tokens at a millisecond resolution,
+ * see {@link TokenProvider#getIssuedAt(io.jsonwebtoken.Claims)}, so that the tokens issued to the user right after the
+ * revocation, such as on the next login, are not revoked along.
+ */
+@Component
+public class TokenDenylist {
+
+    private final Logger log = LoggerFactory.getLogger(TokenDenylist.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final PurgeRunner purgeRunner;
+
+    private final ApplicationProperties.Security.TokenRevocation properties;
+
+    private final long maxTokenValidityInSeconds;
+
+    /**
+     * Revocations made by this instance, applied again after a rebuild in case they were committed after its query.
+     */
+    private final Queue<RevokedToken> recentRevocations = new ConcurrentLinkedQueue<>();
+
+    /**
+     * In-memory copy of the denylist, {@code null} until it is first loaded.
+     */
+    private volatile Snapshot snapshot;
+
+    public TokenDenylist(
+        RevokedTokenRepository revokedTokenRepository,
+        PurgeRunner purgeRunner,
+        ApplicationProperties applicationProperties,
+        JHipsterProperties jHipsterProperties
+    ) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.purgeRunner = purgeRunner;
+        this.properties = applicationProperties.getSecurity().getTokenRevocation();
+        JHipsterProperties.Security.Authentication.Jwt jwt = jHipsterProperties.getSecurity().getAuthentication().getJwt();
+        this.maxTokenValidityInSeconds =
+            Math.max(
+                Math.max(jwt.getTokenValidityInSeconds(), jwt.getTokenValidityInSecondsForRememberMe()),
+                applicationProperties.getSecurity().getRefreshToken().getAccessTokenValidityInSeconds()
+            );
+    }
+
+    /**
+     * Check whether a token was revoked, either on its own or along with every token of its user.
+     *
+     * @param jti the id of the token.
+     * @param login the subject of the token.
+     * @param issuedAt the issue date of the token, tokens without one being revoked with the other tokens of their user.
+     * @return {@code true} if the token is revoked.
+     */
+    public boolean isRevoked(String jti, String login, Date issuedAt) {
+        Instant issued = issuedAt != null ? issuedAt.toInstant() : Instant.EPOCH;
+        Snapshot current = snapshot;
+        if (current == null) {
+            return (
+                (jti != null && revokedTokenRepository.existsByJti(jti)) ||
+                (login != null && revokedTokenRepository.existsByLoginAndRevokedDateGreaterThanEqual(login, issued))
+            );
+        }
+        if (jti != null && current.jtis.mightContain(jti) && revokedTokenRepository.existsByJti(jti)) {
+            return true;
+        }
+        Instant revokedDate = login != null ? current.loginRevocations.get(login) : null;
+        return revokedDate != null && !revokedDate.isBefore(issued);
+    }
+
+    /**
+     * Revoke a single token.
+     *
+     * @param jti the id of the token.
+     * @param expiration the expiry date of the token, after which the entry is no longer needed.
+     */
+    public void revoke(String jti, Date expiration) {
+        RevokedToken revokedToken = new RevokedToken();
+        revokedToken.setJti(jti);
+        revokedToken.setRevokedDate(Instant.now());
+        revokedToken.setExpiryDate(expiration.toInstant());
+        save(revokedToken);
+        log.debug("Revoked token {}", jti);
+    }
+
+    /**
+     * Revoke every token issued to a user so far.
+     *
+     * @param login the login of the user.
+     */
+    public void revokeAll(String login) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        RevokedToken revokedToken = new RevokedToken();
+        revokedToken.setLogin(login);
+        revokedToken.setRevokedDate(now);
+        revokedToken.setExpiryDate(now.plusSeconds(maxTokenValidityInSeconds));
+        save(revokedToken);
+        log.debug("Revoked all tokens of user {}", login);
+    }
+
+    /**
+     * Persist an entry, and mirror it in memory once it is committed, so that a rolled back revocation is not applied.
+     */
+    private void save(RevokedToken revokedToken) {
+        revokedTokenRepository.save(revokedToken);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        apply(revokedToken);
+                    }
+                }
+            );
+        } else {
+            apply(revokedToken);
+        }
+    }
+
+    private void apply(RevokedToken revokedToken) {
+        recentRevocations.add(revokedToken);
+        Snapshot current = snapshot;
+        if (current != null) {
+            current.add(revokedToken);
+        }
+    }
+
+    /**
+     * Rebuild the in-memory copy of the denylist from the database.
+     * <p>
+     * The first run happens at startup; a failure, such as the schema not being migrated yet, leaves the previous copy
+     * in place, or every check going to the database until a rebuild succeeds.
+     */
+    @BatchWork
+    @Scheduled(fixedDelayString = "${application.security.token-revocation.rebuild-interval-millis:60000}")
+    public void rebuild() {
+        Instant started = Instant.now();
+        List<RevokedToken> revokedTokens;
+        try {
+            revokedTokens = revokedTokenRepository.findAllByExpiryDateAfter(started);
+        } catch (DataAccessException e) {
+            log.warn("Could not load the token denylist: {}", e.getMessage());
+            return;
+        }
+        Snapshot rebuilt = new Snapshot(
+            new BloomFilter(Math.max(properties.getExpectedEntries(), 2L * revokedTokens.size()), properties.getFalsePositiveProbability())
+        );
+        revokedTokens.forEach(rebuilt::add);
+        snapshot = rebuilt;
+        Instant oldest = started.minusMillis(properties.getRebuildIntervalMillis());
+        recentRevocations.removeIf(revokedToken -> revokedToken.getRevokedDate().isBefore(oldest));
+        recentRevocations.forEach(rebuilt::add);
+        log.debug("Loaded {} revoked token entries", revokedTokens.size());
+    }
+
+    /**
+     * Expired denylist entries should be deleted.
+     * <p>
+     * This is scheduled to get fired every hour, and deletes the entries in batches, each in its own transaction.
+     */
+    @Scheduled(cron = "0 40 * * * ?")
+    public void removeExpiredEntries() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        long deleted = purgeRunner.purge(
+            "expired-revoked-tokens",
+            properties.getCleanupBatchSize(),
+            limit -> {
+                List<Long> ids = revokedTokenRepository.findIdsByExpiryDateBefore(now, PageRequest.of(0, limit));
+                return ids.isEmpty() ? 0 : revokedTokenRepository.deleteByIdIn(ids);
+            }
+        );
+        log.debug("Deleted {} expired revoked token entries", deleted);
+    }
+
+    private static final class Snapshot {
+
+        private final BloomFilter jtis;
+
+        private final ConcurrentMap<String, Instant> loginRevocations = new ConcurrentHashMap<>();
+
+        private Snapshot(BloomFilter jtis) {
+            this.jtis = jtis;
+        }
+
+        private void add(RevokedToken revokedToken) {
+            if (revokedToken.getJti() != null) {
+                jtis.put(revokedToken.getJti());
+            }
+            if (revokedToken.getLogin() != null) {
+                loginRevocations.merge(
+                    revokedToken.getLogin(),
+                    revokedToken.getRevokedDate(),
+                    (first, second) -> first.isAfter(second) ? first : second
+                );
+            }
+        }
+    }
+}
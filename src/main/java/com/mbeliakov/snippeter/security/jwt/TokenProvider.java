@@ -1,5 +1,6 @@
 package com.mbeliakov.snippeter.security.jwt;
 
+import com.mbeliakov.snippeter.security.InternedAuthorities;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
@@ -12,7 +13,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ObjectUtils;
@@ -25,6 +25,8 @@ public class TokenProvider {
 
     private static final String AUTHORITIES_KEY = "auth";
 
+    private static final String ISSUED_AT_MILLIS_KEY = "iat_ms";
+
     private final Key key;
 
     private final JwtParser jwtParser;
@@ -54,19 +56,28 @@ public class TokenProvider {
     }
 
     public String createToken(Authentication authentication, boolean rememberMe) {
+        return createToken(authentication, rememberMe ? this.tokenValidityInMillisecondsForRememberMe : this.tokenValidityInMilliseconds);
+    }
+
+    /**
+     * Create a token with an explicit validity, such as the short-lived access tokens issued along with a refresh token.
+     *
+     * @param authentication the authentication of the user.
+     * @param validityInMilliseconds the validity of the token.
+     * @return the signed token.
+     */
+    public String createToken(Authentication authentication, long validityInMilliseconds) {
         String authorities = authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.joining(","));
 
         long now = (new Date()).getTime();
-        Date validity;
-        if (rememberMe) {
-            validity = new Date(now + this.tokenValidityInMillisecondsForRememberMe);
-        } else {
-            validity = new Date(now + this.tokenValidityInMilliseconds);
-        }
+        Date validity = new Date(now + validityInMilliseconds);
 
         return Jwts
             .builder()
+            .setId(UUID.randomUUID().toString())
             .setSubject(authentication.getName())
+            .setIssuedAt(new Date(now))
+            .claim(ISSUED_AT_MILLIS_KEY, now)
             .claim(AUTHORITIES_KEY, authorities)
             .signWith(key, SignatureAlgorithm.HS512)
             .setExpiration(validity)
@@ -74,27 +85,52 @@ public class TokenProvider {
     }
 
     public Authentication getAuthentication(String token) {
-        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        return getAuthentication(jwtParser.parseClaimsJws(token).getBody(), token);
+    }
 
-        Collection<? extends GrantedAuthority> authorities = Arrays
-            .stream(claims.get(AUTHORITIES_KEY).toString().split(","))
-            .filter(auth -> !auth.trim().isEmpty())
-            .map(SimpleGrantedAuthority::new)
-            .collect(Collectors.toList());
+    /**
+     * Build the {@link Authentication} from claims that were already verified by {@link #parseClaims(String)}.
+     *
+     * @param claims the verified claims of the token.
+     * @param token the raw token, kept as the credentials of the authentication.
+     * @return the authentication.
+     */
+    public Authentication getAuthentication(Claims claims, String token) {
+        Collection<GrantedAuthority> authorities = InternedAuthorities.fromClaim(claims.get(AUTHORITIES_KEY).toString());
 
         User principal = new User(claims.getSubject(), "", authorities);
 
         return new UsernamePasswordAuthenticationToken(principal, token, authorities);
     }
 
+    /**
+     * Get the issue date of a token with a millisecond resolution, which the standard {@code iat} claim lacks.
+     *
+     * @param claims the verified claims of the token.
+     * @return the issue date, falling back to the {@code iat} claim for the tokens issued without the millisecond one.
+     */
+    public static Date getIssuedAt(Claims claims) {
+        Number issuedAtMillis = claims.get(ISSUED_AT_MILLIS_KEY, Number.class);
+        return issuedAtMillis != null ? new Date(issuedAtMillis.longValue()) : claims.getIssuedAt();
+    }
+
     public boolean validateToken(String authToken) {
+        return parseClaims(authToken).isPresent();
+    }
+
+    /**
+     * Verify the signature and expiry of the token, and decode its claims in a single pass.
+     *
+     * @param authToken the token to verify.
+     * @return the claims of the token, or an empty {@link Optional} if the token is invalid.
+     */
+    public Optional<Claims> parseClaims(String authToken) {
         try {
-            jwtParser.parseClaimsJws(authToken);
-            return true;
+            return Optional.of(jwtParser.parseClaimsJws(authToken).getBody());
         } catch (JwtException | IllegalArgumentException e) {
             log.info("Invalid JWT token.");
             log.trace("Invalid JWT token trace.", e);
         }
-        return false;
+        return Optional.empty();
     }
 }
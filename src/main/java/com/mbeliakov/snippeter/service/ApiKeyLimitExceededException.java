@@ -0,0 +1,10 @@
+package com.mbeliakov.snippeter.service;
+
+public class ApiKeyLimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ApiKeyLimitExceededException() {
+        super("Too many API keys");
+    }
+}
@@ -0,0 +1,137 @@
+package com.mbeliakov.snippeter.service;
+
+import com.mbeliakov.snippeter.config.ApplicationProperties;
+import com.mbeliakov.snippeter.domain.ApiKey;
+import com.mbeliakov.snippeter.domain.User;
+import com.mbeliakov.snippeter.repository.ApiKeyRepository;
+import com.mbeliakov.snippeter.repository.UserRepository;
+import com.mbeliakov.snippeter.security.SecurityUtils;
+import com.mbeliakov.snippeter.security.apikey.ApiKeyResolver;
+import com.mbeliakov.snippeter.service.dto.ApiKeyDTO;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service class for managing the API keys of the current user.
+ * <p>
+ * Only the SHA-256 digest of a key is persisted; the key itself is returned once, when it is created.
+ */
+@Service
+@Transactional
+public class ApiKeyService {
+
+    private final Logger log = LoggerFactory.getLogger(ApiKeyService.class);
+
+    private static final int KEY_BYTE_LENGTH = 32;
+
+    private static final int PREFIX_LENGTH = 8;
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private final ApiKeyRepository apiKeyRepository;
+
+    private final UserRepository userRepository;
+
+    private final ApiKeyResolver apiKeyResolver;
+
+    private final ApplicationProperties.Security.ApiKey properties;
+
+    public ApiKeyService(
+        ApiKeyRepository apiKeyRepository,
+        UserRepository userRepository,
+        ApiKeyResolver apiKeyResolver,
+        ApplicationProperties applicationProperties
+    ) {
+        this.apiKeyRepository = apiKeyRepository;
+        this.userRepository = userRepository;
+        this.apiKeyResolver = apiKeyResolver;
+        this.properties = applicationProperties.getSecurity().getApiKey();
+    }
+
+    /**
+     * Create an API key for the current user.
+     *
+     * @param name the name of the key.
+     * @return the created key, including its raw value, or an empty {@link Optional} if the current user is not found.
+     * @throws ApiKeyLimitExceededException if the current user already has the maximum number of keys.
+     */
+    public Optional<ApiKeyDTO> createApiKey(String name) {
+        return SecurityUtils
+            .getCurrentUserLogin()
+            .flatMap(userRepository::findOneByLogin)
+            .map(
+                user -> {
+                    if (apiKeyRepository.countByUserLogin(user.getLogin()) >= properties.getMaxKeysPerUser()) {
+                        throw new ApiKeyLimitExceededException();
+                    }
+                    return createApiKey(user, name);
+                }
+            );
+    }
+
+    private ApiKeyDTO createApiKey(User user, String name) {
+        String key = generateKey();
+        ApiKey apiKey = new ApiKey();
+        apiKey.setKeyHash(ApiKeyResolver.hash(key));
+        apiKey.setPrefix(key.substring(0, PREFIX_LENGTH));
+        apiKey.setName(name);
+        apiKey.setUser(user);
+        apiKey.setCreatedDate(Instant.now());
+        apiKeyRepository.save(apiKey);
+        apiKeyResolver.evictKey(apiKey.getKeyHash());
+        log.debug("Created API key {} for user {}", apiKey.getPrefix(), user.getLogin());
+        ApiKeyDTO apiKeyDTO = new ApiKeyDTO(apiKey);
+        apiKeyDTO.setKey(key);
+        return apiKeyDTO;
+    }
+
+    /**
+     * @return the API keys of the current user, without their raw values.
+     */
+    @Transactional(readOnly = true)
+    public List<ApiKeyDTO> getApiKeys() {
+        return SecurityUtils
+            .getCurrentUserLogin()
+            .map(apiKeyRepository::findAllByUserLoginOrderByCreatedDate)
+            .orElse(Collections.emptyList())
+            .stream()
+            .map(ApiKeyDTO::new)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Delete an API key of the current user.
+     *
+     * @param id the id of the key.
+     * @return whether the key existed and belonged to the current user.
+     */
+    public boolean deleteApiKey(Long id) {
+        return SecurityUtils
+            .getCurrentUserLogin()
+            .flatMap(login -> apiKeyRepository.findOneByIdAndUserLogin(id, login))
+            .map(
+                apiKey -> {
+                    apiKeyRepository.delete(apiKey);
+                    apiKeyResolver.evictKey(apiKey.getKeyHash());
+                    log.debug("Deleted API key {}", apiKey.getPrefix());
+                    return true;
+                }
+            )
+            .orElse(false);
+    }
+
+    private static String generateKey() {
+        byte[] bytes = new byte[KEY_BYTE_LENGTH];
+        SECURE_RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
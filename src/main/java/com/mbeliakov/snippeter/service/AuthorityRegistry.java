@@ -0,0 +1,81 @@
+package com.mbeliakov.snippeter.service;
+
+import com.mbeliakov.snippeter.domain.Authority;
+import com.mbeliakov.snippeter.repository.AuthorityRepository;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory registry of the existing {@link Authority} names.
+ * <p>
+ * The authority table is a handful of rows that only change with a Liquibase changelog, so their names are loaded
+ * once, when the application is ready, and {@link Authority} entities are handed out as references that are never
+ * read from the database. Whatever changes the authority table must call {@link #refresh()}, as done once the
+ * Liquibase migrations ran.
+ */
+@Service
+public class AuthorityRegistry {
+
+    private final Logger log = LoggerFactory.getLogger(AuthorityRegistry.class);
+
+    private final AuthorityRepository authorityRepository;
+
+    private volatile List<String> names = Collections.emptyList();
+
+    public AuthorityRegistry(AuthorityRepository authorityRepository) {
+        this.authorityRepository = authorityRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            refresh();
+        } catch (DataAccessException e) {
+            // Liquibase may still be running asynchronously: the names are then loaded on first use
+            log.debug("Could not load the authorities yet", e);
+        }
+    }
+
+    /**
+     * Reload the authority names from the database.
+     */
+    public void refresh() {
+        List<String> loaded = authorityRepository.findAll().stream().map(Authority::getName).sorted().collect(Collectors.toList());
+        names = Collections.unmodifiableList(loaded);
+        log.debug("Loaded authorities: {}", names);
+    }
+
+    /**
+     * @return the names of all the authorities, sorted.
+     */
+    public List<String> getNames() {
+        List<String> current = names;
+        if (current.isEmpty()) {
+            refresh();
+            current = names;
+        }
+        return current;
+    }
+
+    /**
+     * Get references to the existing authorities among the given names. Unknown names are ignored.
+     * <p>
+     * The references are proxies bound to the current persistence context: they must be used within a transaction.
+     *
+     * @param authorityNames the names of the authorities.
+     * @return references to the existing authorities.
+     */
+    public Set<Authority> getReferences(Collection<String> authorityNames) {
+        List<String> known = getNames();
+        return authorityNames.stream().filter(known::contains).map(authorityRepository::getOne).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,178 @@
+package com.mbeliakov.snippeter.service;
+
+import com.mbeliakov.snippeter.aop.routing.PrimaryRead;
+import com.mbeliakov.snippeter.config.ApplicationProperties;
+import com.mbeliakov.snippeter.domain.Authority;
+import com.mbeliakov.snippeter.domain.RefreshToken;
+import com.mbeliakov.snippeter.domain.User;
+import com.mbeliakov.snippeter.purge.PurgeRunner;
+import com.mbeliakov.snippeter.repository.RefreshTokenRepository;
+import com.mbeliakov.snippeter.repository.UserRepository;
+import com.mbeliakov.snippeter.security.InternedAuthorities;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.codec.Hex;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service class for managing refresh tokens.
+ * <p>
+ * Only the SHA-256 digest of a refresh token is persisted, so renewing an access token costs a single
+ * indexed lookup instead of a password verification.
+ */
+@Service
+public class RefreshTokenService {
+
+    private final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TOKEN_BYTE_LENGTH = 32;
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    private final UserRepository userRepository;
+
+    private final PurgeRunner purgeRunner;
+
+    private final ApplicationProperties.Security.RefreshToken properties;
+
+    public RefreshTokenService(
+        RefreshTokenRepository refreshTokenRepository,
+        UserRepository userRepository,
+        PurgeRunner purgeRunner,
+        ApplicationProperties applicationProperties
+    ) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.purgeRunner = purgeRunner;
+        this.properties = applicationProperties.getSecurity().getRefreshToken();
+    }
+
+    /**
+     * Issue a new refresh token for a user.
+     *
+     * @param login the login of the user.
+     * @param rememberMe whether the token gets the longer, remember-me, validity.
+     * @return the raw refresh token, which is never stored.
+     */
+    @Transactional
+    public String createRefreshToken(String login, boolean rememberMe) {
+        User user = userRepository
+            .findOneByLogin(login)
+            .orElseThrow(() -> new UsernameNotFoundException("User " + login + " was not found in the database"));
+        long validityInSeconds = rememberMe ? properties.getTokenValidityInSecondsForRememberMe() : properties.getTokenValidityInSeconds();
+        Instant now = Instant.now();
+        String token = generateToken();
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(hash(token));
+        refreshToken.setUser(user);
+        refreshToken.setRememberMe(rememberMe);
+        refreshToken.setCreatedDate(now);
+        refreshToken.setExpiryDate(now.plusSeconds(validityInSeconds));
+        refreshTokenRepository.save(refreshToken);
+        log.debug("Created refresh token for user {}", login);
+        return token;
+    }
+
+    /**
+     * Resolve the user a refresh token was issued to.
+     *
+     * @param token the raw refresh token.
+     * @return the authentication of the user, or an empty {@link Optional} if the token is unknown or expired, or the
+     * user is no longer activated.
+     */
+    @PrimaryRead
+    @Transactional(readOnly = true)
+    public Optional<Authentication> getAuthentication(String token) {
+        return refreshTokenRepository
+            .findOneWithUserByTokenHash(hash(token))
+            .filter(refreshToken -> refreshToken.getExpiryDate().isAfter(Instant.now()))
+            .map(RefreshToken::getUser)
+            .filter(User::isActivated)
+            .map(
+                user -> {
+                    List<GrantedAuthority> authorities = user
+                        .getAuthorities()
+                        .stream()
+                        .map(Authority::getName)
+                        .map(InternedAuthorities::of)
+                        .collect(Collectors.toList());
+                    return new UsernamePasswordAuthenticationToken(user.getLogin(), null, authorities);
+                }
+            );
+    }
+
+    /**
+     * Revoke a refresh token.
+     *
+     * @param token the raw refresh token.
+     */
+    @Transactional
+    public void revokeRefreshToken(String token) {
+        refreshTokenRepository.deleteByTokenHash(hash(token));
+    }
+
+    /**
+     * Revoke every refresh token of a user.
+     *
+     * @param user the user.
+     */
+    @Transactional
+    public void revokeRefreshTokens(User user) {
+        int deleted = refreshTokenRepository.deleteByUser(user);
+        log.debug("Revoked {} refresh tokens of user {}", deleted, user.getLogin());
+    }
+
+    /**
+     * Expired refresh tokens should be deleted.
+     * <p>
+     * This is scheduled to get fired every hour, and deletes the tokens in batches, each in its own transaction, so
+     * that a large backlog never holds locks on the whole table.
+     */
+    @Scheduled(cron = "0 30 * * * ?")
+    public void removeExpiredRefreshTokens() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        long deleted = purgeRunner.purge(
+            "expired-refresh-tokens",
+            properties.getCleanupBatchSize(),
+            limit -> {
+                List<Long> ids = refreshTokenRepository.findIdsByExpiryDateBefore(now, PageRequest.of(0, limit));
+                return ids.isEmpty() ? 0 : refreshTokenRepository.deleteByIdIn(ids);
+            }
+        );
+        log.debug("Deleted {} expired refresh tokens", deleted);
+    }
+
+    static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return new String(Hex.encode(digest.digest(token.getBytes(StandardCharsets.US_ASCII))));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String generateToken() {
+        byte[] bytes = new byte[TOKEN_BYTE_LENGTH];
+        SECURE_RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
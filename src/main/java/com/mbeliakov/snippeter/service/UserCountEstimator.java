@@ -0,0 +1,43 @@
+package com.mbeliakov.snippeter.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mbeliakov.snippeter.config.ApplicationProperties;
+import com.mbeliakov.snippeter.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.concurrent.TimeUnit;
+import org.springframework.stereotype.Service;
+
+/**
+ * Estimated number of users, read from the database statistics and reused for a short time, for the listings
+ * that do not need an exact total.
+ */
+@Service
+public class UserCountEstimator {
+
+    public static final String CACHE_NAME = "user-count-estimate";
+
+    private final UserRepository userRepository;
+
+    private final Cache<Boolean, Long> cache;
+
+    public UserCountEstimator(UserRepository userRepository, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.cache =
+            Caffeine
+                .newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(applicationProperties.getPagination().getCountEstimateTimeToLiveSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * @return the estimated number of users, activated or not.
+     */
+    public long estimateCount() {
+        return cache.get(Boolean.TRUE, ignored -> userRepository.estimateCount());
+    }
+}
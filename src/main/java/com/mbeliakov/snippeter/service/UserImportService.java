@@ -0,0 +1,246 @@
+package com.mbeliakov.snippeter.service;
+
+import com.mbeliakov.snippeter.aop.batch.BatchWork;
+import com.mbeliakov.snippeter.config.Constants;
+import com.mbeliakov.snippeter.domain.User;
+import com.mbeliakov.snippeter.repository.UserRepository;
+import com.mbeliakov.snippeter.security.PooledPasswordEncoder;
+import com.mbeliakov.snippeter.service.dto.AdminUserDTO;
+import com.mbeliakov.snippeter.service.dto.UserImportErrorDTO;
+import com.mbeliakov.snippeter.service.dto.UserImportRowDTO;
+import com.mbeliakov.snippeter.service.dto.UserImportSummaryDTO;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.jhipster.security.RandomUtil;
+
+/**
+ * Service for importing users in bulk.
+ * <p>
+ * Rows are read as they are needed, and imported in batches of {@code hibernate.jdbc.batch_size} rows: the logins
+ * and emails of a batch are checked with one query each, its random passwords are hashed in parallel on the
+ * password hashing pool, and it is inserted in its own transaction, in JDBC batches. A batch that conflicts with
+ * users created in between is imported again one row at a time, so that only the conflicting rows fail.
+ */
+@Service
+@BatchWork
+public class UserImportService {
+
+    public static final String ERROR_UNREADABLE = "unreadable";
+
+    public static final String ERROR_INVALID = "invalid";
+
+    public static final String ERROR_ID_EXISTS = "idexists";
+
+    public static final String ERROR_LOGIN_EXISTS = "userexists";
+
+    public static final String ERROR_EMAIL_EXISTS = "emailexists";
+
+    public static final String ERROR_CONFLICT = "conflict";
+
+    private final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+    private final UserRepository userRepository;
+
+    private final AuthorityRegistry authorityRegistry;
+
+    private final PooledPasswordEncoder passwordEncoder;
+
+    private final MailService mailService;
+
+    private final Validator validator;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+
+    public UserImportService(
+        UserRepository userRepository,
+        AuthorityRegistry authorityRegistry,
+        PooledPasswordEncoder passwordEncoder,
+        MailService mailService,
+        Validator validator,
+        EntityManager entityManager,
+        PlatformTransactionManager transactionManager,
+        @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:25}") int batchSize
+    ) {
+        this.userRepository = userRepository;
+        this.authorityRegistry = authorityRegistry;
+        this.passwordEncoder = passwordEncoder;
+        this.mailService = mailService;
+        this.validator = validator;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Import users, created like {@link UserService#createUser(AdminUserDTO)} and sent the same creation email.
+     *
+     * @param rows the rows to import, read one at a time.
+     * @param errors receives the rows that are not imported, as soon as they are known.
+     * @return the numbers of imported and failed rows.
+     */
+    public UserImportSummaryDTO importUsers(Iterator<UserImportRowDTO> rows, Consumer<UserImportErrorDTO> errors) {
+        long total = 0;
+        long created = 0;
+        List<UserImportRowDTO> batch = new ArrayList<>(batchSize);
+        while (rows.hasNext()) {
+            UserImportRowDTO row = rows.next();
+            total++;
+            UserImportErrorDTO error = validate(row);
+            if (error != null) {
+                errors.accept(error);
+                continue;
+            }
+            batch.add(row);
+            if (batch.size() == batchSize) {
+                created += importBatch(batch, errors);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            created += importBatch(batch, errors);
+        }
+        log.debug("Imported {} users out of {} rows", created, total);
+        return new UserImportSummaryDTO(created, total - created);
+    }
+
+    private UserImportErrorDTO validate(UserImportRowDTO row) {
+        if (row.getUser() == null) {
+            return new UserImportErrorDTO(row.getRow(), null, ERROR_UNREADABLE, row.getUnreadableReason());
+        }
+        AdminUserDTO user = row.getUser();
+        if (user.getId() != null) {
+            return new UserImportErrorDTO(row.getRow(), user.getLogin(), ERROR_ID_EXISTS, "A new user cannot already have an ID");
+        }
+        Set<ConstraintViolation<AdminUserDTO>> violations = validator.validate(user);
+        if (!violations.isEmpty()) {
+            String message = violations
+                .stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+            return new UserImportErrorDTO(row.getRow(), user.getLogin(), ERROR_INVALID, message);
+        }
+        return null;
+    }
+
+    private long importBatch(List<UserImportRowDTO> batch, Consumer<UserImportErrorDTO> errors) {
+        Set<String> logins = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (UserImportRowDTO row : batch) {
+            logins.add(row.getUser().getLogin().toLowerCase());
+            if (row.getUser().getEmail() != null) {
+                emails.add(User.normalizeEmail(row.getUser().getEmail()));
+            }
+        }
+        Set<String> usedLogins = new HashSet<>(userRepository.findAllLoginsByLoginIn(logins));
+        Set<String> usedEmails = emails.isEmpty() ? new HashSet<>() : new HashSet<>(userRepository.findAllEmailsByEmailIn(emails));
+
+        List<UserImportRowDTO> accepted = new ArrayList<>(batch.size());
+        for (UserImportRowDTO row : batch) {
+            String login = row.getUser().getLogin().toLowerCase();
+            String email = User.normalizeEmail(row.getUser().getEmail());
+            if (usedLogins.contains(login)) {
+                errors.accept(new UserImportErrorDTO(row.getRow(), login, ERROR_LOGIN_EXISTS, "Login name already used!"));
+            } else if (email != null && usedEmails.contains(email)) {
+                errors.accept(new UserImportErrorDTO(row.getRow(), login, ERROR_EMAIL_EXISTS, "Email is already in use!"));
+            } else {
+                // the next rows of the batch cannot take them either
+                usedLogins.add(login);
+                if (email != null) {
+                    usedEmails.add(email);
+                }
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return 0;
+        }
+
+        List<String> rawPasswords = new ArrayList<>(accepted.size());
+        accepted.forEach(row -> rawPasswords.add(RandomUtil.generatePassword()));
+        List<String> passwords = passwordEncoder.encodeAll(rawPasswords);
+
+        List<User> users;
+        try {
+            users = insert(accepted, passwords);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Batch of imported users conflicts with existing users, importing it one row at a time", e);
+            return importOneByOne(accepted, passwords, errors);
+        }
+        users.forEach(mailService::sendCreationEmail);
+        return users.size();
+    }
+
+    private long importOneByOne(List<UserImportRowDTO> rows, List<String> passwords, Consumer<UserImportErrorDTO> errors) {
+        long created = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            UserImportRowDTO row = rows.get(i);
+            try {
+                insert(List.of(row), List.of(passwords.get(i))).forEach(mailService::sendCreationEmail);
+                created++;
+            } catch (DataIntegrityViolationException e) {
+                errors.accept(
+                    new UserImportErrorDTO(row.getRow(), row.getUser().getLogin(), ERROR_CONFLICT, "Login name or email already used!")
+                );
+            }
+        }
+        return created;
+    }
+
+    private List<User> insert(List<UserImportRowDTO> rows, List<String> passwords) {
+        return transactionTemplate.execute(
+            status -> {
+                // imported users are not about to be read, so they are not put in the second-level cache
+                entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+                List<User> users = new ArrayList<>(rows.size());
+                for (int i = 0; i < rows.size(); i++) {
+                    users.add(toUser(rows.get(i).getUser(), passwords.get(i)));
+                }
+                userRepository.saveAll(users);
+                userRepository.flush();
+                return users;
+            }
+        );
+    }
+
+    private User toUser(AdminUserDTO userDTO, String encryptedPassword) {
+        User user = new User();
+        user.setLogin(userDTO.getLogin().toLowerCase());
+        user.setFirstName(userDTO.getFirstName());
+        user.setLastName(userDTO.getLastName());
+        user.setEmail(userDTO.getEmail());
+        user.setImageUrl(userDTO.getImageUrl());
+        user.setLangKey(Objects.requireNonNullElse(userDTO.getLangKey(), Constants.DEFAULT_LANGUAGE));
+        user.setPassword(encryptedPassword);
+        user.setResetKey(RandomUtil.generateResetKey());
+        user.setResetDate(Instant.now());
+        user.setActivated(true);
+        if (userDTO.getAuthorities() != null) {
+            user.setAuthorities(authorityRegistry.getReferences(userDTO.getAuthorities()));
+        }
+        return user;
+    }
+}
@@ -1,25 +1,40 @@
 package com.mbeliakov.snippeter.service;
 
+import com.mbeliakov.snippeter.aop.batch.BatchWork;
 import com.mbeliakov.snippeter.config.Constants;
 import com.mbeliakov.snippeter.domain.Authority;
 import com.mbeliakov.snippeter.domain.User;
-import com.mbeliakov.snippeter.repository.AuthorityRepository;
+import com.mbeliakov.snippeter.purge.PurgeRunner;
+import com.mbeliakov.snippeter.repository.Keyset;
+import com.mbeliakov.snippeter.repository.KeysetPage;
 import com.mbeliakov.snippeter.repository.UserRepository;
 import com.mbeliakov.snippeter.security.AuthoritiesConstants;
 import com.mbeliakov.snippeter.security.SecurityUtils;
+import com.mbeliakov.snippeter.security.VerifiedCredentialsCache;
+import com.mbeliakov.snippeter.security.apikey.ApiKeyResolver;
+import com.mbeliakov.snippeter.security.jwt.TokenDenylist;
 import com.mbeliakov.snippeter.service.dto.AdminUserDTO;
 import com.mbeliakov.snippeter.service.dto.UserDTO;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import tech.jhipster.security.RandomUtil;
 
@@ -32,16 +47,52 @@ public class UserService {
 
     private final Logger log = LoggerFactory.getLogger(UserService.class);
 
+    private static final int EXPORT_CHUNK_SIZE = 500;
+
+    private static final Duration RESET_KEY_VALIDITY = Duration.ofDays(1);
+
+    private static final String LOGIN_CONSTRAINT = "ux_user_login";
+
+    private static final String EMAIL_CONSTRAINT = "ux_user_email";
+
     private final UserRepository userRepository;
 
     private final PasswordEncoder passwordEncoder;
 
-    private final AuthorityRepository authorityRepository;
+    private final AuthorityRegistry authorityRegistry;
+
+    private final TokenDenylist tokenDenylist;
+
+    private final RefreshTokenService refreshTokenService;
+
+    private final VerifiedCredentialsCache verifiedCredentialsCache;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthorityRepository authorityRepository) {
+    private final ApiKeyResolver apiKeyResolver;
+
+    private final UserCountEstimator userCountEstimator;
+
+    private final PurgeRunner purgeRunner;
+
+    public UserService(
+        UserRepository userRepository,
+        PasswordEncoder passwordEncoder,
+        AuthorityRegistry authorityRegistry,
+        TokenDenylist tokenDenylist,
+        RefreshTokenService refreshTokenService,
+        VerifiedCredentialsCache verifiedCredentialsCache,
+        ApiKeyResolver apiKeyResolver,
+        UserCountEstimator userCountEstimator,
+        PurgeRunner purgeRunner
+    ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.authorityRepository = authorityRepository;
+        this.authorityRegistry = authorityRegistry;
+        this.tokenDenylist = tokenDenylist;
+        this.refreshTokenService = refreshTokenService;
+        this.verifiedCredentialsCache = verifiedCredentialsCache;
+        this.apiKeyResolver = apiKeyResolver;
+        this.userCountEstimator = userCountEstimator;
+        this.purgeRunner = purgeRunner;
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -63,12 +114,13 @@ public class UserService {
         log.debug("Reset user password for reset key {}", key);
         return userRepository
             .findOneByResetKey(key)
-            .filter(user -> user.getResetDate().isAfter(Instant.now().minusSeconds(86400)))
+            .filter(user -> user.getResetDate().isAfter(Instant.now().minus(RESET_KEY_VALIDITY)))
             .map(
                 user -> {
                     user.setPassword(passwordEncoder.encode(newPassword));
                     user.setResetKey(null);
                     user.setResetDate(null);
+                    revokeTokens(user);
                     return user;
                 }
             );
@@ -87,27 +139,20 @@ public class UserService {
             );
     }
 
+    /**
+     * Register a new, not activated, user.
+     * <p>
+     * The unique constraints on the login and the email detect the users already holding them: not activated users
+     * are deleted by a single statement first, and the new user is then inserted, so that a registration costs no
+     * lookup and concurrent registrations cannot both succeed.
+     *
+     * @param userDTO the user to register.
+     * @param password the password of the user.
+     * @return the registered user.
+     * @throws UsernameAlreadyUsedException if an activated user holds the login.
+     * @throws EmailAlreadyUsedException if an activated user holds the email.
+     */
     public User registerUser(AdminUserDTO userDTO, String password) {
-        userRepository
-            .findOneByLogin(userDTO.getLogin().toLowerCase())
-            .ifPresent(
-                existingUser -> {
-                    boolean removed = removeNonActivatedUser(existingUser);
-                    if (!removed) {
-                        throw new UsernameAlreadyUsedException();
-                    }
-                }
-            );
-        userRepository
-            .findOneByEmailIgnoreCase(userDTO.getEmail())
-            .ifPresent(
-                existingUser -> {
-                    boolean removed = removeNonActivatedUser(existingUser);
-                    if (!removed) {
-                        throw new EmailAlreadyUsedException();
-                    }
-                }
-            );
         User newUser = new User();
         String encryptedPassword = passwordEncoder.encode(password);
         newUser.setLogin(userDTO.getLogin().toLowerCase());
@@ -116,7 +161,7 @@ public class UserService {
         newUser.setFirstName(userDTO.getFirstName());
         newUser.setLastName(userDTO.getLastName());
         if (userDTO.getEmail() != null) {
-            newUser.setEmail(userDTO.getEmail().toLowerCase());
+            newUser.setEmail(userDTO.getEmail());
         }
         newUser.setImageUrl(userDTO.getImageUrl());
         newUser.setLangKey(userDTO.getLangKey());
@@ -124,21 +169,35 @@ public class UserService {
         newUser.setActivated(false);
         // new user gets registration key
         newUser.setActivationKey(RandomUtil.generateActivationKey());
-        Set<Authority> authorities = new HashSet<>();
-        authorityRepository.findById(AuthoritiesConstants.USER).ifPresent(authorities::add);
-        newUser.setAuthorities(authorities);
-        userRepository.save(newUser);
+        newUser.setAuthorities(authorityRegistry.getReferences(Collections.singleton(AuthoritiesConstants.USER)));
+        int removed = userRepository.deleteNotActivatedUsers(newUser.getLogin(), newUser.getEmail());
+        if (removed > 0) {
+            log.debug("Removed {} not activated users holding the login or email of {}", removed, newUser.getLogin());
+        }
+        try {
+            userRepository.saveAndFlush(newUser);
+        } catch (DataIntegrityViolationException e) {
+            throw toAlreadyUsedException(e);
+        }
         log.debug("Created Information for User: {}", newUser);
         return newUser;
     }
 
-    private boolean removeNonActivatedUser(User existingUser) {
-        if (existingUser.isActivated()) {
-            return false;
+    /**
+     * Map the violation of a unique constraint of the user table to the exception for the value already used.
+     */
+    private static RuntimeException toAlreadyUsedException(DataIntegrityViolationException e) {
+        if (e.getCause() instanceof ConstraintViolationException) {
+            String constraintName = ((ConstraintViolationException) e.getCause()).getConstraintName();
+            String name = constraintName == null ? "" : constraintName.toLowerCase(Locale.ROOT);
+            if (name.contains(LOGIN_CONSTRAINT)) {
+                return new UsernameAlreadyUsedException();
+            }
+            if (name.contains(EMAIL_CONSTRAINT)) {
+                return new EmailAlreadyUsedException();
+            }
         }
-        userRepository.delete(existingUser);
-        userRepository.flush();
-        return true;
+        return e;
     }
 
     public User createUser(AdminUserDTO userDTO) {
@@ -147,7 +206,7 @@ public class UserService {
         user.setFirstName(userDTO.getFirstName());
         user.setLastName(userDTO.getLastName());
         if (userDTO.getEmail() != null) {
-            user.setEmail(userDTO.getEmail().toLowerCase());
+            user.setEmail(userDTO.getEmail());
         }
         user.setImageUrl(userDTO.getImageUrl());
         if (userDTO.getLangKey() == null) {
@@ -161,14 +220,7 @@ public class UserService {
         user.setResetDate(Instant.now());
         user.setActivated(true);
         if (userDTO.getAuthorities() != null) {
-            Set<Authority> authorities = userDTO
-                .getAuthorities()
-                .stream()
-                .map(authorityRepository::findById)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toSet());
-            user.setAuthorities(authorities);
+            user.setAuthorities(authorityRegistry.getReferences(userDTO.getAuthorities()));
         }
         userRepository.save(user);
         log.debug("Created Information for User: {}", user);
@@ -188,24 +240,25 @@ public class UserService {
             .map(Optional::get)
             .map(
                 user -> {
+                    if (user.isActivated() && !userDTO.isActivated()) {
+                        revokeTokens(user);
+                    } else {
+                        // the login and authorities of cached credentials may be about to change
+                        verifiedCredentialsCache.invalidate(user.getLogin());
+                        apiKeyResolver.evictUser(user.getLogin());
+                    }
                     user.setLogin(userDTO.getLogin().toLowerCase());
                     user.setFirstName(userDTO.getFirstName());
                     user.setLastName(userDTO.getLastName());
                     if (userDTO.getEmail() != null) {
-                        user.setEmail(userDTO.getEmail().toLowerCase());
+                        user.setEmail(userDTO.getEmail());
                     }
                     user.setImageUrl(userDTO.getImageUrl());
                     user.setActivated(userDTO.isActivated());
                     user.setLangKey(userDTO.getLangKey());
                     Set<Authority> managedAuthorities = user.getAuthorities();
                     managedAuthorities.clear();
-                    userDTO
-                        .getAuthorities()
-                        .stream()
-                        .map(authorityRepository::findById)
-                        .filter(Optional::isPresent)
-                        .map(Optional::get)
-                        .forEach(managedAuthorities::add);
+                    managedAuthorities.addAll(authorityRegistry.getReferences(userDTO.getAuthorities()));
                     log.debug("Changed Information for User: {}", user);
                     return user;
                 }
@@ -218,6 +271,9 @@ public class UserService {
             .findOneByLogin(login)
             .ifPresent(
                 user -> {
+                    tokenDenylist.revokeAll(user.getLogin());
+                    verifiedCredentialsCache.invalidate(user.getLogin());
+                    apiKeyResolver.evictUser(user.getLogin());
                     userRepository.delete(user);
                     log.debug("Deleted User: {}", user);
                 }
@@ -242,7 +298,7 @@ public class UserService {
                     user.setFirstName(firstName);
                     user.setLastName(lastName);
                     if (email != null) {
-                        user.setEmail(email.toLowerCase());
+                        user.setEmail(email);
                     }
                     user.setLangKey(langKey);
                     user.setImageUrl(imageUrl);
@@ -264,19 +320,204 @@ public class UserService {
                     }
                     String encryptedPassword = passwordEncoder.encode(newPassword);
                     user.setPassword(encryptedPassword);
+                    revokeTokens(user);
                     log.debug("Changed password for User: {}", user);
                 }
             );
     }
 
+    /**
+     * Get a page of users with their authorities.
+     * <p>
+     * The users are selected straight into DTOs, and then their authorities from the join table, so that a page
+     * costs the same few statements whatever its size, and no {@link User} is loaded into the persistence context.
+     *
+     * @param pageable the pagination information.
+     * @return the page of users.
+     */
     @Transactional(readOnly = true)
     public Page<AdminUserDTO> getAllManagedUsers(Pageable pageable) {
-        return userRepository.findAll(pageable).map(AdminUserDTO::new);
+        Page<AdminUserDTO> page = userRepository.findAllAdminUsers(pageable);
+        addAuthorities(page.getContent());
+        return page;
+    }
+
+    /**
+     * Get a slice of users with their authorities, selected like {@link #getAllManagedUsers(Pageable)}, without
+     * counting them.
+     *
+     * @param pageable the pagination information.
+     * @return the slice of users.
+     */
+    @Transactional(readOnly = true)
+    public Slice<AdminUserDTO> getAllManagedUsersSlice(Pageable pageable) {
+        Slice<AdminUserDTO> slice = userRepository.findSliceOfAdminUsers(pageable);
+        addAuthorities(slice.getContent());
+        return slice;
+    }
+
+    /**
+     * Get a page of users with their authorities, whose total is estimated from the database statistics.
+     *
+     * @param pageable the pagination information.
+     * @return the page of users.
+     */
+    @Transactional(readOnly = true)
+    public Page<AdminUserDTO> getAllManagedUsersWithEstimatedCount(Pageable pageable) {
+        return withEstimatedTotal(getAllManagedUsersSlice(pageable));
+    }
+
+    /**
+     * Get a keyset page of users with their authorities, selected like {@link #getAllManagedUsers(Pageable)}.
+     *
+     * @param keyset the position of the page.
+     * @param size the size of the page.
+     * @return the page of users.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<AdminUserDTO> getAllManagedUsers(Keyset keyset, int size) {
+        KeysetPage<AdminUserDTO> page = getUsers(keyset, size, false, userRepository::findAllAdminUsersByIdIn, AdminUserDTO::getId);
+        addAuthorities(page.getContent());
+        return page;
     }
 
+    /**
+     * Export all the users with their authorities, in the order of their ids, in a single read-only transaction.
+     * <p>
+     * The users are streamed from a forward-only cursor, straight into DTOs, so that nothing piles up in the
+     * persistence context, and their authorities are selected {@value #EXPORT_CHUNK_SIZE} users at a time: memory
+     * stays flat however many users there are.
+     *
+     * @param consumer receives the users, one at a time.
+     */
+    @BatchWork
+    @Transactional(readOnly = true)
+    public void exportUsers(Consumer<AdminUserDTO> consumer) {
+        try (Stream<AdminUserDTO> users = userRepository.streamAllAdminUsers()) {
+            List<AdminUserDTO> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+            Iterator<AdminUserDTO> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == EXPORT_CHUNK_SIZE || !iterator.hasNext()) {
+                    addAuthorities(chunk);
+                    chunk.forEach(consumer);
+                    chunk.clear();
+                }
+            }
+        }
+    }
+
+    private void addAuthorities(List<AdminUserDTO> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        Map<Long, AdminUserDTO> usersById = new HashMap<>();
+        users.forEach(user -> usersById.put(user.getId(), user));
+        for (Object[] row : userRepository.findAuthorityNamesByUserIdIn(usersById.keySet())) {
+            usersById.get((Long) row[0]).getAuthorities().add((String) row[1]);
+        }
+    }
+
+    /**
+     * Get a page of activated users, selected straight into DTOs.
+     *
+     * @param pageable the pagination information.
+     * @return the page of users.
+     */
     @Transactional(readOnly = true)
     public Page<UserDTO> getAllPublicUsers(Pageable pageable) {
-        return userRepository.findAllByIdNotNullAndActivatedIsTrue(pageable).map(UserDTO::new);
+        return userRepository.findAllPublicUsers(pageable);
+    }
+
+    /**
+     * Get a slice of activated users, selected straight into DTOs, without counting them.
+     *
+     * @param pageable the pagination information.
+     * @return the slice of users.
+     */
+    @Transactional(readOnly = true)
+    public Slice<UserDTO> getAllPublicUsersSlice(Pageable pageable) {
+        return userRepository.findSliceOfPublicUsers(pageable);
+    }
+
+    /**
+     * Get a page of activated users, whose total is estimated from the database statistics, which also count the
+     * users that are not activated.
+     *
+     * @param pageable the pagination information.
+     * @return the page of users.
+     */
+    @Transactional(readOnly = true)
+    public Page<UserDTO> getAllPublicUsersWithEstimatedCount(Pageable pageable) {
+        return withEstimatedTotal(getAllPublicUsersSlice(pageable));
+    }
+
+    private <T> Page<T> withEstimatedTotal(Slice<T> slice) {
+        long offset = slice.getPageable().isPaged() ? slice.getPageable().getOffset() : 0;
+        long seen = offset + slice.getNumberOfElements();
+        // the slice tells better than the estimate whether there is anything after it
+        long total = slice.hasNext() ? Math.max(userCountEstimator.estimateCount(), seen + 1) : seen;
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), total);
+    }
+
+    /**
+     * Get a keyset page of activated users, selected straight into DTOs.
+     *
+     * @param keyset the position of the page.
+     * @param size the size of the page.
+     * @return the page of users.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<UserDTO> getAllPublicUsers(Keyset keyset, int size) {
+        return getUsers(keyset, size, true, userRepository::findAllPublicUsersByIdIn, UserDTO::getId);
+    }
+
+    private <T> KeysetPage<T> getUsers(
+        Keyset keyset,
+        int size,
+        boolean activatedOnly,
+        Function<List<Long>, List<T>> loader,
+        Function<T, Long> idGetter
+    ) {
+        // one more row than the page holds tells whether there is another page in the scanning direction
+        List<Keyset> positions = userRepository.findPositionsByKeyset(keyset, activatedOnly, size + 1);
+        boolean more = positions.size() > size;
+        positions = new ArrayList<>(positions.subList(0, Math.min(size, positions.size())));
+        if (keyset.isBefore()) {
+            Collections.reverse(positions);
+        }
+        if (positions.isEmpty()) {
+            return new KeysetPage<>(Collections.emptyList(), null, null);
+        }
+        List<Long> ids = positions.stream().map(Keyset::getId).collect(Collectors.toList());
+        List<T> content = loadInOrder(ids, loader, idGetter);
+        Keyset first = positions.get(0);
+        Keyset last = positions.get(positions.size() - 1);
+        boolean hasNext = keyset.isBefore() || more;
+        boolean hasPrevious = keyset.isBefore() ? more : !keyset.isFirst();
+        return new KeysetPage<>(
+            content,
+            hasNext ? last : null,
+            hasPrevious ? Keyset.before(keyset.getOrder(), first.getValue(), first.getId()) : null
+        );
+    }
+
+    /**
+     * Load rows with the given loader, in the order of their ids, skipping the users deleted in between.
+     */
+    private static <T> List<T> loadInOrder(List<Long> ids, Function<List<Long>, List<T>> loader, Function<T, Long> idGetter) {
+        Map<Long, T> rowsById = new HashMap<>();
+        for (T row : loader.apply(ids)) {
+            rowsById.put(idGetter.apply(row), row);
+        }
+        List<T> rows = new ArrayList<>();
+        for (Long id : ids) {
+            T row = rowsById.get(id);
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
     }
 
     @Transactional(readOnly = true)
@@ -292,18 +533,39 @@ public class UserService {
     /**
      * Not activated users should be automatically deleted after 3 days.
      * <p>
-     * This is scheduled to get fired everyday, at 01:00 (am).
+     * This is scheduled to get fired everyday, at 01:00 (am). The users are deleted a chunk at a time, each in its own
+     * transaction.
      */
     @Scheduled(cron = "0 0 1 * * ?")
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void removeNotActivatedUsers() {
-        userRepository
-            .findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(Instant.now().minus(3, ChronoUnit.DAYS))
-            .forEach(
-                user -> {
-                    log.debug("Deleting not activated user {}", user.getLogin());
-                    userRepository.delete(user);
-                }
-            );
+        Instant createdBefore = Instant.now().minus(3, ChronoUnit.DAYS);
+        long deleted = purgeRunner.purge("not-activated-users", limit -> userRepository.deleteNotActivatedUsers(createdBefore, limit));
+        log.debug("Deleted {} not activated users", deleted);
+    }
+
+    /**
+     * Reset keys that can no longer be used to complete a password reset should be automatically cleared.
+     * <p>
+     * This is scheduled to get fired everyday, at 01:30 (am). The keys are cleared a chunk at a time, each in its own
+     * transaction.
+     */
+    @Scheduled(cron = "0 30 1 * * ?")
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void removeExpiredResetKeys() {
+        Instant resetBefore = Instant.now().minus(RESET_KEY_VALIDITY);
+        long cleared = purgeRunner.purge("expired-reset-keys", limit -> userRepository.clearResetKeys(resetBefore, limit));
+        log.debug("Cleared {} expired reset keys", cleared);
+    }
+
+    /**
+     * Revoke every access and refresh token issued to a user so far, and forget their cached credentials and API keys.
+     */
+    private void revokeTokens(User user) {
+        tokenDenylist.revokeAll(user.getLogin());
+        refreshTokenService.revokeRefreshTokens(user);
+        verifiedCredentialsCache.invalidate(user.getLogin());
+        apiKeyResolver.evictUser(user.getLogin());
     }
 
     /**
@@ -312,6 +574,6 @@ public class UserService {
      */
     @Transactional(readOnly = true)
     public List<String> getAuthorities() {
-        return authorityRepository.findAll().stream().map(Authority::getName).collect(Collectors.toList());
+        return authorityRegistry.getNames();
     }
 }
@@ -4,6 +4,7 @@ import com.mbeliakov.snippeter.config.Constants;
 import com.mbeliakov.snippeter.domain.Authority;
 import com.mbeliakov.snippeter.domain.User;
 import java.time.Instant;
+import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Collectors;
 import javax.validation.constraints.*;
@@ -68,6 +69,39 @@ public class AdminUserDTO {
         this.authorities = user.getAuthorities().stream().map(Authority::getName).collect(Collectors.toSet());
     }
 
+    /**
+     * Constructor used by the JPQL projections, which select the columns of the DTO without loading a {@link User}.
+     * The authorities, which are not columns of the user, start empty.
+     */
+    public AdminUserDTO(
+        Long id,
+        String login,
+        String firstName,
+        String lastName,
+        String email,
+        String imageUrl,
+        boolean activated,
+        String langKey,
+        String createdBy,
+        Instant createdDate,
+        String lastModifiedBy,
+        Instant lastModifiedDate
+    ) {
+        this.id = id;
+        this.login = login;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.imageUrl = imageUrl;
+        this.activated = activated;
+        this.langKey = langKey;
+        this.createdBy = createdBy;
+        this.createdDate = createdDate;
+        this.lastModifiedBy = lastModifiedBy;
+        this.lastModifiedDate = lastModifiedDate;
+        this.authorities = new HashSet<>();
+    }
+
     public Long getId() {
         return id;
     }
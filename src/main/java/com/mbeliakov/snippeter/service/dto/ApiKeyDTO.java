@@ -0,0 +1,100 @@
+package com.mbeliakov.snippeter.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.mbeliakov.snippeter.domain.ApiKey;
+import java.time.Instant;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
+
+/**
+ * A DTO representing an API key. The raw key is only set in the response to its creation.
+ */
+public class ApiKeyDTO {
+
+    private Long id;
+
+    @NotBlank
+    @Size(max = 50)
+    private String name;
+
+    private String prefix;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String key;
+
+    private Instant createdDate;
+
+    private Instant lastUsedDate;
+
+    public ApiKeyDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ApiKeyDTO(ApiKey apiKey) {
+        this.id = apiKey.getId();
+        this.name = apiKey.getName();
+        this.prefix = apiKey.getPrefix();
+        this.createdDate = apiKey.getCreatedDate();
+        this.lastUsedDate = apiKey.getLastUsedDate();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Instant getLastUsedDate() {
+        return lastUsedDate;
+    }
+
+    public void setLastUsedDate(Instant lastUsedDate) {
+        this.lastUsedDate = lastUsedDate;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ApiKeyDTO{" +
+            "id=" + id +
+            ", name='" + name + "'" +
+            ", prefix='" + prefix + "'" +
+            ", createdDate=" + createdDate +
+            ", lastUsedDate=" + lastUsedDate +
+            "}";
+    }
+}
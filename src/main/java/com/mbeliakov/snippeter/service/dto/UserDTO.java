@@ -21,6 +21,14 @@ public class UserDTO {
         this.login = user.getLogin();
     }
 
+    /**
+     * Constructor used by the JPQL projections, which select the columns of the DTO without loading a {@link User}.
+     */
+    public UserDTO(Long id, String login) {
+        this.id = id;
+        this.login = login;
+    }
+
     public Long getId() {
         return id;
     }
@@ -0,0 +1,69 @@
+package com.mbeliakov.snippeter.service.dto;
+
+/**
+ * A DTO representing a row of a user import that was not imported.
+ */
+public class UserImportErrorDTO {
+
+    private long row;
+
+    private String login;
+
+    private String error;
+
+    private String message;
+
+    public UserImportErrorDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public UserImportErrorDTO(long row, String login, String error, String message) {
+        this.row = row;
+        this.login = login;
+        this.error = error;
+        this.message = message;
+    }
+
+    public long getRow() {
+        return row;
+    }
+
+    public void setRow(long row) {
+        this.row = row;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public void setLogin(String login) {
+        this.login = login;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "UserImportErrorDTO{" +
+            "row=" + row +
+            ", login='" + login + '\'' +
+            ", error='" + error + '\'' +
+            ", message='" + message + '\'' +
+            "}";
+    }
+}
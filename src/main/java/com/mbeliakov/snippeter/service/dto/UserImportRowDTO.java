@@ -0,0 +1,58 @@
+package com.mbeliakov.snippeter.service.dto;
+
+/**
+ * A DTO representing a row of a user import: the user it holds, or why it could not be read.
+ */
+public class UserImportRowDTO {
+
+    private final long row;
+
+    private final AdminUserDTO user;
+
+    private final String unreadableReason;
+
+    private UserImportRowDTO(long row, AdminUserDTO user, String unreadableReason) {
+        this.row = row;
+        this.user = user;
+        this.unreadableReason = unreadableReason;
+    }
+
+    public static UserImportRowDTO of(long row, AdminUserDTO user) {
+        return new UserImportRowDTO(row, user, null);
+    }
+
+    public static UserImportRowDTO unreadable(long row, String reason) {
+        return new UserImportRowDTO(row, null, reason);
+    }
+
+    /**
+     * @return the number of the row in the import, starting at 1.
+     */
+    public long getRow() {
+        return row;
+    }
+
+    /**
+     * @return the user, {@code null} if the row could not be read.
+     */
+    public AdminUserDTO getUser() {
+        return user;
+    }
+
+    /**
+     * @return why the row could not be read, {@code null} if it was.
+     */
+    public String getUnreadableReason() {
+        return unreadableReason;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "UserImportRowDTO{" +
+            "row=" + row +
+            ", user=" + user +
+            ", unreadableReason='" + unreadableReason + '\'' +
+            "}";
+    }
+}
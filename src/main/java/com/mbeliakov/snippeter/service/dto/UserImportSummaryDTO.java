@@ -0,0 +1,45 @@
+package com.mbeliakov.snippeter.service.dto;
+
+/**
+ * A DTO representing the outcome of a user import.
+ */
+public class UserImportSummaryDTO {
+
+    private long created;
+
+    private long failed;
+
+    public UserImportSummaryDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public UserImportSummaryDTO(long created, long failed) {
+        this.created = created;
+        this.failed = failed;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public void setCreated(long created) {
+        this.created = created;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "UserImportSummaryDTO{" +
+            "created=" + created +
+            ", failed=" + failed +
+            "}";
+    }
+}
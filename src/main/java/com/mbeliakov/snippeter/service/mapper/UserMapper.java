@@ -95,9 +95,8 @@ public class UserMapper {
         if (user == null) {
             return null;
         }
-        UserDTO userDto = new UserDTO();
-        userDto.setId(user.getId());
-        return userDto;
+        // the id of an uninitialized proxy is read without loading the user
+        return new UserDTO(user.getId(), null);
     }
 
     @Named("idSet")
@@ -108,7 +107,7 @@ public class UserMapper {
             return null;
         }
 
-        Set<UserDTO> userSet = new HashSet<>();
+        Set<UserDTO> userSet = new HashSet<>(users.size() * 4 / 3 + 1);
         for (User userEntity : users) {
             userSet.add(this.toDtoId(userEntity));
         }
@@ -124,10 +123,7 @@ public class UserMapper {
         if (user == null) {
             return null;
         }
-        UserDTO userDto = new UserDTO();
-        userDto.setId(user.getId());
-        userDto.setLogin(user.getLogin());
-        return userDto;
+        return new UserDTO(user.getId(), user.getLogin());
     }
 
     @Named("loginSet")
@@ -139,7 +135,7 @@ public class UserMapper {
             return null;
         }
 
-        Set<UserDTO> userSet = new HashSet<>();
+        Set<UserDTO> userSet = new HashSet<>(users.size() * 4 / 3 + 1);
         for (User userEntity : users) {
             userSet.add(this.toDtoLogin(userEntity));
         }
@@ -0,0 +1,144 @@
+package com.mbeliakov.snippeter.web.filter;
+
+import com.mbeliakov.snippeter.config.ApplicationProperties;
+import com.mbeliakov.snippeter.config.StatementAccounting;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Publishes the SQL statements run by each request handled by a controller method, the rows they read or changed and
+ * the time spent running them, as the {@code http.server.requests.sql.statements}, {@code .rows} and {@code .time}
+ * histograms tagged with the handler method, e.g. {@code UserResource.getAllUsers}.
+ * <p>
+ * When {@code application.statement-accounting.headers} is set, the counts are also sent back in the
+ * {@value #STATEMENTS_HEADER}, {@value #ROWS_HEADER} and {@value #TIME_HEADER} headers, as they are when the
+ * response is committed.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(prefix = "application.statement-accounting", name = "enabled", matchIfMissing = true)
+public class StatementAccountingFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-SQL-Statements";
+
+    public static final String ROWS_HEADER = "X-SQL-Rows";
+
+    public static final String TIME_HEADER = "X-SQL-Time-Millis";
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean headers;
+
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    public StatementAccountingFilter(MeterRegistry meterRegistry, ApplicationProperties applicationProperties) {
+        this.meterRegistry = meterRegistry;
+        this.headers = applicationProperties.getStatementAccounting().isHeaders();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        StatementAccounting accounting = StatementAccounting.start();
+        try {
+            if (headers) {
+                AccountingHeadersResponseWrapper wrapper = new AccountingHeadersResponseWrapper(response, accounting);
+                filterChain.doFilter(request, wrapper);
+                if (!response.isCommitted()) {
+                    wrapper.setHeaders();
+                }
+            } else {
+                filterChain.doFilter(request, response);
+            }
+        } finally {
+            StatementAccounting.stop();
+            Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+            if (handler instanceof HandlerMethod) {
+                record((HandlerMethod) handler, accounting);
+            }
+        }
+    }
+
+    private void record(HandlerMethod handler, StatementAccounting accounting) {
+        String name = handler.getBeanType().getSimpleName() + "." + handler.getMethod().getName();
+        Meters handlerMeters = meters.computeIfAbsent(name, key -> new Meters(key, meterRegistry));
+        handlerMeters.statements.record(accounting.getStatements());
+        handlerMeters.rows.record(accounting.getRows());
+        handlerMeters.time.record(accounting.getNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private static final class Meters {
+
+        private final DistributionSummary statements;
+
+        private final DistributionSummary rows;
+
+        private final Timer time;
+
+        private Meters(String handler, MeterRegistry meterRegistry) {
+            this.statements =
+                DistributionSummary
+                    .builder("http.server.requests.sql.statements")
+                    .description("SQL statements run per request")
+                    .tag("handler", handler)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.rows =
+                DistributionSummary
+                    .builder("http.server.requests.sql.rows")
+                    .description("Rows read or changed by the SQL statements of a request")
+                    .tag("handler", handler)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.time =
+                Timer
+                    .builder("http.server.requests.sql.time")
+                    .description("Time spent running the SQL statements of a request")
+                    .tag("handler", handler)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Sets the accounting headers when the response is about to be committed, after which they could not be set.
+     */
+    private static final class AccountingHeadersResponseWrapper extends OnCommittedResponseWrapper {
+
+        private final StatementAccounting accounting;
+
+        private AccountingHeadersResponseWrapper(HttpServletResponse response, StatementAccounting accounting) {
+            super(response);
+            this.accounting = accounting;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            setHeaders();
+        }
+
+        private void setHeaders() {
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            response.setHeader(STATEMENTS_HEADER, Long.toString(accounting.getStatements()));
+            response.setHeader(ROWS_HEADER, Long.toString(accounting.getRows()));
+            response.setHeader(TIME_HEADER, Long.toString(TimeUnit.NANOSECONDS.toMillis(accounting.getNanos())));
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Servlet filters.
+ */
+package com.mbeliakov.snippeter.web.filter;
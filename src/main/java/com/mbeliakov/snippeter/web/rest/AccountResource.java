@@ -3,9 +3,11 @@ package com.mbeliakov.snippeter.web.rest;
 import com.mbeliakov.snippeter.domain.User;
 import com.mbeliakov.snippeter.repository.UserRepository;
 import com.mbeliakov.snippeter.security.SecurityUtils;
+import com.mbeliakov.snippeter.service.ApiKeyService;
 import com.mbeliakov.snippeter.service.MailService;
 import com.mbeliakov.snippeter.service.UserService;
 import com.mbeliakov.snippeter.service.dto.AdminUserDTO;
+import com.mbeliakov.snippeter.service.dto.ApiKeyDTO;
 import com.mbeliakov.snippeter.service.dto.PasswordChangeDTO;
 import com.mbeliakov.snippeter.service.dto.UserDTO;
 import com.mbeliakov.snippeter.web.rest.errors.*;
@@ -18,6 +20,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 /**
@@ -42,10 +45,13 @@ public class AccountResource {
 
     private final MailService mailService;
 
-    public AccountResource(UserRepository userRepository, UserService userService, MailService mailService) {
+    private final ApiKeyService apiKeyService;
+
+    public AccountResource(UserRepository userRepository, UserService userService, MailService mailService, ApiKeyService apiKeyService) {
         this.userRepository = userRepository;
         this.userService = userService;
         this.mailService = mailService;
+        this.apiKeyService = apiKeyService;
     }
 
     /**
@@ -185,6 +191,46 @@ public class AccountResource {
         }
     }
 
+    /**
+     * {@code GET  /account/api-keys} : get the API keys of the current user.
+     *
+     * @return the API keys, without their raw values.
+     */
+    @GetMapping("/account/api-keys")
+    public List<ApiKeyDTO> getApiKeys() {
+        return apiKeyService.getApiKeys();
+    }
+
+    /**
+     * {@code POST  /account/api-keys} : create an API key for the current user.
+     *
+     * @param apiKeyDTO the API key to create, of which only the name is used.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and the created API key, with its raw value,
+     * which cannot be retrieved afterwards, or with status {@code 404 (Not Found)} if the current user is not found.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the user already has the maximum number of keys.
+     */
+    @PostMapping("/account/api-keys")
+    public ResponseEntity<ApiKeyDTO> createApiKey(@Valid @RequestBody ApiKeyDTO apiKeyDTO) {
+        return apiKeyService
+            .createApiKey(apiKeyDTO.getName())
+            .map(created -> ResponseEntity.status(HttpStatus.CREATED).body(created))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * {@code DELETE  /account/api-keys/:id} : delete an API key of the current user.
+     *
+     * @param id the id of the API key.
+     * @return the {@link ResponseEntity} with status {@code 204 (No Content)}, or {@code 404 (Not Found)}.
+     */
+    @DeleteMapping("/account/api-keys/{id}")
+    public ResponseEntity<Void> deleteApiKey(@PathVariable Long id) {
+        if (!apiKeyService.deleteApiKey(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
     private static boolean isPasswordLengthInvalid(String password) {
         return (
             StringUtils.isEmpty(password) ||
@@ -0,0 +1,129 @@
+package com.mbeliakov.snippeter.web.rest;
+
+import com.mbeliakov.snippeter.repository.Keyset;
+import com.mbeliakov.snippeter.repository.KeysetPage;
+import java.beans.PropertyDescriptor;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for keyset (cursor) pagination.
+ * <p>
+ * A cursor is the opaque, URL-safe encoding of a {@link Keyset}: the sort property and direction, whether the page
+ * starts after or ends before a row, and the id and sort value of that row. The first page is requested with an
+ * empty {@code cursor} parameter, and the others with the cursors of the {@code Link} header.
+ */
+public final class CursorPaginationUtil {
+
+    public static final String CURSOR_PARAMETER = "cursor";
+
+    private static final String SEPARATOR = ",";
+
+    private static final String AFTER = "a";
+
+    private static final String BEFORE = "b";
+
+    private static final ConversionService conversionService = DefaultConversionService.getSharedInstance();
+
+    private CursorPaginationUtil() {}
+
+    /**
+     * Get the position of the requested page.
+     *
+     * @param cursor the {@code cursor} request parameter, empty for the first page.
+     * @param pageable the pagination information, whose sort is used for the first page.
+     * @param entityClass the class of the paginated entity.
+     * @param allowedProperties the properties the entity can be sorted by.
+     * @return the position of the page, or an empty {@link Optional} if the sort or the cursor is not valid.
+     */
+    public static Optional<Keyset> getKeyset(String cursor, Pageable pageable, Class<?> entityClass, Collection<String> allowedProperties) {
+        if (cursor.isEmpty()) {
+            List<Sort.Order> orders = pageable.getSort().toList();
+            if (orders.size() > 1) {
+                return Optional.empty();
+            }
+            Sort.Order order = orders.isEmpty() ? Sort.Order.asc("id") : orders.get(0);
+            return allowedProperties.contains(order.getProperty()) ? Optional.of(Keyset.first(order)) : Optional.empty();
+        }
+        return decode(cursor, entityClass).filter(keyset -> allowedProperties.contains(keyset.getProperty()));
+    }
+
+    /**
+     * Generate the {@code Link} header of a keyset page, with the cursors of the first, previous and next pages.
+     *
+     * @param uriBuilder the builder of the current request URI.
+     * @param page the keyset page.
+     * @param order the sort order of the pagination.
+     * @param <T> the type of the content.
+     * @return the HTTP headers.
+     */
+    public static <T> HttpHeaders generateCursorPaginationHttpHeaders(
+        UriComponentsBuilder uriBuilder,
+        KeysetPage<T> page,
+        Sort.Order order
+    ) {
+        List<String> links = new ArrayList<>();
+        uriBuilder.replaceQueryParam("sort").replaceQueryParam("page");
+        page.getNext().ifPresent(next -> links.add(link(uriBuilder, encode(next), "next")));
+        page.getPrevious().ifPresent(previous -> links.add(link(uriBuilder, encode(previous), "prev")));
+        String sort = order.getProperty() + SEPARATOR + order.getDirection().name().toLowerCase();
+        links.add(link(uriBuilder.replaceQueryParam("sort", sort), "", "first"));
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.LINK, String.join(",", links));
+        return headers;
+    }
+
+    static String encode(Keyset keyset) {
+        StringBuilder cursor = new StringBuilder()
+            .append(keyset.getProperty())
+            .append(SEPARATOR)
+            .append(keyset.getOrder().getDirection().name())
+            .append(SEPARATOR)
+            .append(keyset.isBefore() ? BEFORE : AFTER)
+            .append(SEPARATOR)
+            .append(keyset.getId());
+        if (keyset.getValue() != null) {
+            cursor.append(SEPARATOR).append(conversionService.convert(keyset.getValue(), String.class));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Optional<Keyset> decode(String cursor, Class<?> entityClass) {
+        try {
+            // the value comes last, as it may contain the separator
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, 5);
+            if (parts.length < 4) {
+                return Optional.empty();
+            }
+            Sort.Order order = new Sort.Order(Sort.Direction.valueOf(parts[1]), parts[0]);
+            Long id = Long.valueOf(parts[3]);
+            Object value = null;
+            if (parts.length == 5) {
+                PropertyDescriptor propertyDescriptor = BeanUtils.getPropertyDescriptor(entityClass, parts[0]);
+                if (propertyDescriptor == null) {
+                    return Optional.empty();
+                }
+                value = conversionService.convert(parts[4], propertyDescriptor.getPropertyType());
+            }
+            return Optional.of(BEFORE.equals(parts[2]) ? Keyset.before(order, value, id) : Keyset.after(order, value, id));
+        } catch (IllegalArgumentException | ConversionException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static String link(UriComponentsBuilder uriBuilder, String cursor, String relType) {
+        return "<" + uriBuilder.replaceQueryParam(CURSOR_PARAMETER, cursor).toUriString() + ">; rel=\"" + relType + "\"";
+    }
+}
@@ -1,5 +1,8 @@
 package com.mbeliakov.snippeter.web.rest;
 
+import com.mbeliakov.snippeter.domain.User;
+import com.mbeliakov.snippeter.repository.Keyset;
+import com.mbeliakov.snippeter.repository.KeysetPage;
 import com.mbeliakov.snippeter.service.UserService;
 import com.mbeliakov.snippeter.service.dto.UserDTO;
 import java.util.*;
@@ -8,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -24,6 +28,11 @@ public class PublicUserResource {
         Arrays.asList("id", "login", "firstName", "lastName", "email", "activated", "langKey")
     );
 
+    /**
+     * Properties a cursor may hold the value of: a cursor is readable by its client, so only those of {@link UserDTO}.
+     */
+    private static final List<String> ALLOWED_CURSOR_PROPERTIES = Collections.unmodifiableList(Arrays.asList("id", "login"));
+
     private final Logger log = LoggerFactory.getLogger(PublicUserResource.class);
 
     private final UserService userService;
@@ -36,16 +45,44 @@ public class PublicUserResource {
      * {@code GET /users} : get all users with only the public informations - calling this are allowed for anyone.
      *
      * @param pageable the pagination information.
+     * @param cursor the cursor of the requested page, empty for the first page, or {@code null} to paginate by page number;
+     * only sorting by {@code id} or {@code login} is allowed with a cursor.
+     * @param count how to get the total when paginating by page number: see {@link SlicePaginationUtil}.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users.
      */
     @GetMapping("/users")
-    public ResponseEntity<List<UserDTO>> getAllPublicUsers(Pageable pageable) {
+    public ResponseEntity<List<UserDTO>> getAllPublicUsers(
+        Pageable pageable,
+        @RequestParam(name = CursorPaginationUtil.CURSOR_PARAMETER, required = false) String cursor,
+        @RequestParam(name = SlicePaginationUtil.COUNT_PARAMETER, defaultValue = SlicePaginationUtil.COUNT_EXACT) String count
+    ) {
         log.debug("REST request to get all public User names");
-        if (!onlyContainsAllowedProperties(pageable)) {
+        if (!onlyContainsAllowedProperties(pageable) || !SlicePaginationUtil.isValidCount(count)) {
             return ResponseEntity.badRequest().build();
         }
+        if (cursor != null) {
+            Optional<Keyset> keyset = CursorPaginationUtil.getKeyset(cursor, pageable, User.class, ALLOWED_CURSOR_PROPERTIES);
+            if (!keyset.isPresent()) {
+                return ResponseEntity.badRequest().build();
+            }
+            KeysetPage<UserDTO> page = userService.getAllPublicUsers(keyset.get(), pageable.getPageSize());
+            HttpHeaders headers = CursorPaginationUtil.generateCursorPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                page,
+                keyset.get().getOrder()
+            );
+            return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+        }
+
+        if (SlicePaginationUtil.COUNT_NONE.equals(count)) {
+            Slice<UserDTO> slice = userService.getAllPublicUsersSlice(pageable);
+            HttpHeaders headers = SlicePaginationUtil.generateSliceHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
 
-        final Page<UserDTO> page = userService.getAllPublicUsers(pageable);
+        final Page<UserDTO> page = SlicePaginationUtil.COUNT_ESTIMATED.equals(count)
+            ? userService.getAllPublicUsersWithEstimatedCount(pageable)
+            : userService.getAllPublicUsers(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
@@ -0,0 +1,68 @@
+package com.mbeliakov.snippeter.web.rest;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for the pagination of the listings that do not count their total.
+ * <p>
+ * The {@code count} request parameter selects how the total of a page-numbered listing is obtained:
+ * {@value #COUNT_EXACT} (the default) counts it, {@value #COUNT_ESTIMATED} estimates it from the database statistics,
+ * and {@value #COUNT_NONE} does not get it at all: the response then has no {@code X-Total-Count} header, and its
+ * {@code Link} header has no last page.
+ */
+public final class SlicePaginationUtil {
+
+    public static final String COUNT_PARAMETER = "count";
+
+    public static final String COUNT_EXACT = "exact";
+
+    public static final String COUNT_ESTIMATED = "estimated";
+
+    public static final String COUNT_NONE = "none";
+
+    private SlicePaginationUtil() {}
+
+    /**
+     * @param count the {@code count} request parameter.
+     * @return whether the parameter is one of the supported values.
+     */
+    public static boolean isValidCount(String count) {
+        return COUNT_EXACT.equals(count) || COUNT_ESTIMATED.equals(count) || COUNT_NONE.equals(count);
+    }
+
+    /**
+     * Generate the {@code Link} header of a slice, with its first, previous and next pages.
+     *
+     * @param uriBuilder the builder of the current request URI.
+     * @param slice the slice.
+     * @param <T> the type of the content.
+     * @return the HTTP headers.
+     */
+    public static <T> HttpHeaders generateSliceHttpHeaders(UriComponentsBuilder uriBuilder, Slice<T> slice) {
+        List<String> links = new ArrayList<>();
+        if (slice.hasNext()) {
+            links.add(link(uriBuilder, slice.getNumber() + 1, slice.getSize(), "next"));
+        }
+        if (slice.hasPrevious()) {
+            links.add(link(uriBuilder, slice.getNumber() - 1, slice.getSize(), "prev"));
+        }
+        links.add(link(uriBuilder, 0, slice.getSize(), "first"));
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.LINK, String.join(",", links));
+        return headers;
+    }
+
+    private static String link(UriComponentsBuilder uriBuilder, int pageNumber, int pageSize, String relType) {
+        return (
+            "<" +
+            uriBuilder.replaceQueryParam("page", pageNumber).replaceQueryParam("size", pageSize).toUriString() +
+            ">; rel=\"" +
+            relType +
+            "\""
+        );
+    }
+}
@@ -0,0 +1,119 @@
+package com.mbeliakov.snippeter.web.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.mbeliakov.snippeter.service.dto.AdminUserDTO;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Writes the users of an export one line at a time: as NDJSON, an {@link AdminUserDTO} per line, or as CSV, after
+ * a header line naming {@link #CSV_COLUMNS}, with the authorities of a user separated by spaces.
+ * <p>
+ * The CSV values that a spreadsheet would take for a formula are quoted and prefixed with {@code '}, which
+ * {@link UserImportReader} strips again, so that an export can be imported back.
+ */
+final class UserExportWriter {
+
+    static final List<String> CSV_COLUMNS = List.of(
+        "id",
+        "login",
+        "firstName",
+        "lastName",
+        "email",
+        "imageUrl",
+        "activated",
+        "langKey",
+        "createdBy",
+        "createdDate",
+        "lastModifiedBy",
+        "lastModifiedDate",
+        "authorities"
+    );
+
+    private final Writer writer;
+
+    private final ObjectWriter jsonWriter;
+
+    private UserExportWriter(Writer writer, ObjectWriter jsonWriter) {
+        this.writer = writer;
+        this.jsonWriter = jsonWriter;
+    }
+
+    static UserExportWriter ndjson(Writer writer, ObjectMapper objectMapper) {
+        return new UserExportWriter(writer, objectMapper.writerFor(AdminUserDTO.class));
+    }
+
+    static UserExportWriter csv(Writer writer) throws IOException {
+        writer.write(formatCsvLine(CSV_COLUMNS));
+        return new UserExportWriter(writer, null);
+    }
+
+    void write(AdminUserDTO user) throws IOException {
+        if (jsonWriter != null) {
+            writer.write(jsonWriter.writeValueAsString(user));
+            writer.write('\n');
+            return;
+        }
+        writer.write(
+            formatCsvLine(
+                Arrays.asList(
+                    Objects.toString(user.getId(), ""),
+                    user.getLogin(),
+                    user.getFirstName(),
+                    user.getLastName(),
+                    user.getEmail(),
+                    user.getImageUrl(),
+                    Boolean.toString(user.isActivated()),
+                    user.getLangKey(),
+                    user.getCreatedBy(),
+                    Objects.toString(user.getCreatedDate(), ""),
+                    user.getLastModifiedBy(),
+                    Objects.toString(user.getLastModifiedDate(), ""),
+                    user.getAuthorities() == null ? "" : String.join(" ", user.getAuthorities().stream().sorted().toArray(String[]::new))
+                )
+            )
+        );
+    }
+
+    /**
+     * Join values into a CSV line, as described by RFC 4180: a value is quoted when it holds a comma, a quote or a
+     * line break, and a {@code null} value is empty. A value that {@link #isFormulaEscapeNeeded(String) could be
+     * taken for a formula} is quoted and prefixed with {@code '}.
+     */
+    static String formatCsvLine(List<String> values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            String value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            if (isFormulaEscapeNeeded(value)) {
+                line.append("\"'").append(value.replace("\"", "\"\"")).append('"');
+            } else if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(value);
+            }
+        }
+        return line.append('\n').toString();
+    }
+
+    /**
+     * @return whether the value starts with a character that makes spreadsheets evaluate it as a formula, possibly after
+     * some {@code '}, which are escaped too so that the prefix can be told apart from the value.
+     */
+    static boolean isFormulaEscapeNeeded(String value) {
+        int start = 0;
+        while (start < value.length() && value.charAt(start) == '\'') {
+            start++;
+        }
+        return start < value.length() && "=+-@\t\r".indexOf(value.charAt(start)) >= 0;
+    }
+}
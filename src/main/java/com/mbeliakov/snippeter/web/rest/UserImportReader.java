@@ -0,0 +1,207 @@
+package com.mbeliakov.snippeter.web.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.mbeliakov.snippeter.service.dto.AdminUserDTO;
+import com.mbeliakov.snippeter.service.dto.UserImportRowDTO;
+import com.mbeliakov.snippeter.web.rest.errors.BadRequestAlertException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the rows of a user import one line at a time, so that the body is never held in memory as a whole, and a
+ * line that cannot be read only fails its own row. Blank lines are skipped.
+ * <p>
+ * An NDJSON body holds an {@link AdminUserDTO} per line. A CSV body starts with a header line naming its columns
+ * among {@link #CSV_COLUMNS}, and has a user per record; the authorities of a user are separated by spaces. The
+ * other columns of {@link UserExportWriter#CSV_COLUMNS}, such as the id or the audit dates, may be named as well, and
+ * their values are skipped. A quoted
+ * value may span up to {@value #MAX_CSV_RECORD_LINES} lines, and the {@code '} that {@link UserExportWriter} prefixes
+ * to the values that could be taken for a formula is stripped, so that an export can be imported back.
+ */
+final class UserImportReader implements Iterator<UserImportRowDTO> {
+
+    static final List<String> CSV_COLUMNS = List.of("login", "firstName", "lastName", "email", "imageUrl", "langKey", "authorities");
+
+    static final int MAX_CSV_RECORD_LINES = 100;
+
+    private static final String AUTHORITIES_COLUMN = "authorities";
+
+    private final BufferedReader reader;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectReader userReader;
+
+    private final List<String> columns;
+
+    private long lineNumber;
+
+    private long rowNumber;
+
+    private String nextLine;
+
+    private long nextLineNumber;
+
+    private UserImportReader(BufferedReader reader, ObjectMapper objectMapper, List<String> columns, long lineNumber) {
+        this.reader = reader;
+        this.objectMapper = objectMapper;
+        this.userReader = objectMapper.readerFor(AdminUserDTO.class);
+        this.columns = columns;
+        this.lineNumber = lineNumber;
+    }
+
+    static UserImportReader ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+        return new UserImportReader(reader, objectMapper, null, 0);
+    }
+
+    static UserImportReader csv(BufferedReader reader, ObjectMapper objectMapper) throws IOException {
+        String header = reader.readLine();
+        List<String> columns;
+        try {
+            columns = header == null ? List.of() : parseCsvLine(header);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid CSV header: " + e.getMessage(), "userManagement", "importheader");
+        }
+        if (!columns.contains("login") || !columns.stream().allMatch(UserImportReader::isKnownCsvColumn)) {
+            throw new BadRequestAlertException(
+                "The CSV header must name a login column, and only columns among " + CSV_COLUMNS + " or " + UserExportWriter.CSV_COLUMNS,
+                "userManagement",
+                "importheader"
+            );
+        }
+        return new UserImportReader(reader, objectMapper, columns, 1);
+    }
+
+    private static boolean isKnownCsvColumn(String column) {
+        return CSV_COLUMNS.contains(column) || UserExportWriter.CSV_COLUMNS.contains(column);
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (nextLine == null) {
+                String line = reader.readLine();
+                if (line == null) {
+                    return false;
+                }
+                lineNumber++;
+                if (!line.isBlank()) {
+                    nextLineNumber = lineNumber;
+                    nextLine = columns == null ? line : readCsvRecord(line);
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Read the lines following the first line of a CSV record until its quoted values are all terminated, or too
+     * many lines were read, the record then failing as unterminated.
+     */
+    private String readCsvRecord(String firstLine) throws IOException {
+        StringBuilder record = new StringBuilder(firstLine);
+        for (int lines = 1; lines < MAX_CSV_RECORD_LINES && !parseCsvRecord(record, new ArrayList<>()); lines++) {
+            String line = reader.readLine();
+            if (line == null) {
+                break;
+            }
+            lineNumber++;
+            record.append('\n').append(line);
+        }
+        return record.toString();
+    }
+
+    @Override
+    public UserImportRowDTO next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String line = nextLine;
+        nextLine = null;
+        rowNumber++;
+        try {
+            return UserImportRowDTO.of(rowNumber, columns == null ? userReader.readValue(line) : readCsvUser(line));
+        } catch (JsonProcessingException e) {
+            return UserImportRowDTO.unreadable(rowNumber, "Line " + nextLineNumber + ": " + e.getOriginalMessage());
+        } catch (IllegalArgumentException e) {
+            return UserImportRowDTO.unreadable(rowNumber, "Line " + nextLineNumber + ": " + e.getMessage());
+        }
+    }
+
+    private AdminUserDTO readCsvUser(String line) {
+        List<String> values = parseCsvLine(line);
+        if (values.size() != columns.size()) {
+            throw new IllegalArgumentException("expected " + columns.size() + " values, found " + values.size());
+        }
+        Map<String, Object> properties = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            String value = values.get(i);
+            if (value.isEmpty() || !CSV_COLUMNS.contains(columns.get(i))) {
+                continue;
+            }
+            properties.put(columns.get(i), AUTHORITIES_COLUMN.equals(columns.get(i)) ? Arrays.asList(value.trim().split("\\s+")) : value);
+        }
+        return objectMapper.convertValue(properties, AdminUserDTO.class);
+    }
+
+    /**
+     * Split a CSV record into its values, as described by RFC 4180, stripping the {@code '} prefixed by
+     * {@link UserExportWriter} to the quoted values that could be taken for a formula.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        if (!parseCsvRecord(line, values)) {
+            throw new IllegalArgumentException("unterminated quoted value");
+        }
+        return values;
+    }
+
+    /**
+     * @return {@code false} if the record ends within a quoted value.
+     */
+    private static boolean parseCsvRecord(CharSequence record, List<String> values) {
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == ',') {
+                values.add(unescape(value.toString(), wasQuoted));
+                value.setLength(0);
+                wasQuoted = false;
+            } else if (c == '"' && value.length() == 0) {
+                quoted = true;
+                wasQuoted = true;
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(unescape(value.toString(), wasQuoted));
+        return !quoted;
+    }
+
+    private static String unescape(String value, boolean quoted) {
+        return quoted && value.startsWith("'") && UserExportWriter.isFormulaEscapeNeeded(value.substring(1)) ? value.substring(1) : value;
+    }
+}
@@ -1,13 +1,20 @@
 package com.mbeliakov.snippeter.web.rest;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.mbeliakov.snippeter.config.ApplicationProperties;
+import com.mbeliakov.snippeter.security.LoginMetrics;
 import com.mbeliakov.snippeter.security.jwt.JWTFilter;
+import com.mbeliakov.snippeter.security.jwt.TokenDenylist;
 import com.mbeliakov.snippeter.security.jwt.TokenProvider;
+import com.mbeliakov.snippeter.service.RefreshTokenService;
 import com.mbeliakov.snippeter.web.rest.vm.LoginVM;
+import com.mbeliakov.snippeter.web.rest.vm.RefreshTokenVM;
 import javax.validation.Valid;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.core.Authentication;
@@ -25,9 +32,28 @@ public class UserJWTController {
 
     private final AuthenticationManagerBuilder authenticationManagerBuilder;
 
-    public UserJWTController(TokenProvider tokenProvider, AuthenticationManagerBuilder authenticationManagerBuilder) {
+    private final RefreshTokenService refreshTokenService;
+
+    private final TokenDenylist tokenDenylist;
+
+    private final LoginMetrics loginMetrics;
+
+    private final ApplicationProperties.Security.RefreshToken refreshTokenProperties;
+
+    public UserJWTController(
+        TokenProvider tokenProvider,
+        AuthenticationManagerBuilder authenticationManagerBuilder,
+        RefreshTokenService refreshTokenService,
+        TokenDenylist tokenDenylist,
+        LoginMetrics loginMetrics,
+        ApplicationProperties applicationProperties
+    ) {
         this.tokenProvider = tokenProvider;
         this.authenticationManagerBuilder = authenticationManagerBuilder;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenDenylist = tokenDenylist;
+        this.loginMetrics = loginMetrics;
+        this.refreshTokenProperties = applicationProperties.getSecurity().getRefreshToken();
     }
 
     @PostMapping("/authenticate")
@@ -39,10 +65,62 @@ public class UserJWTController {
 
         Authentication authentication = authenticationManagerBuilder.getObject().authenticate(authenticationToken);
         SecurityContextHolder.getContext().setAuthentication(authentication);
-        String jwt = tokenProvider.createToken(authentication, loginVM.isRememberMe());
+        if (!refreshTokenProperties.isEnabled()) {
+            String jwt = loginMetrics.tokenSigning().record(() -> tokenProvider.createToken(authentication, loginVM.isRememberMe()));
+            return toResponse(jwt, null);
+        }
+        String refreshToken = refreshTokenService.createRefreshToken(authentication.getName(), loginVM.isRememberMe());
+        return toResponse(createAccessToken(authentication), refreshToken);
+    }
+
+    /**
+     * {@code POST  /authenticate/refresh} : trade a refresh token for a new access token.
+     *
+     * @param refreshTokenVM the refresh token issued by {@code /authenticate}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the new access token.
+     * @throws BadCredentialsException {@code 401 (Unauthorized)} if the refresh token is unknown or expired.
+     */
+    @PostMapping("/authenticate/refresh")
+    public ResponseEntity<JWTToken> refresh(@Valid @RequestBody RefreshTokenVM refreshTokenVM) {
+        if (!refreshTokenProperties.isEnabled()) {
+            throw new BadCredentialsException("Refresh tokens are disabled");
+        }
+        Authentication authentication = refreshTokenService
+            .getAuthentication(refreshTokenVM.getRefreshToken())
+            .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+        return toResponse(createAccessToken(authentication), refreshTokenVM.getRefreshToken());
+    }
+
+    /**
+     * {@code POST  /logout} : revoke the access token of the request, and the given refresh token if any.
+     *
+     * @param refreshTokenVM the refresh token to revoke along with the access token.
+     * @return the {@link ResponseEntity} with status {@code 204 (No Content)}.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestBody(required = false) RefreshTokenVM refreshTokenVM) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getCredentials() instanceof String) {
+            tokenProvider
+                .parseClaims((String) authentication.getCredentials())
+                .filter(claims -> claims.getId() != null)
+                .ifPresent(claims -> tokenDenylist.revoke(claims.getId(), claims.getExpiration()));
+        }
+        if (refreshTokenVM != null && refreshTokenVM.getRefreshToken() != null) {
+            refreshTokenService.revokeRefreshToken(refreshTokenVM.getRefreshToken());
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private String createAccessToken(Authentication authentication) {
+        long validityInMilliseconds = 1000 * refreshTokenProperties.getAccessTokenValidityInSeconds();
+        return loginMetrics.tokenSigning().record(() -> tokenProvider.createToken(authentication, validityInMilliseconds));
+    }
+
+    private static ResponseEntity<JWTToken> toResponse(String jwt, String refreshToken) {
         HttpHeaders httpHeaders = new HttpHeaders();
         httpHeaders.add(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + jwt);
-        return new ResponseEntity<>(new JWTToken(jwt), httpHeaders, HttpStatus.OK);
+        return new ResponseEntity<>(new JWTToken(jwt, refreshToken), httpHeaders, HttpStatus.OK);
     }
 
     /**
@@ -52,8 +130,11 @@ public class UserJWTController {
 
         private String idToken;
 
-        JWTToken(String idToken) {
+        private String refreshToken;
+
+        JWTToken(String idToken, String refreshToken) {
             this.idToken = idToken;
+            this.refreshToken = refreshToken;
         }
 
         @JsonProperty("id_token")
@@ -64,5 +145,15 @@ public class UserJWTController {
         void setIdToken(String idToken) {
             this.idToken = idToken;
         }
+
+        @JsonProperty("refresh_token")
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        String getRefreshToken() {
+            return refreshToken;
+        }
+
+        void setRefreshToken(String refreshToken) {
+            this.refreshToken = refreshToken;
+        }
     }
 }
@@ -1,19 +1,36 @@
 package com.mbeliakov.snippeter.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mbeliakov.snippeter.config.Constants;
 import com.mbeliakov.snippeter.domain.User;
+import com.mbeliakov.snippeter.repository.Keyset;
+import com.mbeliakov.snippeter.repository.KeysetPage;
 import com.mbeliakov.snippeter.repository.UserRepository;
 import com.mbeliakov.snippeter.security.AuthoritiesConstants;
 import com.mbeliakov.snippeter.service.MailService;
+import com.mbeliakov.snippeter.service.UserImportService;
 import com.mbeliakov.snippeter.service.UserService;
 import com.mbeliakov.snippeter.service.dto.AdminUserDTO;
+import com.mbeliakov.snippeter.service.dto.UserImportSummaryDTO;
 import com.mbeliakov.snippeter.web.rest.errors.BadRequestAlertException;
 import com.mbeliakov.snippeter.web.rest.errors.EmailAlreadyUsedException;
 import com.mbeliakov.snippeter.web.rest.errors.LoginAlreadyUsedException;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.Collections;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Pattern;
 import org.slf4j.Logger;
@@ -21,9 +38,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -60,6 +80,8 @@ import tech.jhipster.web.util.ResponseUtil;
 @RequestMapping("/api/admin")
 public class UserResource {
 
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
     private static final List<String> ALLOWED_ORDERED_PROPERTIES = Collections.unmodifiableList(
         Arrays.asList("id", "login", "firstName", "lastName", "email", "activated", "langKey")
     );
@@ -75,10 +97,22 @@ public class UserResource {
 
     private final MailService mailService;
 
-    public UserResource(UserService userService, UserRepository userRepository, MailService mailService) {
+    private final UserImportService userImportService;
+
+    private final ObjectMapper objectMapper;
+
+    public UserResource(
+        UserService userService,
+        UserRepository userRepository,
+        MailService mailService,
+        UserImportService userImportService,
+        ObjectMapper objectMapper
+    ) {
         this.userService = userService;
         this.userRepository = userRepository;
         this.mailService = mailService;
+        this.userImportService = userImportService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -115,6 +149,108 @@ public class UserResource {
         }
     }
 
+    /**
+     * {@code POST  /admin/users/import}  : Imports users in bulk.
+     * <p>
+     * The body is read as it arrives, either as NDJSON, with a user per line, or as CSV, with a header line naming
+     * the columns among {@code login}, {@code firstName}, {@code lastName}, {@code email}, {@code imageUrl},
+     * {@code langKey} and {@code authorities}, the other columns of a CSV export being skipped, so that an export can
+     * be imported as is. Every user is created and sent a creation email like with
+     * {@link #createUser(AdminUserDTO)}, and a row that fails does not stop the import.
+     * <p>
+     * The response is NDJSON: an error for each row that is not imported, as soon as it is known, then a summary
+     * with the numbers of imported and failed rows.
+     *
+     * @param contentType the content type of the body, {@code application/x-ndjson} or {@code text/csv}.
+     * @param body the body.
+     * @param response the response, written as the import goes.
+     * @throws IOException if the body cannot be read or the response cannot be written.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the header of a CSV body is not valid.
+     */
+    @PostMapping(path = "/users/import", consumes = { MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE })
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public void importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream body, HttpServletResponse response)
+        throws IOException {
+        log.debug("REST request to import Users as {}", contentType);
+        Charset charset = contentType.getCharset() == null ? StandardCharsets.UTF_8 : contentType.getCharset();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, charset));
+        UserImportReader rows = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+            ? UserImportReader.ndjson(reader, objectMapper)
+            : UserImportReader.csv(reader, objectMapper);
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        OutputStream output = response.getOutputStream();
+        UserImportSummaryDTO summary = userImportService.importUsers(
+            rows,
+            error -> {
+                try {
+                    writeLine(output, error);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        );
+        writeLine(output, summary);
+    }
+
+    private void writeLine(OutputStream output, Object value) throws IOException {
+        output.write(objectMapper.writeValueAsBytes(value));
+        output.write('\n');
+        // the client gets each line as soon as it is known
+        output.flush();
+    }
+
+    /**
+     * {@code GET /admin/users/export} : Exports all users, with their authorities, as NDJSON.
+     *
+     * @param response the response, written as the users are read.
+     * @throws IOException if the response cannot be written.
+     */
+    @GetMapping(path = "/users/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public void exportUsersAsNdjson(HttpServletResponse response) throws IOException {
+        log.debug("REST request to export Users as NDJSON");
+        Writer writer = startExport(response, MediaType.APPLICATION_NDJSON_VALUE, "users.ndjson");
+        exportUsers(writer, UserExportWriter.ndjson(writer, objectMapper));
+    }
+
+    /**
+     * {@code GET /admin/users/export} : Exports all users, with their authorities, as CSV.
+     * <p>
+     * The values that a spreadsheet would take for a formula, starting with {@code =}, {@code +}, {@code -}, {@code @},
+     * a tab or a carriage return, are quoted and prefixed with {@code '}. The export can be imported back as is.
+     *
+     * @param response the response, written as the users are read.
+     * @throws IOException if the response cannot be written.
+     */
+    @GetMapping(path = "/users/export", produces = TEXT_CSV_VALUE)
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public void exportUsersAsCsv(HttpServletResponse response) throws IOException {
+        log.debug("REST request to export Users as CSV");
+        Writer writer = startExport(response, TEXT_CSV_VALUE, "users.csv");
+        exportUsers(writer, UserExportWriter.csv(writer));
+    }
+
+    private static Writer startExport(HttpServletResponse response, String contentType, String filename) throws IOException {
+        response.setContentType(contentType);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString());
+        return new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    private void exportUsers(Writer writer, UserExportWriter exportWriter) throws IOException {
+        userService.exportUsers(
+            user -> {
+                try {
+                    exportWriter.write(user);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        );
+        writer.flush();
+    }
+
     /**
      * {@code PUT /admin/users} : Updates an existing User.
      *
@@ -147,17 +283,44 @@ public class UserResource {
      * {@code GET /admin/users} : get all users with all the details - calling this are only allowed for the administrators.
      *
      * @param pageable the pagination information.
+     * @param cursor the cursor of the requested page, empty for the first page, or {@code null} to paginate by page number.
+     * @param count how to get the total when paginating by page number: see {@link SlicePaginationUtil}.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users.
      */
     @GetMapping("/users")
     @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
-    public ResponseEntity<List<AdminUserDTO>> getAllUsers(Pageable pageable) {
+    public ResponseEntity<List<AdminUserDTO>> getAllUsers(
+        Pageable pageable,
+        @RequestParam(name = CursorPaginationUtil.CURSOR_PARAMETER, required = false) String cursor,
+        @RequestParam(name = SlicePaginationUtil.COUNT_PARAMETER, defaultValue = SlicePaginationUtil.COUNT_EXACT) String count
+    ) {
         log.debug("REST request to get all User for an admin");
-        if (!onlyContainsAllowedProperties(pageable)) {
+        if (!onlyContainsAllowedProperties(pageable) || !SlicePaginationUtil.isValidCount(count)) {
             return ResponseEntity.badRequest().build();
         }
+        if (cursor != null) {
+            Optional<Keyset> keyset = CursorPaginationUtil.getKeyset(cursor, pageable, User.class, ALLOWED_ORDERED_PROPERTIES);
+            if (!keyset.isPresent()) {
+                return ResponseEntity.badRequest().build();
+            }
+            KeysetPage<AdminUserDTO> page = userService.getAllManagedUsers(keyset.get(), pageable.getPageSize());
+            HttpHeaders headers = CursorPaginationUtil.generateCursorPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                page,
+                keyset.get().getOrder()
+            );
+            return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+        }
+
+        if (SlicePaginationUtil.COUNT_NONE.equals(count)) {
+            Slice<AdminUserDTO> slice = userService.getAllManagedUsersSlice(pageable);
+            HttpHeaders headers = SlicePaginationUtil.generateSliceHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
 
-        final Page<AdminUserDTO> page = userService.getAllManagedUsers(pageable);
+        final Page<AdminUserDTO> page = SlicePaginationUtil.COUNT_ESTIMATED.equals(count)
+            ? userService.getAllManagedUsersWithEstimatedCount(pageable)
+            : userService.getAllManagedUsers(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
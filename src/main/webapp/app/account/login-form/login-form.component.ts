@@ -25,12 +25,16 @@ export default class LoginForm extends Vue {
         const bearerToken = result.headers.authorization;
         if (bearerToken && bearerToken.slice(0, 7) === 'Bearer ') {
           const jwt = bearerToken.slice(7, bearerToken.length);
-          if (this.rememberMe) {
-            localStorage.setItem('jhi-authenticationToken', jwt);
-            sessionStorage.removeItem('jhi-authenticationToken');
+          const refreshToken = result.data && result.data.refresh_token;
+          const storage = this.rememberMe ? localStorage : sessionStorage;
+          const otherStorage = this.rememberMe ? sessionStorage : localStorage;
+          storage.setItem('jhi-authenticationToken', jwt);
+          otherStorage.removeItem('jhi-authenticationToken');
+          otherStorage.removeItem('jhi-refreshToken');
+          if (refreshToken) {
+            storage.setItem('jhi-refreshToken', refreshToken);
           } else {
-            sessionStorage.setItem('jhi-authenticationToken', jwt);
-            localStorage.removeItem('jhi-authenticationToken');
+            storage.removeItem('jhi-refreshToken');
           }
         }
         this.authenticationError = false;
@@ -1,23 +1,23 @@
-import { Component, Inject, Vue } from 'vue-property-decorator';
+import { Component, Inject } from 'vue-property-decorator';
 import { mixins } from 'vue-class-component';
 import Vue2Filters from 'vue2-filters';
+import JhiDataUtils from '@/shared/data/data-utils.service';
 import UserManagementService from './user-management.service';
 
 @Component({
   mixins: [Vue2Filters.mixin],
 })
-export default class JhiUserManagementComponent extends Vue {
+export default class JhiUserManagementComponent extends mixins(JhiDataUtils) {
   @Inject('userService') private userManagementService: () => UserManagementService;
   public error = '';
   public success = '';
   public users: any[] = [];
   public itemsPerPage = 20;
-  public queryCount: number = null;
   public page = 1;
-  public previousPage = 1;
+  public links: any = {};
+  public infiniteId = +new Date();
   public propOrder = 'id';
   public reverse = false;
-  public totalItems = 0;
   public isLoading = false;
   public removeId: number = null;
 
@@ -32,7 +32,7 @@ export default class JhiUserManagementComponent extends Vue {
       .then(() => {
         this.error = null;
         this.success = 'OK';
-        this.loadAll();
+        this.reset();
       })
       .catch(() => {
         this.success = null;
@@ -44,27 +44,45 @@ export default class JhiUserManagementComponent extends Vue {
   public loadAll(): void {
     this.isLoading = true;
 
+    // pages are appended while scrolling, so the total is never counted
     this.userManagementService()
       .retrieve({
         page: this.page - 1,
         size: this.itemsPerPage,
         sort: this.sort(),
+        count: 'none',
       })
       .then(res => {
         this.isLoading = false;
-        this.users = res.data;
-        this.totalItems = Number(res.headers['x-total-count']);
-        this.queryCount = this.totalItems;
+        if (res.data && res.data.length > 0) {
+          for (let i = 0; i < res.data.length; i++) {
+            this.users.push(res.data[i]);
+          }
+        }
+        this.links = res.headers && res.headers['link'] ? this.parseLinks(res.headers['link']) : {};
+        if (<any>this.$refs.infiniteLoading) {
+          (<any>this.$refs.infiniteLoading).stateChanger.loaded();
+          if (this.links['next'] === undefined) {
+            (<any>this.$refs.infiniteLoading).stateChanger.complete();
+          }
+        }
       })
       .catch(() => {
         this.isLoading = false;
       });
   }
 
-  public handleSyncList(): void {
+  public reset(): void {
+    this.page = 1;
+    this.infiniteId += 1;
+    this.users = [];
     this.loadAll();
   }
 
+  public handleSyncList(): void {
+    this.reset();
+  }
+
   public sort(): any {
     const result = [this.propOrder + ',' + (this.reverse ? 'desc' : 'asc')];
     if (this.propOrder !== 'id') {
@@ -73,21 +91,17 @@ export default class JhiUserManagementComponent extends Vue {
     return result;
   }
 
-  public loadPage(page: number): void {
-    if (page !== this.previousPage) {
-      this.previousPage = page;
-      this.transition();
+  public loadMore(): void {
+    if (!this.isLoading && this.links['next'] !== undefined) {
+      this.page++;
+      this.loadAll();
     }
   }
 
-  public transition(): void {
-    this.loadAll();
-  }
-
   public changeOrder(propOrder: string): void {
     this.propOrder = propOrder;
     this.reverse = !this.reverse;
-    this.transition();
+    this.reset();
   }
 
   public deleteUser(): void {
@@ -105,7 +119,7 @@ export default class JhiUserManagementComponent extends Vue {
           autoHideDelay: 5000,
         });
         this.removeId = null;
-        this.loadAll();
+        this.reset();
         this.closeDialog();
       });
   }
@@ -19,7 +19,8 @@ export default class UserManagementService {
   }
 
   public retrieve(req?: any): Promise<any> {
-    return axios.get(`api/admin/users?${buildPaginationQueryOpts(req)}`);
+    const count = req && req.count ? `&count=${req.count}` : '';
+    return axios.get(`api/admin/users?${buildPaginationQueryOpts(req)}${count}`);
   }
 
   public retrieveAuthorities(): Promise<any> {
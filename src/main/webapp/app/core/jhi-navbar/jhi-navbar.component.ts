@@ -1,3 +1,4 @@
+import axios from 'axios';
 import { Component, Inject, Vue } from 'vue-property-decorator';
 import { VERSION } from '@/constants';
 import LoginService from '@/account/login.service';
@@ -36,8 +37,16 @@ export default class JhiNavbar extends Vue {
   }
 
   public logout(): void {
+    const token = localStorage.getItem('jhi-authenticationToken') || sessionStorage.getItem('jhi-authenticationToken');
+    const refreshToken = localStorage.getItem('jhi-refreshToken') || sessionStorage.getItem('jhi-refreshToken');
+    if (token) {
+      // Revoke the tokens server side, without waiting for it
+      axios.post('api/logout', refreshToken ? { refreshToken } : null, { headers: { Authorization: `Bearer ${token}` } }).catch(() => {});
+    }
     localStorage.removeItem('jhi-authenticationToken');
     sessionStorage.removeItem('jhi-authenticationToken');
+    localStorage.removeItem('jhi-refreshToken');
+    sessionStorage.removeItem('jhi-refreshToken');
     this.$store.commit('logout');
     this.$router.push('/', () => {});
   }
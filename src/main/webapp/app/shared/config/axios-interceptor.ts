@@ -3,6 +3,7 @@ import axios from 'axios';
 import { SERVER_API_URL } from '@/constants';
 
 const TIMEOUT = 1000000;
+const REFRESH_URL = 'api/authenticate/refresh';
 const onRequestSuccess = config => {
   const token = localStorage.getItem('jhi-authenticationToken') || sessionStorage.getItem('jhi-authenticationToken');
   if (token) {
@@ -15,9 +16,48 @@ const onRequestSuccess = config => {
   config.url = `${SERVER_API_URL}${config.url}`;
   return config;
 };
+
+// Concurrent requests failing with a 401 share a single refresh call
+let pendingRefresh: Promise<boolean> = null;
+const refreshAccessToken = (): Promise<boolean> => {
+  const storage = localStorage.getItem('jhi-refreshToken') ? localStorage : sessionStorage;
+  const refreshToken = storage.getItem('jhi-refreshToken');
+  if (!refreshToken) {
+    return Promise.resolve(false);
+  }
+  if (!pendingRefresh) {
+    pendingRefresh = axios
+      .post(REFRESH_URL, { refreshToken })
+      .then(res => {
+        pendingRefresh = null;
+        storage.setItem('jhi-authenticationToken', res.data.id_token);
+        return true;
+      })
+      .catch(() => {
+        pendingRefresh = null;
+        storage.removeItem('jhi-refreshToken');
+        return false;
+      });
+  }
+  return pendingRefresh;
+};
+
 const setupAxiosInterceptors = onUnauthenticated => {
   const onResponseError = err => {
     const status = err.status || err.response.status;
+    const config = err.config;
+    const isAuthenticationCall = config && (config.url.endsWith('api/authenticate') || config.url.endsWith(REFRESH_URL));
+    if (status === 401 && config && !config._retry && !isAuthenticationCall) {
+      config._retry = true;
+      return refreshAccessToken().then(refreshed => {
+        if (refreshed) {
+          config.url = config.url.slice(SERVER_API_URL.length);
+          return axios.request(config);
+        }
+        onUnauthenticated();
+        return Promise.reject(err);
+      });
+    }
     if (status === 403 || status === 401) {
       onUnauthenticated();
     }
@@ -0,0 +1,78 @@
+package com.mbeliakov.snippeter.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mbeliakov.snippeter.IntegrationTest;
+import com.mbeliakov.snippeter.domain.Authority;
+import com.mbeliakov.snippeter.domain.User;
+import com.mbeliakov.snippeter.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the Hibernate second-level cache set up by {@link CacheConfiguration}.
+ */
+@IntegrationTest
+class CacheConfigurationIT {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testRegionsAreCreatedAndMonitored() {
+        assertThat(cacheManager.getCacheNames())
+            .contains(User.class.getName(), Authority.class.getName(), CacheConfiguration.USER_AUTHORITIES_REGION);
+        assertThat(meterRegistry.find("cache.gets").tag("cache", User.class.getName()).meters()).isNotEmpty();
+    }
+
+    @Test
+    void testUserAndAuthoritiesAreCachedOnceLoaded() {
+        org.hibernate.Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictAllRegions();
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        Long id = transactionTemplate.execute(
+            status -> {
+                User admin = userRepository.findOneByLogin("admin").orElseThrow(IllegalStateException::new);
+                assertThat(admin.getAuthorities()).isNotEmpty();
+                return admin.getId();
+            }
+        );
+
+        assertThat(cache.containsEntity(User.class, id)).isTrue();
+        assertThat(cache.containsCollection(CacheConfiguration.USER_AUTHORITIES_REGION, id)).isTrue();
+    }
+
+    @Test
+    void testClearRegions() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        Long id = transactionTemplate.execute(
+            status -> userRepository.findOneByLogin("admin").map(User::getId).orElseThrow(IllegalStateException::new)
+        );
+        assertThat(entityManagerFactory.unwrap(SessionFactory.class).getCache().containsEntity(User.class, id)).isTrue();
+
+        CacheConfiguration.clearRegions(cacheManager);
+
+        assertThat(entityManagerFactory.unwrap(SessionFactory.class).getCache().containsEntity(User.class, id)).isFalse();
+    }
+}
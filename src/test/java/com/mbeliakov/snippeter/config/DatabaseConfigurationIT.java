@@ -0,0 +1,91 @@
+package com.mbeliakov.snippeter.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mbeliakov.snippeter.IntegrationTest;
+import com.mbeliakov.snippeter.repository.UserRepository;
+import com.mbeliakov.snippeter.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.sql.DataSource;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the routing data source of {@link DatabaseConfiguration}, with the test database as its own
+ * replica.
+ */
+@IntegrationTest
+@TestPropertySource(properties = "application.database.replicas[0].url=jdbc:h2:mem:snippeter;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+class DatabaseConfigurationIT {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SpringLiquibase liquibase;
+
+    @Test
+    void dataSourceRoutesReadOnlyTransactions() {
+        assertThat(dataSource).isInstanceOf(RoutingDataSource.class);
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        double primaryConnections = connections("Hikari");
+        double replicaConnections = connections("Hikari-replica-1");
+
+        assertThat(userService.getAllManagedUsers(PageRequest.of(0, 10))).isNotEmpty();
+
+        assertThat(connections("Hikari-replica-1")).isEqualTo(replicaConnections + 1);
+        assertThat(connections("Hikari")).isEqualTo(primaryConnections);
+    }
+
+    @Test
+    void readWriteTransactionsUseThePrimary() {
+        double primaryConnections = connections("Hikari");
+        double replicaConnections = connections("Hikari-replica-1");
+
+        Long count = new TransactionTemplate(transactionManager).execute(status -> userRepository.count());
+
+        assertThat(count).isPositive();
+        assertThat(connections("Hikari")).isEqualTo(primaryConnections + 1);
+        assertThat(connections("Hikari-replica-1")).isEqualTo(replicaConnections);
+    }
+
+    @Test
+    void batchWorkUsesTheBatchPool() {
+        double primaryConnections = connections("Hikari");
+        double batchConnections = connections("Hikari-batch");
+
+        userService.removeNotActivatedUsers();
+
+        assertThat(connections("Hikari-batch")).isGreaterThan(batchConnections);
+        assertThat(connections("Hikari")).isEqualTo(primaryConnections);
+    }
+
+    @Test
+    void databaseMigrationsUseTheBatchPool() {
+        assertThat(liquibase.getDataSource()).isSameAs(((RoutingDataSource) dataSource).getBatchDataSource());
+    }
+
+    private double connections(String pool) {
+        return meterRegistry.get("datasource.routing.connections").tag("pool", pool).counter().count();
+    }
+}
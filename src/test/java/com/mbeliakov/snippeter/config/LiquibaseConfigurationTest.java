@@ -0,0 +1,70 @@
+package com.mbeliakov.snippeter.config;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+import com.mbeliakov.snippeter.service.AuthorityRegistry;
+import java.util.List;
+import java.util.concurrent.Executor;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+/**
+ * Unit tests for the {@link LiquibaseConfiguration} class.
+ */
+class LiquibaseConfigurationTest {
+
+    private CacheManager cacheManager;
+
+    private Cache<Object, Object> cache;
+
+    private AuthorityRegistry authorityRegistry;
+
+    private Executor evictingExecutor;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        cache = mock(Cache.class);
+        cacheManager = mock(CacheManager.class);
+        when(cacheManager.getCacheNames()).thenReturn(List.of("region"));
+        when(cacheManager.getCache("region")).thenReturn(cache);
+        authorityRegistry = mock(AuthorityRegistry.class);
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("authorityRegistry", authorityRegistry);
+        evictingExecutor =
+            LiquibaseConfiguration.evictingExecutor(Runnable::run, cacheManager, beanFactory.getBeanProvider(AuthorityRegistry.class));
+    }
+
+    @Test
+    void shouldReloadTheAuthoritiesOnceTheMigrationIsDone() {
+        Runnable migration = mock(Runnable.class);
+
+        evictingExecutor.execute(migration);
+
+        InOrder inOrder = inOrder(migration, cache, authorityRegistry);
+        inOrder.verify(migration).run();
+        inOrder.verify(cache).clear();
+        inOrder.verify(authorityRegistry).refresh();
+    }
+
+    @Test
+    void shouldReloadTheAuthoritiesEvenIfTheMigrationFailed() {
+        assertThatThrownBy(
+                () ->
+                    evictingExecutor.execute(
+                        () -> {
+                            throw new IllegalStateException("migration failed");
+                        }
+                    )
+            )
+            .isInstanceOf(IllegalStateException.class);
+
+        verify(cache).clear();
+        verify(authorityRegistry).refresh();
+    }
+}
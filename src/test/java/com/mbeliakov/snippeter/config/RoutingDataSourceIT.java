@@ -0,0 +1,170 @@
+package com.mbeliakov.snippeter.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.mbeliakov.snippeter.aop.batch.BatchWorkAspect;
+import com.mbeliakov.snippeter.aop.routing.PrimaryReadAspect;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link RoutingDataSource}, over a primary, a batch and two replica H2 databases,
+ * each holding its own name.
+ */
+class RoutingDataSourceIT {
+
+    private HikariDataSource primary;
+
+    private HikariDataSource batch;
+
+    private HikariDataSource firstReplica;
+
+    private HikariDataSource secondReplica;
+
+    private MeterRegistry meterRegistry;
+
+    private RoutingDataSource routingDataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate readWriteTransaction;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private double initialPrimaryConnections;
+
+    @BeforeEach
+    void setUp() {
+        primary = createDatabase("primary");
+        batch = createDatabase("batch");
+        firstReplica = createDatabase("replica-1");
+        secondReplica = createDatabase("replica-2");
+        meterRegistry = new SimpleMeterRegistry();
+        routingDataSource =
+            new RoutingDataSource(primary, batch, List.of(firstReplica, secondReplica), Duration.ofMinutes(1), meterRegistry);
+        jdbcTemplate = new JdbcTemplate(routingDataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routingDataSource);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        // the default connection settings are read from the primary once
+        initialPrimaryConnections = connections("primary");
+    }
+
+    @AfterEach
+    void tearDown() {
+        routingDataSource.close();
+    }
+
+    @Test
+    void readWriteTransactionsUseThePrimary() {
+        assertThat(databaseName(readWriteTransaction)).isEqualTo("primary");
+        assertThat(databaseName()).isEqualTo("primary");
+        assertThat(connections("primary")).isEqualTo(initialPrimaryConnections + 2);
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplicasInTurn() {
+        assertThat(databaseName(readOnlyTransaction)).isEqualTo("replica-1");
+        assertThat(databaseName(readOnlyTransaction)).isEqualTo("replica-2");
+        assertThat(databaseName(readOnlyTransaction)).isEqualTo("replica-1");
+        assertThat(connections("replica-1")).isEqualTo(2);
+        assertThat(connections("replica-2")).isEqualTo(1);
+        assertThat(connections("primary")).isEqualTo(initialPrimaryConnections);
+    }
+
+    @Test
+    void readOnlyTransactionsLeaveAsideAReplicaGivingNoConnection() {
+        firstReplica.close();
+
+        assertThat(databaseName(readOnlyTransaction)).isEqualTo("replica-2");
+        assertThat(databaseName(readOnlyTransaction)).isEqualTo("replica-2");
+        assertThat(meterRegistry.get("datasource.routing.failovers").tag("pool", "replica-1").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void readOnlyTransactionsUseThePrimaryWithoutReplicas() {
+        firstReplica.close();
+        secondReplica.close();
+
+        assertThat(databaseName(readOnlyTransaction)).isEqualTo("primary");
+        assertThat(databaseName(readOnlyTransaction)).isEqualTo("primary");
+        assertThat(meterRegistry.get("datasource.routing.failovers").tag("pool", "replica-2").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void batchWorkUsesTheBatchPool() throws Throwable {
+        BatchWorkAspect aspect = new BatchWorkAspect();
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.proceed()).then(invocation -> List.of(databaseName(readWriteTransaction), databaseName(readOnlyTransaction)));
+
+        assertThat(aspect.batchWorkAround(joinPoint)).isEqualTo(List.of("batch", "batch"));
+        assertThat(databaseName()).isEqualTo("primary");
+        assertThat(connections("batch")).isEqualTo(2);
+        assertThat(routingDataSource.getBatchDataSource()).isSameAs(batch);
+    }
+
+    @Test
+    void primaryReadsUseThePrimary() throws Throwable {
+        PrimaryReadAspect aspect = new PrimaryReadAspect();
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.proceed()).then(invocation -> databaseName(readOnlyTransaction));
+
+        assertThat(aspect.primaryReadAround(joinPoint)).isEqualTo("primary");
+        assertThat(databaseName(readOnlyTransaction)).isEqualTo("replica-1");
+        assertThat(connections("primary")).isEqualTo(initialPrimaryConnections + 1);
+    }
+
+    @Test
+    void saturationOfEachPoolIsExported() {
+        double saturation = readWriteTransaction.execute(status -> {
+            databaseName();
+            return meterRegistry.get("datasource.routing.saturation").tag("pool", "primary").gauge().value();
+        });
+
+        assertThat(saturation).isEqualTo(1.0 / primary.getMaximumPoolSize());
+        assertThat(meterRegistry.get("datasource.routing.saturation").tag("pool", "primary").gauge().value()).isZero();
+        assertThat(meterRegistry.get("datasource.routing.saturation").tag("pool", "batch").gauge().value()).isZero();
+    }
+
+    private String databaseName(TransactionTemplate transaction) {
+        return transaction.execute(status -> databaseName());
+    }
+
+    private String databaseName() {
+        return jdbcTemplate.queryForObject("select name from database_name", String.class);
+    }
+
+    private double connections(String pool) {
+        return meterRegistry.get("datasource.routing.connections").tag("pool", pool).counter().count();
+    }
+
+    private static HikariDataSource createDatabase(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setPoolName(name);
+        dataSource.setAutoCommit(false);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource))
+            .executeWithoutResult(
+                status -> {
+                    jdbcTemplate.execute("create table if not exists database_name (name varchar(20))");
+                    jdbcTemplate.execute("delete from database_name");
+                    jdbcTemplate.update("insert into database_name (name) values (?)", name);
+                }
+            );
+        return dataSource;
+    }
+}
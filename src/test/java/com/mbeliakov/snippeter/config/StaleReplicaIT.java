@@ -0,0 +1,113 @@
+package com.mbeliakov.snippeter.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mbeliakov.snippeter.IntegrationTest;
+import com.mbeliakov.snippeter.domain.User;
+import com.mbeliakov.snippeter.repository.UserRepository;
+import com.mbeliakov.snippeter.security.jwt.TokenDenylist;
+import com.mbeliakov.snippeter.service.RefreshTokenService;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.UUID;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the security reads of the routing data source of {@link DatabaseConfiguration}, with a
+ * replica holding a copy of the test database taken before the revocations.
+ */
+@IntegrationTest
+@TestPropertySource(properties = "application.database.replicas[0].url=" + StaleReplicaIT.REPLICA_URL)
+class StaleReplicaIT {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:snippeter-stale-replica;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+
+    private static final String PRIMARY_URL = "jdbc:h2:mem:snippeter;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+
+    private static final String DEFAULT_LOGIN = "stale-replica-user";
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenDenylist tokenDenylist;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    private final String jti = UUID.randomUUID().toString();
+
+    private User user;
+
+    @BeforeEach
+    public void init() {
+        user = new User();
+        user.setLogin(DEFAULT_LOGIN);
+        user.setPassword(RandomStringUtils.random(60));
+        user.setActivated(true);
+        user.setEmail("stale-replica-user@localhost");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> userRepository.saveAndFlush(user));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        primary.update("delete from jhi_refresh_token where user_id = ?", user.getId());
+        primary.update("delete from jhi_revoked_token where jti = ?", jti);
+        primary.update("delete from jhi_user where id = ?", user.getId());
+        replica.execute("drop all objects");
+    }
+
+    @Test
+    void revokedRefreshTokenIsRejected() {
+        String token = refreshTokenService.createRefreshToken(DEFAULT_LOGIN, false);
+        copyPrimaryToReplica();
+
+        refreshTokenService.revokeRefreshToken(token);
+
+        assertThat(countRefreshTokens(replica)).isEqualTo(1);
+        assertThat(countRefreshTokens(primary)).isZero();
+        assertThat(refreshTokenService.getAuthentication(token)).isEmpty();
+    }
+
+    @Test
+    void revokedAccessTokenIsRejected() {
+        copyPrimaryToReplica();
+
+        tokenDenylist.revoke(jti, Date.from(Instant.now().plus(1, ChronoUnit.HOURS)));
+
+        assertThat(replica.queryForObject("select count(*) from jhi_revoked_token where jti = ?", Integer.class, jti)).isZero();
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        Boolean revoked = readOnlyTransaction.execute(status -> tokenDenylist.isRevoked(jti, DEFAULT_LOGIN, new Date()));
+        assertThat(revoked).isTrue();
+    }
+
+    /**
+     * Make the replica a copy of the primary as of now, left behind by the writes that follow.
+     */
+    private void copyPrimaryToReplica() {
+        replica.execute("drop all objects");
+        primary.queryForList("script nopasswords nosettings", String.class).forEach(replica::execute);
+    }
+
+    private int countRefreshTokens(JdbcTemplate database) {
+        return database.queryForObject("select count(*) from jhi_refresh_token where user_id = ?", Integer.class, user.getId());
+    }
+}
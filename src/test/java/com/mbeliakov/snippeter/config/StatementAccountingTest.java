@@ -0,0 +1,85 @@
+package com.mbeliakov.snippeter.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link StatementAccounting}, over an H2 database.
+ */
+class StatementAccountingTest {
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:statement-accounting");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table counted (id int)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        StatementAccounting.stop();
+        connection.close();
+    }
+
+    @Test
+    void statementsAndRowsAreCounted() throws SQLException {
+        StatementAccounting accounting = StatementAccounting.start();
+        Connection accounted = StatementAccounting.account(connection);
+
+        try (PreparedStatement insert = accounted.prepareStatement("insert into counted (id) values (?)")) {
+            for (int id = 1; id <= 3; id++) {
+                insert.setInt(1, id);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        try (Statement select = accounted.createStatement(); ResultSet resultSet = select.executeQuery("select id from counted")) {
+            while (resultSet.next()) {
+                assertThat(resultSet.getInt(1)).isPositive();
+            }
+        }
+
+        assertThat(accounting.getStatements()).isEqualTo(2);
+        assertThat(accounting.getRows()).isEqualTo(6);
+        assertThat(accounting.getNanos()).isPositive();
+    }
+
+    @Test
+    void rowsOfTheResultSetOfAnExecutedStatementAreCounted() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("insert into counted (id) values (1), (2)");
+        }
+        StatementAccounting accounting = StatementAccounting.start();
+        Connection accounted = StatementAccounting.account(connection);
+
+        try (Statement select = accounted.createStatement()) {
+            assertThat(select.execute("select id from counted order by id")).isTrue();
+            try (ResultSet resultSet = select.getResultSet()) {
+                assertThat(resultSet.next()).isTrue();
+                assertThat(resultSet.getInt("id")).isEqualTo(1);
+                assertThat(resultSet.next()).isTrue();
+                assertThat(resultSet.next()).isFalse();
+            }
+        }
+
+        assertThat(accounting.getStatements()).isEqualTo(1);
+        assertThat(accounting.getRows()).isEqualTo(2);
+    }
+
+    @Test
+    void connectionsOutsideAccountingAreLeftAsIs() {
+        assertThat(StatementAccounting.account(connection)).isSameAs(connection);
+    }
+}
@@ -0,0 +1,74 @@
+package com.mbeliakov.snippeter.config.liquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mbeliakov.snippeter.IntegrationTest;
+import java.sql.Connection;
+import javax.sql.DataSource;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the {@link NormalizeUserEmailsChange} Liquibase change.
+ */
+@IntegrationTest
+class NormalizeUserEmailsChangeIT {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void cleanup() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+            status -> jdbcTemplate.update("delete from jhi_user where id >= 900000")
+        );
+    }
+
+    @Test
+    void testEmailsAreNormalized() throws Exception {
+        insertUser(900001, "Mixed.Case@Example.com");
+        insertUser(900002, "taken@example.com");
+        insertUser(900003, "TAKEN@example.com");
+
+        try (Connection connection = dataSource.getConnection()) {
+            Database database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection));
+            NormalizeUserEmailsChange change = new NormalizeUserEmailsChange();
+            change.execute(database);
+            assertThat(change.getConfirmationMessage()).isEqualTo("Normalized the emails of 1 users");
+        }
+
+        assertThat(getEmail(900001)).isEqualTo("mixed.case@example.com");
+        assertThat(getEmail(900002)).isEqualTo("taken@example.com");
+        // left as is rather than breaking the unique constraint
+        assertThat(getEmail(900003)).isEqualTo("TAKEN@example.com");
+    }
+
+    private void insertUser(long id, String email) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+            status ->
+                jdbcTemplate.update(
+                    "insert into jhi_user (id, login, password_hash, email, activated, created_by) values (?, ?, '', ?, true, 'system')",
+                    id,
+                    "normalize-" + id,
+                    email
+                )
+        );
+    }
+
+    private String getEmail(long id) {
+        return jdbcTemplate.queryForObject("select email from jhi_user where id = ?", String.class, id);
+    }
+}
@@ -0,0 +1,114 @@
+package com.mbeliakov.snippeter.domain;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the flush of a persistence context holding {@value #USERS} users, a few of them changed, against an H2
+ * database.
+ * <p>
+ * Run it with {@code ./mvnw clean test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.mbeliakov.snippeter.domain.UserFlushBenchmark} for the entities as enhanced by the build, then
+ * again with {@code -Dhibernate-enhance.phase=none} for plain entities, whose every attribute is compared on flush.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class UserFlushBenchmark {
+
+    private static final int USERS = 1_000;
+
+    @Param({ "0", "1", "10" })
+    private int changedUsers;
+
+    private SessionFactory sessionFactory;
+
+    private Session session;
+
+    private Transaction transaction;
+
+    @Setup(Level.Trial)
+    public void createUsers() {
+        sessionFactory =
+            new Configuration()
+                .addAnnotatedClass(User.class)
+                .addAnnotatedClass(Authority.class)
+                .setProperty(AvailableSettings.URL, "jdbc:h2:mem:user-flush-benchmark;DB_CLOSE_DELAY=-1")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE, "false")
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "25")
+                .buildSessionFactory();
+        try (Session creation = sessionFactory.openSession()) {
+            Transaction creationTransaction = creation.beginTransaction();
+            for (int i = 0; i < USERS; i++) {
+                User user = new User();
+                user.setLogin("user-" + i);
+                user.setPassword("$2a$10$" + "x".repeat(53));
+                user.setEmail("user-" + i + "@localhost");
+                user.setFirstName("first-" + i);
+                user.setLastName("last-" + i);
+                user.setActivated(true);
+                user.setLangKey("en");
+                user.setCreatedBy("system");
+                creation.persist(user);
+            }
+            creationTransaction.commit();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void closeSessionFactory() {
+        sessionFactory.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void loadUsers() {
+        session = sessionFactory.openSession();
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+        transaction = session.beginTransaction();
+        List<User> users = session.createQuery("from User order by id", User.class).getResultList();
+        for (int i = 0; i < changedUsers; i++) {
+            users.get(i).setFirstName("changed-" + System.nanoTime());
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void rollback() {
+        transaction.rollback();
+        session.close();
+    }
+
+    @Benchmark
+    public void flush() {
+        session.flush();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(UserFlushBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,139 @@
+package com.mbeliakov.snippeter.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mbeliakov.snippeter.IntegrationTest;
+import com.mbeliakov.snippeter.domain.User;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link UserRepositoryWithKeysetImpl}, paging deep through every property indexed with the id.
+ */
+@IntegrationTest
+@Transactional
+class UserRepositoryWithKeysetIT {
+
+    private static final int PAGE_SIZE = 3;
+
+    private static final Map<String, Function<User, Comparable<?>>> SORT_PROPERTIES = Map.of(
+        "firstName",
+        User::getFirstName,
+        "lastName",
+        User::getLastName,
+        "activated",
+        User::isActivated,
+        "langKey",
+        User::getLangKey
+    );
+
+    private static final String[] NAMES = { "anna", "bob", null, "anna", "carl", null, "bob", "dora", "anna", null, "erik", "bob" };
+
+    private static final String[] LANG_KEYS = { "en", "fr", null, "en", "de" };
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    public void setup() {
+        for (int i = 0; i < NAMES.length; i++) {
+            User user = new User();
+            user.setLogin("keyset-user-" + i);
+            user.setEmail("keyset-user-" + i + "@example.com");
+            user.setPassword(RandomStringUtils.random(60));
+            user.setFirstName(NAMES[i]);
+            user.setLastName(NAMES[NAMES.length - 1 - i]);
+            user.setLangKey(LANG_KEYS[i % LANG_KEYS.length]);
+            user.setActivated(i % 3 != 0);
+            userRepository.save(user);
+        }
+        userRepository.flush();
+    }
+
+    @Test
+    void pagesForwardThroughEveryIndexedProperty() {
+        for (String property : SORT_PROPERTIES.keySet()) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                for (boolean activatedOnly : new boolean[] { false, true }) {
+                    Sort.Order order = new Sort.Order(direction, property);
+                    List<Long> expected = expectedIds(order, activatedOnly);
+
+                    List<Long> ids = new ArrayList<>();
+                    Keyset keyset = Keyset.first(order);
+                    List<Keyset> positions;
+                    do {
+                        positions = userRepository.findPositionsByKeyset(keyset, activatedOnly, PAGE_SIZE);
+                        positions.forEach(position -> ids.add(position.getId()));
+                        if (!positions.isEmpty()) {
+                            keyset = positions.get(positions.size() - 1);
+                        }
+                    } while (positions.size() == PAGE_SIZE);
+
+                    assertThat(ids).as("%s, activated only: %s", order, activatedOnly).isEqualTo(expected);
+                }
+            }
+        }
+    }
+
+    @Test
+    void pagesBackwardThroughEveryIndexedProperty() {
+        for (String property : SORT_PROPERTIES.keySet()) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                for (boolean activatedOnly : new boolean[] { false, true }) {
+                    Sort.Order order = new Sort.Order(direction, property);
+                    List<User> expected = expectedUsers(order, activatedOnly);
+                    User last = expected.get(expected.size() - 1);
+
+                    List<Long> ids = new ArrayList<>();
+                    Keyset keyset = Keyset.before(order, SORT_PROPERTIES.get(property).apply(last), last.getId());
+                    List<Keyset> positions;
+                    do {
+                        positions = userRepository.findPositionsByKeyset(keyset, activatedOnly, PAGE_SIZE);
+                        positions.forEach(position -> ids.add(position.getId()));
+                        if (!positions.isEmpty()) {
+                            Keyset position = positions.get(positions.size() - 1);
+                            keyset = Keyset.before(order, position.getValue(), position.getId());
+                        }
+                    } while (positions.size() == PAGE_SIZE);
+                    Collections.reverse(ids);
+
+                    assertThat(ids)
+                        .as("%s, activated only: %s", order, activatedOnly)
+                        .isEqualTo(expected.stream().limit(expected.size() - 1).map(User::getId).collect(Collectors.toList()));
+                }
+            }
+        }
+    }
+
+    /**
+     * The users in the keyset order: by the sort property with {@code null} values last, then by id, all reversed
+     * for a descending order.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private List<User> expectedUsers(Sort.Order order, boolean activatedOnly) {
+        Function<User, Comparable> getter = (Function) SORT_PROPERTIES.get(order.getProperty());
+        Comparator<User> comparator = Comparator.<User, Comparable>comparing(getter, Comparator.nullsLast(Comparator.naturalOrder()));
+        comparator = comparator.thenComparing(User::getId);
+        return userRepository
+            .findAll()
+            .stream()
+            .filter(user -> !activatedOnly || user.isActivated())
+            .sorted(order.isDescending() ? comparator.reversed() : comparator)
+            .collect(Collectors.toList());
+    }
+
+    private List<Long> expectedIds(Sort.Order order, boolean activatedOnly) {
+        return expectedUsers(order, activatedOnly).stream().map(User::getId).collect(Collectors.toList());
+    }
+}
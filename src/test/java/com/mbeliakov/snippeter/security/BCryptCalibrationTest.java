@@ -0,0 +1,42 @@
+package com.mbeliakov.snippeter.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mbeliakov.snippeter.config.ApplicationProperties;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link BCryptCalibration}.
+ */
+class BCryptCalibrationTest {
+
+    @Test
+    void testConfiguredStrengthIsUsedWhenCalibrationIsDisabled() {
+        ApplicationProperties.Security.PasswordHashing properties = new ApplicationProperties().getSecurity().getPasswordHashing();
+        properties.setStrength(12);
+        properties.getCalibration().setEnabled(false);
+
+        BCryptCalibration calibration = BCryptCalibration.of(properties);
+
+        assertThat(calibration.getStrength()).isEqualTo(12);
+        assertThat(calibration.isCalibrated()).isFalse();
+        assertThat(calibration.getMeasuredMillis()).isEmpty();
+    }
+
+    @Test
+    void testCalibrationStopsAtMaxStrength() {
+        BCryptCalibration calibration = BCryptCalibration.calibrate(4, 6, 60_000);
+
+        assertThat(calibration.getStrength()).isEqualTo(6);
+        assertThat(calibration.isCalibrated()).isTrue();
+        assertThat(calibration.getMeasuredMillis()).containsOnlyKeys(4, 5, 6);
+    }
+
+    @Test
+    void testCalibrationNeverGoesBelowMinStrength() {
+        BCryptCalibration calibration = BCryptCalibration.calibrate(5, 10, 0);
+
+        assertThat(calibration.getStrength()).isEqualTo(5);
+        assertThat(calibration.getMeasuredMillis()).containsOnlyKeys(5);
+    }
+}
@@ -0,0 +1,35 @@
+package com.mbeliakov.snippeter.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Test class for the {@link CalibratedBCryptPasswordEncoder}.
+ */
+class CalibratedBCryptPasswordEncoderTest {
+
+    private final CalibratedBCryptPasswordEncoder passwordEncoder = new CalibratedBCryptPasswordEncoder(5);
+
+    @Test
+    void testHashWithSameCostIsKept() {
+        assertThat(passwordEncoder.upgradeEncoding(passwordEncoder.encode("password"))).isFalse();
+    }
+
+    @Test
+    void testHashWithLowerCostIsUpgraded() {
+        assertThat(passwordEncoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password"))).isTrue();
+    }
+
+    @Test
+    void testHashWithHigherCostIsDowngraded() {
+        assertThat(passwordEncoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password"))).isTrue();
+    }
+
+    @Test
+    void testUnknownHashIsKept() {
+        assertThat(passwordEncoder.upgradeEncoding("not-a-bcrypt-hash")).isFalse();
+        assertThat(passwordEncoder.upgradeEncoding(null)).isFalse();
+    }
+}
@@ -0,0 +1,61 @@
+package com.mbeliakov.snippeter.security;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Compares the decoding of the authorities claim of a token, as previously done in
+ * {@link com.mbeliakov.snippeter.security.jwt.TokenProvider}, with {@link InternedAuthorities}.
+ * <p>
+ * Run it with {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.mbeliakov.snippeter.security.InternedAuthoritiesBenchmark}, and compare the
+ * {@code gc.alloc.rate.norm} lines of both benchmarks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InternedAuthoritiesBenchmark {
+
+    @Param({ AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN + "," + AuthoritiesConstants.USER })
+    private String claim;
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> legacyDecoding() {
+        return Arrays
+            .stream(claim.split(","))
+            .filter(auth -> !auth.trim().isEmpty())
+            .map(SimpleGrantedAuthority::new)
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> internedDecoding() {
+        return InternedAuthorities.fromClaim(claim);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(InternedAuthoritiesBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build())
+            .run();
+    }
+}
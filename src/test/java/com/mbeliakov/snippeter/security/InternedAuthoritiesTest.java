@@ -0,0 +1,47 @@
+package com.mbeliakov.snippeter.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Test class for the {@link InternedAuthorities} utility class.
+ */
+class InternedAuthoritiesTest {
+
+    @Test
+    void testKnownRolesAreShared() {
+        assertThat(InternedAuthorities.of(AuthoritiesConstants.ADMIN)).isSameAs(InternedAuthorities.of(AuthoritiesConstants.ADMIN));
+        assertThat(InternedAuthorities.of(AuthoritiesConstants.USER)).isEqualTo(new SimpleGrantedAuthority(AuthoritiesConstants.USER));
+    }
+
+    @Test
+    void testClaimIsDecodedOnce() {
+        String claim = AuthoritiesConstants.ADMIN + "," + AuthoritiesConstants.USER;
+
+        List<GrantedAuthority> authorities = InternedAuthorities.fromClaim(claim);
+
+        assertThat(InternedAuthorities.fromClaim(claim)).isSameAs(authorities);
+        assertThat(authorities)
+            .containsExactly(new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN), new SimpleGrantedAuthority(AuthoritiesConstants.USER));
+        assertThat(authorities.get(0)).isSameAs(InternedAuthorities.of(AuthoritiesConstants.ADMIN));
+    }
+
+    @Test
+    void testBlankEntriesAreSkipped() {
+        assertThat(InternedAuthorities.fromClaim("")).isEmpty();
+        assertThat(InternedAuthorities.fromClaim("ROLE_CUSTOM, ,")).containsExactly(new SimpleGrantedAuthority("ROLE_CUSTOM"));
+    }
+
+    @Test
+    void testDecodedListIsImmutable() {
+        List<GrantedAuthority> authorities = InternedAuthorities.fromClaim(AuthoritiesConstants.USER);
+
+        assertThatThrownBy(() -> authorities.add(InternedAuthorities.of(AuthoritiesConstants.ADMIN)))
+            .isInstanceOf(UnsupportedOperationException.class);
+    }
+}
@@ -0,0 +1,118 @@
+package com.mbeliakov.snippeter.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.mbeliakov.snippeter.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link LoginAttemptThrottle}.
+ */
+class LoginAttemptThrottleTest {
+
+    private static final String ADDRESS = "10.0.0.1";
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000L);
+
+    private ApplicationProperties applicationProperties;
+
+    private MeterRegistry meterRegistry;
+
+    private LoginAttemptThrottle loginAttemptThrottle;
+
+    @BeforeEach
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Security.LoginThrottling properties = applicationProperties.getSecurity().getLoginThrottling();
+        properties.setMaxFailuresPerLogin(3);
+        properties.setMaxFailuresPerAddress(5);
+        properties.setWindowSeconds(60);
+        properties.setMaxEntries(64);
+        meterRegistry = new SimpleMeterRegistry();
+        loginAttemptThrottle = new LoginAttemptThrottle(applicationProperties, meterRegistry, now::get);
+    }
+
+    @Test
+    void testLoginIsThrottledAfterTooManyFailures() {
+        fail("john", ADDRESS, 3);
+
+        assertThatThrownBy(() -> loginAttemptThrottle.checkAllowed("John", "10.0.0.2"))
+            .isInstanceOf(LoginThrottledException.class)
+            .extracting("retryAfterSeconds")
+            .isEqualTo(60L);
+        assertThatCode(() -> loginAttemptThrottle.checkAllowed("jane", ADDRESS)).doesNotThrowAnyException();
+        assertThat(meterRegistry.get("security.login.throttled").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testAddressIsThrottledAfterTooManyFailures() {
+        fail("john", ADDRESS, 2);
+        fail("jane", ADDRESS, 2);
+        fail("jack", ADDRESS, 1);
+
+        assertThatThrownBy(() -> loginAttemptThrottle.checkAllowed("jill", ADDRESS)).isInstanceOf(LoginThrottledException.class);
+        assertThatCode(() -> loginAttemptThrottle.checkAllowed("jill", "10.0.0.2")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void testFailuresDecayOnceTheWindowHasElapsed() {
+        fail("john", ADDRESS, 3);
+        now.addAndGet(45);
+
+        assertThatThrownBy(() -> loginAttemptThrottle.checkAllowed("john", ADDRESS))
+            .isInstanceOf(LoginThrottledException.class)
+            .extracting("retryAfterSeconds")
+            .isEqualTo(15L);
+
+        now.addAndGet(15);
+        assertThatCode(() -> loginAttemptThrottle.checkAllowed("john", ADDRESS)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void testSuccessResetsTheFailuresOfTheLogin() {
+        fail("john", ADDRESS, 2);
+        loginAttemptThrottle.recordSuccess("john");
+        fail("john", ADDRESS, 2);
+
+        assertThatCode(() -> loginAttemptThrottle.checkAllowed("john", ADDRESS)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void testSprayOfFailuresDoesNotThrottleOtherKeys() {
+        for (int i = 0; i < 100_000; i++) {
+            loginAttemptThrottle.recordFailure("login-" + i, "address-" + i);
+        }
+
+        assertThatCode(() -> loginAttemptThrottle.checkAllowed("john", ADDRESS)).doesNotThrowAnyException();
+        assertThatCode(() -> loginAttemptThrottle.checkAllowed("login-0", "address-0")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void testCollidingKeysAreCountedApart() {
+        // "Aa" and "BB" share their String hash code
+        fail("john", "Aa", 5);
+
+        assertThatThrownBy(() -> loginAttemptThrottle.checkAllowed("jane", "Aa")).isInstanceOf(LoginThrottledException.class);
+        assertThatCode(() -> loginAttemptThrottle.checkAllowed("jane", "BB")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void testDisabledThrottleNeverRejects() {
+        applicationProperties.getSecurity().getLoginThrottling().setEnabled(false);
+        fail("john", ADDRESS, 10);
+
+        assertThatCode(() -> loginAttemptThrottle.checkAllowed("john", ADDRESS)).doesNotThrowAnyException();
+    }
+
+    private void fail(String login, String address, int times) {
+        for (int i = 0; i < times; i++) {
+            loginAttemptThrottle.recordFailure(login, address);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.mbeliakov.snippeter.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.mbeliakov.snippeter.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link PasswordHashingExecutor}.
+ */
+class PasswordHashingExecutorTest {
+
+    private MeterRegistry meterRegistry;
+
+    private ApplicationProperties applicationProperties;
+
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @BeforeEach
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getSecurity().getPasswordHashing().setPoolSize(1);
+        applicationProperties.getSecurity().getPasswordHashing().setQueueCapacity(1);
+        applicationProperties.getSecurity().getPasswordHashing().setRetryAfterSeconds(3);
+        meterRegistry = new SimpleMeterRegistry();
+        passwordHashingExecutor = new PasswordHashingExecutor(applicationProperties, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        passwordHashingExecutor.destroy();
+    }
+
+    @Test
+    void testExecuteReturnsResult() {
+        assertThat(passwordHashingExecutor.execute("matches", () -> true)).isTrue();
+        assertThat(meterRegistry.get("security.password.hashing").tag("operation", "matches").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testExecutePropagatesException() {
+        assertThatThrownBy(
+                () ->
+                    passwordHashingExecutor.execute(
+                        "encode",
+                        () -> {
+                            throw new IllegalArgumentException("test");
+                        }
+                    )
+            )
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("test");
+    }
+
+    @Test
+    void testSaturatedPoolRejectsRequests() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(
+            () -> passwordHashingExecutor.execute("matches", () -> awaitRelease(started, release))
+        );
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> passwordHashingExecutor.execute("matches", () -> true));
+        while (meterRegistry.get("executor.queued").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        assertThatThrownBy(() -> passwordHashingExecutor.execute("matches", () -> true))
+            .isInstanceOf(PasswordHashingRejectedException.class)
+            .extracting("retryAfterSeconds")
+            .isEqualTo(3L);
+        assertThat(meterRegistry.get("security.password.hashing.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void testExecuteAllRunsWhatTheQueueCannotTakeOnTheCallerThread() {
+        passwordHashingExecutor.destroy();
+        applicationProperties.getSecurity().getPasswordHashing().setBatchConcurrency(3);
+        passwordHashingExecutor = new PasswordHashingExecutor(applicationProperties, meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // the first task holds the only thread, the second one fills the queue, the third one runs on the caller
+        List<Supplier<String>> tasks = Arrays.asList(
+            () -> awaitRelease(started, release) ? Thread.currentThread().getName() : null,
+            () -> Thread.currentThread().getName(),
+            () -> {
+                release.countDown();
+                return Thread.currentThread().getName();
+            }
+        );
+
+        List<String> threadNames = passwordHashingExecutor.executeAll("encode", tasks);
+
+        assertThat(threadNames).hasSize(3);
+        assertThat(threadNames.get(0)).startsWith("snippeter-hashing-");
+        assertThat(threadNames.get(1)).startsWith("snippeter-hashing-");
+        assertThat(threadNames.get(2)).isEqualTo(Thread.currentThread().getName());
+        assertThat(meterRegistry.get("security.password.hashing").tag("operation", "encode").timer().count()).isEqualTo(3);
+        assertThat(meterRegistry.find("security.password.hashing.rejected").counter().count()).isZero();
+    }
+
+    @Test
+    void testExecuteAllLeavesTheQueueToExecute() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch submitted = new CountDownLatch(1);
+        // the first task takes the only batch permit, the others run on the caller rather than fill the queue
+        List<Supplier<String>> tasks = Arrays.asList(
+            () -> awaitRelease(started, release) ? Thread.currentThread().getName() : null,
+            () -> Thread.currentThread().getName(),
+            () -> {
+                submitted.countDown();
+                return Thread.currentThread().getName();
+            }
+        );
+        CompletableFuture<List<String>> batch = CompletableFuture.supplyAsync(() -> passwordHashingExecutor.executeAll("encode", tasks));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(submitted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Boolean> login = CompletableFuture.supplyAsync(() -> passwordHashingExecutor.execute("matches", () -> true));
+        while (meterRegistry.get("executor.queued").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertThat(login.get(5, TimeUnit.SECONDS)).isTrue();
+        List<String> threadNames = batch.get(5, TimeUnit.SECONDS);
+        assertThat(threadNames.get(0)).startsWith("snippeter-hashing-");
+        assertThat(threadNames.get(1)).isEqualTo(threadNames.get(2)).doesNotStartWith("snippeter-hashing-");
+        assertThat(meterRegistry.find("security.password.hashing.rejected").counter().count()).isZero();
+    }
+
+    private static boolean awaitRelease(CountDownLatch started, CountDownLatch release) {
+        started.countDown();
+        try {
+            return release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.mbeliakov.snippeter.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mbeliakov.snippeter.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Test class for the {@link VerifiedCredentialsCache}.
+ */
+class VerifiedCredentialsCacheTest {
+
+    private static final UserDetails JOHN = new User(
+        "john",
+        "",
+        Collections.singletonList(InternedAuthorities.of(AuthoritiesConstants.USER))
+    );
+
+    private ApplicationProperties applicationProperties;
+
+    private VerifiedCredentialsCache verifiedCredentialsCache;
+
+    @BeforeEach
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getSecurity().getCredentialsCache().setEnabled(true);
+        verifiedCredentialsCache = new VerifiedCredentialsCache(applicationProperties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testVerifiedCredentialsAreCached() {
+        verifiedCredentialsCache.put("john", "secret", JOHN, verifiedCredentialsCache.generation());
+
+        assertThat(verifiedCredentialsCache.get("john", "secret")).contains(JOHN);
+        assertThat(verifiedCredentialsCache.get("john", "other")).isEmpty();
+        assertThat(verifiedCredentialsCache.get("john@example.com", "secret")).isEmpty();
+    }
+
+    @Test
+    void testUsernameAndPasswordAreNotConcatenated() {
+        verifiedCredentialsCache.put("john", "secret", JOHN, verifiedCredentialsCache.generation());
+
+        assertThat(verifiedCredentialsCache.get("johns", "ecret")).isEmpty();
+    }
+
+    @Test
+    void testInvalidateDropsEveryEntryOfTheUser() {
+        verifiedCredentialsCache.put("john", "secret", JOHN, verifiedCredentialsCache.generation());
+        verifiedCredentialsCache.put("john@example.com", "secret", JOHN, verifiedCredentialsCache.generation());
+
+        verifiedCredentialsCache.invalidate("JOHN");
+
+        assertThat(verifiedCredentialsCache.get("john", "secret")).isEmpty();
+        assertThat(verifiedCredentialsCache.get("john@example.com", "secret")).isEmpty();
+    }
+
+    @Test
+    void testVerificationStartedBeforeAnInvalidationIsNotCached() {
+        long generation = verifiedCredentialsCache.generation();
+        verifiedCredentialsCache.invalidate("jane");
+
+        verifiedCredentialsCache.put("john", "secret", JOHN, generation);
+
+        assertThat(verifiedCredentialsCache.get("john", "secret")).isEmpty();
+    }
+
+    @Test
+    void testNothingIsCachedWhenDisabled() {
+        applicationProperties.getSecurity().getCredentialsCache().setEnabled(false);
+        verifiedCredentialsCache = new VerifiedCredentialsCache(applicationProperties, new SimpleMeterRegistry());
+
+        verifiedCredentialsCache.put("john", "secret", JOHN, verifiedCredentialsCache.generation());
+
+        assertThat(verifiedCredentialsCache.isEnabled()).isFalse();
+        assertThat(verifiedCredentialsCache.get("john", "secret")).isEmpty();
+    }
+}
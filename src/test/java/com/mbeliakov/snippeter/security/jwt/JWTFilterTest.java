@@ -1,10 +1,15 @@
 package com.mbeliakov.snippeter.security.jwt;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 
+import com.mbeliakov.snippeter.config.ApplicationProperties;
+import com.mbeliakov.snippeter.purge.PurgeRunner;
+import com.mbeliakov.snippeter.repository.RevokedTokenRepository;
 import com.mbeliakov.snippeter.security.AuthoritiesConstants;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.Collections;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -33,7 +38,16 @@ class JWTFilterTest {
         ReflectionTestUtils.setField(tokenProvider, "key", Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret)));
 
         ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", 60000);
-        jwtFilter = new JWTFilter(tokenProvider);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        TokenDenylist tokenDenylist = new TokenDenylist(
+            mock(RevokedTokenRepository.class),
+            mock(PurgeRunner.class),
+            applicationProperties,
+            jHipsterProperties
+        );
+        tokenDenylist.rebuild();
+        jwtFilter =
+            new JWTFilter(new TokenAuthenticationCache(tokenProvider, tokenDenylist, applicationProperties, new SimpleMeterRegistry()));
         SecurityContextHolder.getContext().setAuthentication(null);
     }
 
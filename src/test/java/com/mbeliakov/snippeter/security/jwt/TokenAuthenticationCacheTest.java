@@ -0,0 +1,175 @@
+package com.mbeliakov.snippeter.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mbeliakov.snippeter.config.ApplicationProperties;
+import com.mbeliakov.snippeter.domain.RevokedToken;
+import com.mbeliakov.snippeter.purge.PurgeRunner;
+import com.mbeliakov.snippeter.repository.RevokedTokenRepository;
+import com.mbeliakov.snippeter.security.AuthoritiesConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+import tech.jhipster.config.JHipsterProperties;
+
+class TokenAuthenticationCacheTest {
+
+    private static final long ONE_MINUTE = 60000;
+
+    private TokenProvider tokenProvider;
+
+    private ApplicationProperties applicationProperties;
+
+    private MeterRegistry meterRegistry;
+
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private TokenDenylist tokenDenylist;
+
+    private TokenAuthenticationCache tokenAuthenticationCache;
+
+    @BeforeEach
+    public void setup() {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        String base64Secret = "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(base64Secret);
+        tokenProvider = new TokenProvider(jHipsterProperties);
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", ONE_MINUTE);
+
+        applicationProperties = new ApplicationProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        revokedTokenRepository = mock(RevokedTokenRepository.class);
+        tokenDenylist =
+            new TokenDenylist(revokedTokenRepository, mock(PurgeRunner.class), applicationProperties, jHipsterProperties);
+        tokenDenylist.rebuild();
+        tokenAuthenticationCache = new TokenAuthenticationCache(tokenProvider, tokenDenylist, applicationProperties, meterRegistry);
+    }
+
+    @Test
+    void testRepeatedTokenIsServedFromCache() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        Optional<Authentication> first = tokenAuthenticationCache.getAuthentication(token);
+        Optional<Authentication> second = tokenAuthenticationCache.getAuthentication(token);
+
+        assertThat(first).isPresent();
+        assertThat(second).containsSame(first.get());
+        assertThat(second.get().getName()).isEqualTo("test-user");
+        assertThat(second.get().getCredentials()).hasToString(token);
+        assertThat(cacheGets("hit")).isEqualTo(1);
+        assertThat(cacheGets("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void testInvalidTokenIsNotCached() {
+        String token = tokenProvider.createToken(createAuthentication(), false).substring(1);
+
+        assertThat(tokenAuthenticationCache.getAuthentication(token)).isEmpty();
+        assertThat(tokenAuthenticationCache.getAuthentication(token)).isEmpty();
+        assertThat(cacheGets("hit")).isZero();
+        assertThat(cacheGets("miss")).isEqualTo(2);
+    }
+
+    @Test
+    void testExpiredTokenIsRejected() {
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", -ONE_MINUTE);
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(tokenAuthenticationCache.getAuthentication(token)).isEmpty();
+    }
+
+    @Test
+    void testDisabledCacheStillVerifiesTokens() {
+        applicationProperties.getSecurity().getTokenCache().setEnabled(false);
+        tokenAuthenticationCache =
+            new TokenAuthenticationCache(tokenProvider, tokenDenylist, applicationProperties, new SimpleMeterRegistry());
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(tokenAuthenticationCache.getAuthentication(token)).isPresent();
+        assertThat(tokenAuthenticationCache.getAuthentication(token.substring(1))).isEmpty();
+    }
+
+    @Test
+    void testRevokedTokenIsRejectedEvenWhenCached() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        String otherToken = tokenProvider.createToken(createAuthentication(), false);
+        assertThat(tokenAuthenticationCache.getAuthentication(token)).isPresent();
+
+        String jti = tokenProvider.parseClaims(token).get().getId();
+        tokenDenylist.revoke(jti, new Date(System.currentTimeMillis() + ONE_MINUTE));
+        when(revokedTokenRepository.existsByJti(jti)).thenReturn(true);
+
+        assertThat(tokenAuthenticationCache.getAuthentication(token)).isEmpty();
+        assertThat(tokenAuthenticationCache.getAuthentication(otherToken)).isPresent();
+        verify(revokedTokenRepository).existsByJti(jti);
+    }
+
+    @Test
+    void testTokensOfRevokedUserAreRejected() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        assertThat(tokenAuthenticationCache.getAuthentication(token)).isPresent();
+
+        tokenDenylist.revokeAll("test-user");
+
+        assertThat(tokenAuthenticationCache.getAuthentication(token)).isEmpty();
+        verify(revokedTokenRepository, never()).existsByLoginAndRevokedDateGreaterThanEqual(any(), any());
+    }
+
+    @Test
+    void testTokenIssuedAfterUserRevocationIsAccepted() {
+        RevokedToken revokedToken = new RevokedToken();
+        revokedToken.setLogin("test-user");
+        revokedToken.setRevokedDate(Instant.now().minusSeconds(60));
+        revokedToken.setExpiryDate(Instant.now().plusSeconds(60));
+        when(revokedTokenRepository.findAllByExpiryDateAfter(any())).thenReturn(List.of(revokedToken));
+        tokenDenylist.rebuild();
+
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(tokenAuthenticationCache.getAuthentication(token)).isPresent();
+    }
+
+    @Test
+    void testTokenIssuedWithinTheSecondOfUserRevocationIsAccepted() throws InterruptedException {
+        String revoked = tokenProvider.createToken(createAuthentication(), false);
+        tokenDenylist.revokeAll("test-user");
+        Thread.sleep(2);
+
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(tokenAuthenticationCache.getAuthentication(revoked)).isEmpty();
+        assertThat(tokenAuthenticationCache.getAuthentication(token)).isPresent();
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry
+            .get("cache.gets")
+            .tag("cache", TokenAuthenticationCache.CACHE_NAME)
+            .tag("result", result)
+            .functionCounter()
+            .count();
+    }
+
+    private Authentication createAuthentication() {
+        return new UsernamePasswordAuthenticationToken(
+            "test-user",
+            "test-password",
+            Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.USER))
+        );
+    }
+}
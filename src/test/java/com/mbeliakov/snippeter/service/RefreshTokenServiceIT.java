@@ -0,0 +1,117 @@
+package com.mbeliakov.snippeter.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mbeliakov.snippeter.IntegrationTest;
+import com.mbeliakov.snippeter.config.ApplicationProperties;
+import com.mbeliakov.snippeter.domain.RefreshToken;
+import com.mbeliakov.snippeter.domain.User;
+import com.mbeliakov.snippeter.repository.RefreshTokenRepository;
+import com.mbeliakov.snippeter.repository.UserRepository;
+import com.mbeliakov.snippeter.security.AuthoritiesConstants;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link RefreshTokenService}.
+ */
+@IntegrationTest
+@Transactional
+class RefreshTokenServiceIT {
+
+    private static final String DEFAULT_LOGIN = "refresh-token-user";
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    private User user;
+
+    private int cleanupBatchSize;
+
+    @BeforeEach
+    public void init() {
+        user = new User();
+        user.setLogin(DEFAULT_LOGIN);
+        user.setPassword(RandomStringUtils.random(60));
+        user.setActivated(true);
+        user.setEmail("refresh-token-user@localhost");
+        user.getAuthorities().add(userRepository.findOneWithAuthoritiesByLogin("user").get().getAuthorities().iterator().next());
+        userRepository.saveAndFlush(user);
+        cleanupBatchSize = applicationProperties.getSecurity().getRefreshToken().getCleanupBatchSize();
+    }
+
+    @AfterEach
+    public void restoreCleanupBatchSize() {
+        applicationProperties.getSecurity().getRefreshToken().setCleanupBatchSize(cleanupBatchSize);
+    }
+
+    @Test
+    @Transactional
+    void assertThatOnlyTheDigestOfTheTokenIsStored() {
+        String token = refreshTokenService.createRefreshToken(DEFAULT_LOGIN, false);
+
+        assertThat(refreshTokenRepository.findOneWithUserByTokenHash(token)).isEmpty();
+        assertThat(refreshTokenRepository.findOneWithUserByTokenHash(RefreshTokenService.hash(token))).isPresent();
+    }
+
+    @Test
+    @Transactional
+    void assertThatRefreshTokenResolvesTheUser() {
+        String token = refreshTokenService.createRefreshToken(DEFAULT_LOGIN, true);
+
+        Authentication authentication = refreshTokenService.getAuthentication(token).get();
+        assertThat(authentication.getName()).isEqualTo(DEFAULT_LOGIN);
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly(AuthoritiesConstants.USER);
+    }
+
+    @Test
+    @Transactional
+    void assertThatExpiredRefreshTokenIsRejected() {
+        String token = refreshTokenService.createRefreshToken(DEFAULT_LOGIN, false);
+        RefreshToken refreshToken = refreshTokenRepository.findOneWithUserByTokenHash(RefreshTokenService.hash(token)).get();
+        refreshToken.setExpiryDate(Instant.now().minus(1, ChronoUnit.MINUTES));
+        refreshTokenRepository.saveAndFlush(refreshToken);
+
+        assertThat(refreshTokenService.getAuthentication(token)).isEmpty();
+    }
+
+    @Test
+    @Transactional
+    void assertThatExpiredRefreshTokensAreDeletedInBatches() {
+        applicationProperties.getSecurity().getRefreshToken().setCleanupBatchSize(2);
+        for (int i = 0; i < 5; i++) {
+            createRefreshToken(Instant.now().minus(1, ChronoUnit.HOURS));
+        }
+        RefreshToken valid = createRefreshToken(Instant.now().plus(1, ChronoUnit.HOURS));
+
+        refreshTokenService.removeExpiredRefreshTokens();
+
+        assertThat(refreshTokenRepository.findAll()).containsExactly(valid);
+    }
+
+    private RefreshToken createRefreshToken(Instant expiryDate) {
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(RandomStringUtils.randomAlphanumeric(64));
+        refreshToken.setUser(user);
+        refreshToken.setCreatedDate(expiryDate.minus(1, ChronoUnit.DAYS));
+        refreshToken.setExpiryDate(expiryDate);
+        return refreshTokenRepository.saveAndFlush(refreshToken);
+    }
+}
@@ -1,19 +1,38 @@
 package com.mbeliakov.snippeter.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.when;
 
 import com.mbeliakov.snippeter.IntegrationTest;
 import com.mbeliakov.snippeter.config.Constants;
+import com.mbeliakov.snippeter.domain.Authority;
 import com.mbeliakov.snippeter.domain.User;
+import com.mbeliakov.snippeter.purge.PurgeRunner;
 import com.mbeliakov.snippeter.repository.UserRepository;
+import com.mbeliakov.snippeter.security.AuthoritiesConstants;
+import com.mbeliakov.snippeter.security.InternedAuthorities;
+import com.mbeliakov.snippeter.security.jwt.TokenAuthenticationCache;
+import com.mbeliakov.snippeter.security.jwt.TokenProvider;
 import com.mbeliakov.snippeter.service.dto.AdminUserDTO;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import javax.persistence.EntityManager;
 import org.apache.commons.lang3.RandomStringUtils;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,6 +41,9 @@ import org.springframework.data.auditing.AuditingHandler;
 import org.springframework.data.auditing.DateTimeProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import tech.jhipster.security.RandomUtil;
 
@@ -50,9 +72,27 @@ class UserServiceIT {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenProvider tokenProvider;
+
+    @Autowired
+    private TokenAuthenticationCache tokenAuthenticationCache;
+
     @Autowired
     private AuditingHandler auditingHandler;
 
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PurgeRunner purgeRunner;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @MockBean
     private DateTimeProvider dateTimeProvider;
 
@@ -158,12 +198,9 @@ class UserServiceIT {
         User dbUser = userRepository.saveAndFlush(user);
         dbUser.setCreatedDate(now.minus(4, ChronoUnit.DAYS));
         userRepository.saveAndFlush(user);
-        Instant threeDaysAgo = now.minus(3, ChronoUnit.DAYS);
-        List<User> users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
-        assertThat(users).isNotEmpty();
+        assertThat(userRepository.existsById(dbUser.getId())).isTrue();
         userService.removeNotActivatedUsers();
-        users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
-        assertThat(users).isEmpty();
+        assertThat(userRepository.existsById(dbUser.getId())).isFalse();
     }
 
     @Test
@@ -175,11 +212,220 @@ class UserServiceIT {
         User dbUser = userRepository.saveAndFlush(user);
         dbUser.setCreatedDate(now.minus(4, ChronoUnit.DAYS));
         userRepository.saveAndFlush(user);
-        Instant threeDaysAgo = now.minus(3, ChronoUnit.DAYS);
-        List<User> users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
-        assertThat(users).isEmpty();
         userService.removeNotActivatedUsers();
-        Optional<User> maybeDbUser = userRepository.findById(dbUser.getId());
-        assertThat(maybeDbUser).contains(dbUser);
+        assertThat(userRepository.existsById(dbUser.getId())).isTrue();
+    }
+
+    @Test
+    @Transactional
+    void assertThatNotActivatedUsersAreDeletedInChunks() {
+        Instant now = Instant.now();
+        when(dateTimeProvider.getNow()).thenReturn(Optional.of(now.minus(4, ChronoUnit.DAYS)));
+        Authority userAuthority = entityManager.find(Authority.class, AuthoritiesConstants.USER);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            User notActivated = new User();
+            notActivated.setLogin("notactivated" + i);
+            notActivated.setPassword(RandomStringUtils.random(60));
+            notActivated.setActivated(false);
+            notActivated.setActivationKey(RandomUtil.generateActivationKey());
+            notActivated.setLangKey(DEFAULT_LANGKEY);
+            notActivated.setAuthorities(new HashSet<>(Collections.singleton(userAuthority)));
+            ids.add(userRepository.save(notActivated).getId());
+        }
+        userRepository.flush();
+        Instant threeDaysAgo = now.minus(3, ChronoUnit.DAYS);
+
+        List<Integer> chunks = new ArrayList<>();
+        long deleted = purgeRunner.purge(
+            "not-activated-users-test",
+            2,
+            limit -> {
+                int chunk = userRepository.deleteNotActivatedUsers(threeDaysAgo, limit);
+                chunks.add(chunk);
+                return chunk;
+            }
+        );
+
+        assertThat(deleted).isEqualTo(5);
+        assertThat(chunks).containsExactly(2, 2, 1);
+        assertThat(ids).noneMatch(userRepository::existsById);
+        assertThat(meterRegistry.get("purge.rows").tag("name", "not-activated-users-test").counter().count()).isEqualTo(5);
+    }
+
+    @Test
+    @Transactional
+    void assertThatExpiredResetKeysAreCleared() {
+        Instant now = Instant.now();
+        user.setResetKey(RandomUtil.generateResetKey());
+        user.setResetDate(now.minus(25, ChronoUnit.HOURS));
+        userRepository.saveAndFlush(user);
+        User recentReset = new User();
+        recentReset.setLogin("janedoe");
+        recentReset.setPassword(RandomStringUtils.random(60));
+        recentReset.setActivated(true);
+        recentReset.setLangKey(DEFAULT_LANGKEY);
+        recentReset.setResetKey(RandomUtil.generateResetKey());
+        recentReset.setResetDate(now.minus(1, ChronoUnit.HOURS));
+        userRepository.saveAndFlush(recentReset);
+
+        userService.removeExpiredResetKeys();
+        entityManager.clear();
+
+        User expired = userRepository.findById(user.getId()).orElseThrow();
+        assertThat(expired.getResetKey()).isNull();
+        assertThat(expired.getResetDate()).isNull();
+        assertThat(userRepository.findById(recentReset.getId()).orElseThrow().getResetKey()).isEqualTo(recentReset.getResetKey());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void assertThatDeletedUserTokensAreRevoked() {
+        userRepository.saveAndFlush(user);
+        String token = createToken(DEFAULT_LOGIN);
+        assertThat(tokenAuthenticationCache.getAuthentication(token)).isPresent();
+
+        userService.deleteUser(DEFAULT_LOGIN);
+
+        assertThat(tokenAuthenticationCache.getAuthentication(token)).isEmpty();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void assertThatDeactivatedUserTokensAreRevoked() {
+        // a login of its own, as revocations are committed and another test may revoke the tokens of the default login
+        // within the same second
+        user.setLogin("johndoe-deactivated");
+        user.setEmail("johndoe-deactivated@localhost");
+        userRepository.saveAndFlush(user);
+        try {
+            String token = createToken("johndoe-deactivated");
+            String refreshToken = refreshTokenService.createRefreshToken("johndoe-deactivated", false);
+            assertThat(tokenAuthenticationCache.getAuthentication(token)).isPresent();
+
+            AdminUserDTO userDTO = new AdminUserDTO(user);
+            userDTO.setActivated(false);
+            userService.updateUser(userDTO);
+
+            assertThat(tokenAuthenticationCache.getAuthentication(token)).isEmpty();
+            assertThat(refreshTokenService.getAuthentication(refreshToken)).isEmpty();
+        } finally {
+            userRepository.deleteById(user.getId());
+        }
+    }
+
+    @Test
+    @Transactional
+    void assertThatUpdatedUserOnlyHasItsChangedAttributesDirty() {
+        userRepository.saveAndFlush(user);
+        entityManager.clear();
+        AdminUserDTO userDTO = new AdminUserDTO(user);
+        userDTO.setFirstName("jane");
+
+        userService.updateUser(userDTO);
+
+        SelfDirtinessTracker updatedUser = (SelfDirtinessTracker) entityManager.find(User.class, user.getId());
+        // the authorities are a collection, flushed on their own rather than in the update of the user
+        assertThat(updatedUser.$$_hibernate_getDirtyAttributes())
+            .filteredOn(name -> !"authorities".equals(name))
+            .containsExactly("firstName");
+        EntityPersister persister = entityManager
+            .getEntityManagerFactory()
+            .unwrap(SessionFactoryImplementor.class)
+            .getMetamodel()
+            .entityPersister(User.class);
+        assertThat(persister.getEntityMetamodel().isDynamicUpdate()).isTrue();
+    }
+
+    @Test
+    @Transactional
+    void assertThatCreatedUserAuthoritiesAreNotLoaded() {
+        AdminUserDTO userDTO = new AdminUserDTO(user);
+        userDTO.setAuthorities(new HashSet<>(Arrays.asList(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER, "ROLE_UNKNOWN")));
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+        try {
+            User createdUser = userService.createUser(userDTO);
+            userRepository.flush();
+
+            assertThat(createdUser.getAuthorities())
+                .extracting(Authority::getName)
+                .containsExactlyInAnyOrder(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER);
+            assertThat(createdUser.getAuthorities()).noneMatch(Hibernate::isInitialized);
+            assertThat(statistics.getEntityStatistics(Authority.class.getName()).getLoadCount()).isZero();
+        } finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+        entityManager.clear();
+        assertThat(userRepository.findOneWithAuthoritiesByLogin(DEFAULT_LOGIN))
+            .hasValueSatisfying(
+                dbUser ->
+                    assertThat(dbUser.getAuthorities())
+                        .extracting(Authority::getName)
+                        .containsExactlyInAnyOrder(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER)
+            );
+    }
+
+    @Test
+    @Transactional
+    void assertThatRegistrationTakesOverNotActivatedUserWithoutLookup() {
+        user.setActivated(false);
+        user.setActivationKey(RandomUtil.generateActivationKey());
+        userRepository.saveAndFlush(user);
+        AdminUserDTO userDTO = new AdminUserDTO(user);
+        userDTO.setId(null);
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+        User registeredUser;
+        try {
+            registeredUser = userService.registerUser(userDTO, "password");
+
+            assertThat(statistics.getQueryExecutionCount()).isZero();
+            assertThat(statistics.getEntityLoadCount()).isZero();
+        } finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+        entityManager.clear();
+        assertThat(registeredUser.getId()).isNotEqualTo(user.getId());
+        assertThat(userRepository.findById(user.getId())).isEmpty();
+        assertThat(userRepository.findOneWithAuthoritiesByLogin(DEFAULT_LOGIN))
+            .hasValueSatisfying(
+                dbUser -> {
+                    assertThat(dbUser.getId()).isEqualTo(registeredUser.getId());
+                    assertThat(dbUser.getAuthorities()).extracting(Authority::getName).containsExactly(AuthoritiesConstants.USER);
+                }
+            );
+    }
+
+    @Test
+    @Transactional
+    void assertThatRegistrationWithActivatedLoginFails() {
+        userRepository.saveAndFlush(user);
+        AdminUserDTO userDTO = new AdminUserDTO(user);
+        userDTO.setId(null);
+        userDTO.setEmail("johndoe-other@localhost");
+
+        assertThatThrownBy(() -> userService.registerUser(userDTO, "password")).isInstanceOf(UsernameAlreadyUsedException.class);
+    }
+
+    @Test
+    @Transactional
+    void assertThatRegistrationWithActivatedEmailFails() {
+        userRepository.saveAndFlush(user);
+        AdminUserDTO userDTO = new AdminUserDTO(user);
+        userDTO.setId(null);
+        userDTO.setLogin("johndoe-other");
+        userDTO.setEmail(DEFAULT_EMAIL.toUpperCase());
+
+        assertThatThrownBy(() -> userService.registerUser(userDTO, "password")).isInstanceOf(EmailAlreadyUsedException.class);
+    }
+
+    private String createToken(String login) {
+        List<GrantedAuthority> authorities = Collections.singletonList(InternedAuthorities.of(AuthoritiesConstants.USER));
+        return tokenProvider.createToken(new UsernamePasswordAuthenticationToken(login, null, authorities), false);
     }
 }
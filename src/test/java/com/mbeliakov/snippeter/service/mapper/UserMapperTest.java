@@ -129,4 +129,26 @@ class UserMapperTest {
         assertThat(userMapper.userFromId(DEFAULT_ID).getId()).isEqualTo(DEFAULT_ID);
         assertThat(userMapper.userFromId(null)).isNull();
     }
+
+    @Test
+    void toDtoIdShouldMapOnlyTheId() {
+        user.setId(DEFAULT_ID);
+
+        UserDTO dto = userMapper.toDtoId(user);
+
+        assertThat(dto.getId()).isEqualTo(DEFAULT_ID);
+        assertThat(dto.getLogin()).isNull();
+        assertThat(userMapper.toDtoId(null)).isNull();
+    }
+
+    @Test
+    void toDtoLoginShouldMapTheIdAndTheLogin() {
+        user.setId(DEFAULT_ID);
+
+        UserDTO dto = userMapper.toDtoLogin(user);
+
+        assertThat(dto.getId()).isEqualTo(DEFAULT_ID);
+        assertThat(dto.getLogin()).isEqualTo(DEFAULT_LOGIN);
+        assertThat(userMapper.toDtoLogin(null)).isNull();
+    }
 }
@@ -0,0 +1,63 @@
+package com.mbeliakov.snippeter.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.mbeliakov.snippeter.IntegrationTest;
+import com.mbeliakov.snippeter.security.AuthoritiesConstants;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * Integration tests for the {@link StatementAccountingFilter}, run outside of a test transaction so that the
+ * connections are got while the requests are accounted for.
+ */
+@AutoConfigureMockMvc
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+@IntegrationTest
+class StatementAccountingFilterIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void statementsOfARequestAreSentInHeaders() throws Exception {
+        MvcResult result = mockMvc
+            .perform(get("/api/admin/users?sort=id,asc"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(StatementAccountingFilter.TIME_HEADER))
+            .andReturn();
+
+        assertThat(Long.parseLong(result.getResponse().getHeader(StatementAccountingFilter.STATEMENTS_HEADER))).isPositive();
+        assertThat(Long.parseLong(result.getResponse().getHeader(StatementAccountingFilter.ROWS_HEADER))).isPositive();
+    }
+
+    @Test
+    void statementsOfARequestAreRecordedPerHandlerMethod() throws Exception {
+        mockMvc.perform(get("/api/admin/users?sort=id,asc")).andExpect(status().isOk());
+        long requests = statements().count();
+        double statements = statements().totalAmount();
+
+        mockMvc.perform(get("/api/admin/users?sort=id,asc")).andExpect(status().isOk());
+
+        assertThat(statements().count()).isEqualTo(requests + 1);
+        assertThat(statements().totalAmount()).isGreaterThan(statements);
+        assertThat(meterRegistry.get("http.server.requests.sql.time").tag("handler", "UserResource.getAllUsers").timer().count())
+            .isEqualTo(requests + 1);
+    }
+
+    private DistributionSummary statements() {
+        return meterRegistry.get("http.server.requests.sql.statements").tag("handler", "UserResource.getAllUsers").summary();
+    }
+}
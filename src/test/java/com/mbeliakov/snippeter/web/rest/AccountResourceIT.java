@@ -6,13 +6,19 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.mbeliakov.snippeter.IntegrationTest;
+import com.mbeliakov.snippeter.config.ApplicationProperties;
 import com.mbeliakov.snippeter.config.Constants;
+import com.mbeliakov.snippeter.domain.ApiKey;
 import com.mbeliakov.snippeter.domain.User;
+import com.mbeliakov.snippeter.repository.ApiKeyRepository;
 import com.mbeliakov.snippeter.repository.AuthorityRepository;
 import com.mbeliakov.snippeter.repository.UserRepository;
 import com.mbeliakov.snippeter.security.AuthoritiesConstants;
+import com.mbeliakov.snippeter.security.apikey.ApiKeyFilter;
+import com.mbeliakov.snippeter.security.apikey.ApiKeyResolver;
 import com.mbeliakov.snippeter.service.UserService;
 import com.mbeliakov.snippeter.service.dto.AdminUserDTO;
+import com.mbeliakov.snippeter.service.dto.ApiKeyDTO;
 import com.mbeliakov.snippeter.service.dto.PasswordChangeDTO;
 import com.mbeliakov.snippeter.service.dto.UserDTO;
 import com.mbeliakov.snippeter.web.rest.vm.KeyAndPasswordVM;
@@ -51,6 +57,15 @@ class AccountResourceIT {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ApiKeyRepository apiKeyRepository;
+
+    @Autowired
+    private ApiKeyResolver apiKeyResolver;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
     @Autowired
     private MockMvc restAccountMockMvc;
 
@@ -759,4 +774,157 @@ class AccountResourceIT {
             )
             .andExpect(status().isInternalServerError());
     }
+
+    @Test
+    @Transactional
+    @WithMockUser("api-key-owner")
+    void testCreateAndListApiKeys() throws Exception {
+        User user = new User();
+        user.setLogin("api-key-owner");
+        user.setEmail("api-key-owner@example.com");
+        user.setPassword(RandomStringUtils.random(60));
+        user.setActivated(true);
+        userRepository.saveAndFlush(user);
+
+        ApiKeyDTO apiKeyDTO = new ApiKeyDTO();
+        apiKeyDTO.setName("ci");
+        restAccountMockMvc
+            .perform(
+                post("/api/account/api-keys").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(apiKeyDTO))
+            )
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.name").value("ci"))
+            .andExpect(jsonPath("$.key").isNotEmpty())
+            .andExpect(jsonPath("$.prefix").isNotEmpty());
+
+        restAccountMockMvc
+            .perform(get("/api/account/api-keys").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].name").value("ci"))
+            .andExpect(jsonPath("$.[0].key").doesNotExist());
+
+        ApiKey apiKey = apiKeyRepository.findAllByUserLoginOrderByCreatedDate("api-key-owner").get(0);
+        assertThat(apiKey.getKeyHash()).hasSize(64);
+    }
+
+    @Test
+    @Transactional
+    @WithUnauthenticatedMockUser
+    void testAuthenticateWithApiKey() throws Exception {
+        User user = new User();
+        user.setLogin("api-key-client");
+        user.setEmail("api-key-client@example.com");
+        user.setPassword(RandomStringUtils.random(60));
+        user.setActivated(true);
+        userRepository.saveAndFlush(user);
+
+        ApiKey apiKey = new ApiKey();
+        apiKey.setKeyHash(ApiKeyResolver.hash("api-key-client-key"));
+        apiKey.setPrefix("api-key-");
+        apiKey.setName("ci");
+        apiKey.setUser(user);
+        apiKey.setCreatedDate(Instant.now());
+        apiKeyRepository.saveAndFlush(apiKey);
+
+        restAccountMockMvc
+            .perform(get("/api/account").header(ApiKeyFilter.API_KEY_HEADER, "api-key-client-key").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.login").value("api-key-client"));
+        restAccountMockMvc
+            .perform(get("/api/account").header(ApiKeyFilter.API_KEY_HEADER, "unknown-key").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isUnauthorized());
+
+        apiKeyResolver.flushLastUsedDates();
+        assertThat(apiKeyRepository.findById(apiKey.getId())).hasValueSatisfying(saved -> assertThat(saved.getLastUsedDate()).isNotNull());
+
+        user.setActivated(false);
+        userRepository.saveAndFlush(user);
+        apiKeyResolver.evictUser("api-key-client");
+        restAccountMockMvc
+            .perform(get("/api/account").header(ApiKeyFilter.API_KEY_HEADER, "api-key-client-key").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("api-key-collector")
+    void testCreateTooManyApiKeys() throws Exception {
+        User user = new User();
+        user.setLogin("api-key-collector");
+        user.setEmail("api-key-collector@example.com");
+        user.setPassword(RandomStringUtils.random(60));
+        user.setActivated(true);
+        userRepository.saveAndFlush(user);
+        for (int i = 0; i < applicationProperties.getSecurity().getApiKey().getMaxKeysPerUser(); i++) {
+            ApiKey apiKey = new ApiKey();
+            apiKey.setKeyHash(ApiKeyResolver.hash("api-key-collector-key-" + i));
+            apiKey.setPrefix("api-key-");
+            apiKey.setName("ci-" + i);
+            apiKey.setUser(user);
+            apiKey.setCreatedDate(Instant.now());
+            apiKeyRepository.saveAndFlush(apiKey);
+        }
+
+        ApiKeyDTO apiKeyDTO = new ApiKeyDTO();
+        apiKeyDTO.setName("one too many");
+        restAccountMockMvc
+            .perform(
+                post("/api/account/api-keys").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(apiKeyDTO))
+            )
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.toomanykeys"));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("api-key-ghost")
+    void testCreateApiKeyForUnknownUser() throws Exception {
+        ApiKeyDTO apiKeyDTO = new ApiKeyDTO();
+        apiKeyDTO.setName("ci");
+        restAccountMockMvc
+            .perform(
+                post("/api/account/api-keys").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(apiKeyDTO))
+            )
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    @WithUnauthenticatedMockUser
+    void testUnknownApiKeyIsCachedUntilEvicted() throws Exception {
+        restAccountMockMvc
+            .perform(get("/api/account").header(ApiKeyFilter.API_KEY_HEADER, "api-key-late-key").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isUnauthorized());
+
+        User user = new User();
+        user.setLogin("api-key-late");
+        user.setEmail("api-key-late@example.com");
+        user.setPassword(RandomStringUtils.random(60));
+        user.setActivated(true);
+        userRepository.saveAndFlush(user);
+        ApiKey apiKey = new ApiKey();
+        apiKey.setKeyHash(ApiKeyResolver.hash("api-key-late-key"));
+        apiKey.setPrefix("api-key-");
+        apiKey.setName("ci");
+        apiKey.setUser(user);
+        apiKey.setCreatedDate(Instant.now());
+        apiKeyRepository.saveAndFlush(apiKey);
+        restAccountMockMvc
+            .perform(get("/api/account").header(ApiKeyFilter.API_KEY_HEADER, "api-key-late-key").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isUnauthorized());
+
+        apiKeyResolver.evictKey(apiKey.getKeyHash());
+        restAccountMockMvc
+            .perform(get("/api/account").header(ApiKeyFilter.API_KEY_HEADER, "api-key-late-key").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.login").value("api-key-late"));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("api-key-owner")
+    void testDeleteUnknownApiKey() throws Exception {
+        restAccountMockMvc.perform(delete("/api/account/api-keys/{id}", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
 }
@@ -1,19 +1,28 @@
 package com.mbeliakov.snippeter.web.rest;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.mbeliakov.snippeter.IntegrationTest;
 import com.mbeliakov.snippeter.domain.User;
+import com.mbeliakov.snippeter.repository.Keyset;
 import com.mbeliakov.snippeter.repository.UserRepository;
 import com.mbeliakov.snippeter.security.AuthoritiesConstants;
 import javax.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -29,6 +38,8 @@ class PublicUserResourceIT {
 
     private static final String DEFAULT_LOGIN = "johndoe";
 
+    private static final String DEFAULT_EMAIL = "johndoe@localhost";
+
     @Autowired
     private UserRepository userRepository;
 
@@ -62,6 +73,67 @@ class PublicUserResourceIT {
             .andExpect(jsonPath("$.[*].langKey").doesNotExist());
     }
 
+    @Test
+    @Transactional
+    void getAllPublicUsersWithoutLoadingEntities() throws Exception {
+        // Initialize the database
+        userRepository.saveAndFlush(user);
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        try {
+            for (String query : new String[] { "sort=id,desc", "count=none", "cursor=&sort=login,asc" }) {
+                statistics.clear();
+                restUserMockMvc
+                    .perform(get("/api/users?" + query).accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.[*].login").value(hasItem(DEFAULT_LOGIN)));
+                assertThat(statistics.getEntityLoadCount()).isZero();
+            }
+        } finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+    }
+
+    @Test
+    @Transactional
+    void getAllPublicUsersByCursor() throws Exception {
+        // Initialize the database
+        userRepository.saveAndFlush(user);
+        User notActivatedUser = UserResourceIT.createEntity(em);
+        notActivatedUser.setLogin("zz-not-activated");
+        notActivatedUser.setActivated(false);
+        userRepository.saveAndFlush(notActivatedUser);
+
+        restUserMockMvc
+            .perform(get("/api/users?size=1&cursor=&sort=login,desc").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].login").value(contains("user")))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")))
+            .andExpect(header().string(HttpHeaders.LINK, not(containsString("rel=\"prev\""))))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("?size=1&sort=login,desc&cursor=>; rel=\"first\"")));
+    }
+
+    @Test
+    @Transactional
+    void getAllPublicUsersByCursorOnlySortedByPublicProperties() throws Exception {
+        // Initialize the database
+        userRepository.saveAndFlush(user);
+
+        for (String sort : new String[] { "email,asc", "firstName,desc", "lastName,asc", "activated,asc", "langKey,asc" }) {
+            restUserMockMvc
+                .perform(get("/api/users?size=1&cursor=&sort=" + sort).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+            restUserMockMvc.perform(get("/api/users?size=1&sort=" + sort).accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+        }
+        String emailCursor = CursorPaginationUtil.encode(Keyset.after(Sort.Order.asc("email"), DEFAULT_EMAIL, user.getId()));
+        restUserMockMvc
+            .perform(get("/api/users?size=1&cursor=" + emailCursor).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void getAllAuthorities() throws Exception {
@@ -1,24 +1,45 @@
 package com.mbeliakov.snippeter.web.rest;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.emptyString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.jayway.jsonpath.JsonPath;
 import com.mbeliakov.snippeter.IntegrationTest;
+import com.mbeliakov.snippeter.config.ApplicationProperties;
 import com.mbeliakov.snippeter.domain.User;
 import com.mbeliakov.snippeter.repository.UserRepository;
+import com.mbeliakov.snippeter.security.BCryptCalibration;
+import com.mbeliakov.snippeter.security.PasswordHashingExecutor;
+import com.mbeliakov.snippeter.security.PasswordHashingRejectedException;
+import com.mbeliakov.snippeter.service.RefreshTokenService;
+import com.mbeliakov.snippeter.service.UserService;
+import com.mbeliakov.snippeter.service.dto.AdminUserDTO;
 import com.mbeliakov.snippeter.web.rest.vm.LoginVM;
+import com.mbeliakov.snippeter.web.rest.vm.RefreshTokenVM;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -34,6 +55,24 @@ class UserJWTControllerIT {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private BCryptCalibration bCryptCalibration;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserService userService;
+
+    @SpyBean
+    private PasswordHashingExecutor passwordHashingExecutor;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -56,10 +95,139 @@ class UserJWTControllerIT {
             .andExpect(status().isOk())
             .andExpect(jsonPath("$.id_token").isString())
             .andExpect(jsonPath("$.id_token").isNotEmpty())
+            .andExpect(jsonPath("$.refresh_token").isString())
+            .andExpect(jsonPath("$.refresh_token").isNotEmpty())
             .andExpect(header().string("Authorization", not(nullValue())))
             .andExpect(header().string("Authorization", not(is(emptyString()))));
     }
 
+    @Test
+    @Transactional
+    void testRefresh() throws Exception {
+        User user = new User();
+        user.setLogin("user-jwt-controller-refresh");
+        user.setEmail("user-jwt-controller-refresh@example.com");
+        user.setActivated(true);
+        user.setPassword(passwordEncoder.encode("test"));
+
+        userRepository.saveAndFlush(user);
+
+        LoginVM login = new LoginVM();
+        login.setUsername("user-jwt-controller-refresh");
+        login.setPassword("test");
+        String response = mockMvc
+            .perform(post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(login)))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+        RefreshTokenVM refresh = new RefreshTokenVM();
+        refresh.setRefreshToken(JsonPath.read(response, "$.refresh_token"));
+        mockMvc
+            .perform(
+                post("/api/authenticate/refresh")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(refresh))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id_token").isString())
+            .andExpect(jsonPath("$.id_token").isNotEmpty())
+            .andExpect(jsonPath("$.refresh_token").value(refresh.getRefreshToken()))
+            .andExpect(header().string("Authorization", not(nullValue())))
+            .andExpect(header().string("Authorization", not(is(emptyString()))));
+    }
+
+    @Test
+    @Transactional
+    void testRefreshFailsForDeactivatedUser() throws Exception {
+        User user = new User();
+        user.setLogin("user-jwt-controller-refresh-deactivated");
+        user.setEmail("user-jwt-controller-refresh-deactivated@example.com");
+        user.setActivated(true);
+        user.setPassword(passwordEncoder.encode("test"));
+
+        userRepository.saveAndFlush(user);
+
+        RefreshTokenVM refresh = new RefreshTokenVM();
+        refresh.setRefreshToken(refreshTokenService.createRefreshToken("user-jwt-controller-refresh-deactivated", false));
+        user.setActivated(false);
+        userRepository.saveAndFlush(user);
+
+        mockMvc
+            .perform(
+                post("/api/authenticate/refresh")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(refresh))
+            )
+            .andExpect(status().isUnauthorized())
+            .andExpect(jsonPath("$.id_token").doesNotExist())
+            .andExpect(header().doesNotExist("Authorization"));
+    }
+
+    @Test
+    void testRefreshFailsWithUnknownToken() throws Exception {
+        RefreshTokenVM refresh = new RefreshTokenVM();
+        refresh.setRefreshToken("unknown-refresh-token");
+        mockMvc
+            .perform(
+                post("/api/authenticate/refresh")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(refresh))
+            )
+            .andExpect(status().isUnauthorized())
+            .andExpect(jsonPath("$.id_token").doesNotExist())
+            .andExpect(header().doesNotExist("Authorization"));
+    }
+
+    @Test
+    void testLogoutRevokesTokens() throws Exception {
+        User user = new User();
+        user.setLogin("user-jwt-controller-logout");
+        user.setEmail("user-jwt-controller-logout@example.com");
+        user.setActivated(true);
+        user.setPassword(passwordEncoder.encode("test"));
+
+        userRepository.saveAndFlush(user);
+        try {
+            LoginVM login = new LoginVM();
+            login.setUsername("user-jwt-controller-logout");
+            login.setPassword("test");
+            String response = mockMvc
+                .perform(
+                    post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(login))
+                )
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+            String bearer = "Bearer " + JsonPath.read(response, "$.id_token");
+            RefreshTokenVM refresh = new RefreshTokenVM();
+            refresh.setRefreshToken(JsonPath.read(response, "$.refresh_token"));
+
+            mockMvc.perform(get("/api/account").header("Authorization", bearer)).andExpect(status().isOk());
+            mockMvc
+                .perform(
+                    post("/api/logout")
+                        .header("Authorization", bearer)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(refresh))
+                )
+                .andExpect(status().isNoContent());
+
+            mockMvc.perform(get("/api/account").header("Authorization", bearer)).andExpect(status().isUnauthorized());
+            mockMvc
+                .perform(
+                    post("/api/authenticate/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(refresh))
+                )
+                .andExpect(status().isUnauthorized());
+        } finally {
+            userRepository.delete(user);
+        }
+    }
+
     @Test
     @Transactional
     void testAuthorizeWithRememberMe() throws Exception {
@@ -84,6 +252,29 @@ class UserJWTControllerIT {
             .andExpect(header().string("Authorization", not(is(emptyString()))));
     }
 
+    @Test
+    @Transactional
+    void testAuthorizeReencodesPasswordWithDifferentCost() throws Exception {
+        User user = new User();
+        user.setLogin("user-jwt-controller-rehash");
+        user.setEmail("user-jwt-controller-rehash@example.com");
+        user.setActivated(true);
+        user.setPassword(new BCryptPasswordEncoder(4).encode("test"));
+
+        userRepository.saveAndFlush(user);
+
+        LoginVM login = new LoginVM();
+        login.setUsername("user-jwt-controller-rehash");
+        login.setPassword("test");
+        mockMvc
+            .perform(post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(login)))
+            .andExpect(status().isOk());
+
+        String password = userRepository.findOneByLogin("user-jwt-controller-rehash").get().getPassword();
+        assertThat(password).startsWith("$2a$" + bCryptCalibration.getStrength() + "$");
+        assertThat(passwordEncoder.matches("test", password)).isTrue();
+    }
+
     @Test
     void testAuthorizeFails() throws Exception {
         LoginVM login = new LoginVM();
@@ -95,4 +286,149 @@ class UserJWTControllerIT {
             .andExpect(jsonPath("$.id_token").doesNotExist())
             .andExpect(header().doesNotExist("Authorization"));
     }
+
+    @Test
+    @Transactional
+    void testAuthorizeIsThrottledAfterTooManyFailures() throws Exception {
+        User user = new User();
+        user.setLogin("user-jwt-controller-throttled");
+        user.setEmail("user-jwt-controller-throttled@example.com");
+        user.setActivated(true);
+        user.setPassword(passwordEncoder.encode("test"));
+
+        userRepository.saveAndFlush(user);
+
+        LoginVM login = new LoginVM();
+        login.setUsername("user-jwt-controller-throttled");
+        login.setPassword("wrong password");
+        int maxFailures = applicationProperties.getSecurity().getLoginThrottling().getMaxFailuresPerLogin();
+        for (int i = 0; i < maxFailures; i++) {
+            mockMvc
+                .perform(
+                    post("/api/authenticate")
+                        .with(remoteAddress("192.0.2.1"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(login))
+                )
+                .andExpect(status().isUnauthorized());
+        }
+
+        login.setPassword("test");
+        mockMvc
+            .perform(
+                post("/api/authenticate")
+                    .with(remoteAddress("192.0.2.2"))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(login))
+            )
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+            .andExpect(jsonPath("$.id_token").doesNotExist())
+            .andExpect(header().doesNotExist("Authorization"));
+    }
+
+    @Test
+    @Transactional
+    void testAuthorizeRecordsLoginMetrics() throws Exception {
+        User user = new User();
+        user.setLogin("user-jwt-controller-metrics");
+        user.setEmail("user-jwt-controller-metrics@example.com");
+        user.setActivated(true);
+        user.setPassword(passwordEncoder.encode("test"));
+        userRepository.saveAndFlush(user);
+
+        User inactiveUser = new User();
+        inactiveUser.setLogin("user-jwt-controller-metrics-inactive");
+        inactiveUser.setEmail("user-jwt-controller-metrics-inactive@example.com");
+        inactiveUser.setActivated(false);
+        inactiveUser.setPassword(passwordEncoder.encode("test"));
+        userRepository.saveAndFlush(inactiveUser);
+
+        double success = loginAttempts("success");
+        double badCredentials = loginAttempts("bad_credentials");
+        double notActivated = loginAttempts("not_activated");
+        long lookupsByEmail = meterRegistry.get("security.login.lookup").tag("by", "email").timer().count();
+        long passwordMatches = meterRegistry.get("security.login.password.match").timer().count();
+        long authorityMappings = meterRegistry.get("security.login.authorities").timer().count();
+        long tokenSignings = meterRegistry.get("security.login.token.signing").timer().count();
+
+        LoginVM login = new LoginVM();
+        login.setUsername("user-jwt-controller-metrics@example.com");
+        login.setPassword("test");
+        mockMvc
+            .perform(post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(login)))
+            .andExpect(status().isOk());
+
+        login.setPassword("wrong password");
+        mockMvc
+            .perform(post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(login)))
+            .andExpect(status().isUnauthorized());
+
+        login.setUsername("user-jwt-controller-metrics-inactive");
+        login.setPassword("test");
+        mockMvc
+            .perform(post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(login)))
+            .andExpect(status().isUnauthorized());
+
+        assertThat(loginAttempts("success")).isEqualTo(success + 1);
+        assertThat(loginAttempts("bad_credentials")).isEqualTo(badCredentials + 1);
+        assertThat(loginAttempts("not_activated")).isEqualTo(notActivated + 1);
+        assertThat(meterRegistry.get("security.login.lookup").tag("by", "email").timer().count()).isEqualTo(lookupsByEmail + 2);
+        assertThat(meterRegistry.get("security.login.password.match").timer().count()).isEqualTo(passwordMatches + 2);
+        assertThat(meterRegistry.get("security.login.authorities").timer().count()).isEqualTo(authorityMappings + 2);
+        assertThat(meterRegistry.get("security.login.token.signing").timer().count()).isEqualTo(tokenSignings + 1);
+    }
+
+    @Test
+    @Transactional
+    void testHttpBasicCredentialsAreCachedUntilDeactivation() throws Exception {
+        User user = new User();
+        user.setLogin("user-jwt-controller-basic");
+        user.setEmail("user-jwt-controller-basic@example.com");
+        user.setActivated(true);
+        user.setPassword(passwordEncoder.encode("test"));
+        userRepository.saveAndFlush(user);
+
+        long passwordMatches = meterRegistry.get("security.login.password.match").timer().count();
+        mockMvc.perform(get("/api/account").with(httpBasic("user-jwt-controller-basic", "test"))).andExpect(status().isOk());
+        mockMvc.perform(get("/api/account").with(httpBasic("user-jwt-controller-basic", "test"))).andExpect(status().isOk());
+        assertThat(meterRegistry.get("security.login.password.match").timer().count()).isEqualTo(passwordMatches + 1);
+
+        mockMvc.perform(get("/api/account").with(httpBasic("user-jwt-controller-basic", "wrong"))).andExpect(status().isUnauthorized());
+
+        AdminUserDTO deactivated = new AdminUserDTO(user);
+        deactivated.setActivated(false);
+        userService.updateUser(deactivated);
+        mockMvc.perform(get("/api/account").with(httpBasic("user-jwt-controller-basic", "test"))).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @Transactional
+    void testHttpBasicAnswersRejectedPasswordHashingWithRetryAfter() throws Exception {
+        User user = new User();
+        user.setLogin("user-jwt-controller-basic-rejected");
+        user.setEmail("user-jwt-controller-basic-rejected@example.com");
+        user.setActivated(true);
+        user.setPassword(passwordEncoder.encode("test"));
+        userRepository.saveAndFlush(user);
+
+        doThrow(new PasswordHashingRejectedException(3)).when(passwordHashingExecutor).execute(eq("matches"), any());
+        mockMvc
+            .perform(get("/api/account").with(httpBasic("user-jwt-controller-basic-rejected", "test")))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"))
+            .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+            .andExpect(jsonPath("$.message").value("error.http.503"));
+    }
+
+    private double loginAttempts(String outcome) {
+        return meterRegistry.get("security.login.attempts").tag("outcome", outcome).counter().count();
+    }
+
+    private static RequestPostProcessor remoteAddress(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
 }
@@ -1,11 +1,16 @@
 package com.mbeliakov.snippeter.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.jayway.jsonpath.JsonPath;
 import com.mbeliakov.snippeter.IntegrationTest;
 import com.mbeliakov.snippeter.domain.Authority;
 import com.mbeliakov.snippeter.domain.User;
@@ -18,15 +23,24 @@ import com.mbeliakov.snippeter.web.rest.vm.ManagedUserVM;
 import java.time.Instant;
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import org.apache.commons.lang3.RandomStringUtils;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -232,6 +246,232 @@ class UserResourceIT {
         assertPersistedUsers(users -> assertThat(users).hasSize(databaseSizeBeforeCreate));
     }
 
+    @Test
+    @Transactional
+    void importUsersFromCsv() throws Exception {
+        String csv = String.join(
+            "\n",
+            "login,email,firstName,authorities",
+            "import-one,import-one@localhost,One," + AuthoritiesConstants.USER,
+            "import-two,IMPORT-TWO@localhost,\"Two, \"\"Junior\"\"\"," + AuthoritiesConstants.USER + " " + AuthoritiesConstants.ADMIN,
+            "",
+            "admin,another-admin@localhost,,",
+            "import-three,not-an-email,,",
+            "import-one,another-one@localhost,,",
+            "import-four,\"unterminated,,"
+        );
+
+        MvcResult result = restUserMockMvc
+            .perform(post("/api/admin/users/import").contentType("text/csv").content(csv))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+            .andReturn();
+
+        List<String> lines = Arrays.asList(result.getResponse().getContentAsString().split("\n"));
+        // invalid rows are reported as they are read, and conflicting ones once their batch is checked
+        assertThat(lines.subList(0, 4))
+            .extracting(line -> JsonPath.read(line, "$.error") + "@" + JsonPath.read(line, "$.row"))
+            .containsExactly("invalid@4", "unreadable@6", "userexists@3", "userexists@5");
+        String summary = lines.get(4);
+        assertThat(JsonPath.<Integer>read(summary, "$.created")).isEqualTo(2);
+        assertThat(JsonPath.<Integer>read(summary, "$.failed")).isEqualTo(4);
+
+        User two = userRepository.findOneWithAuthoritiesByLogin("import-two").orElseThrow();
+        assertThat(two.getEmail()).isEqualTo("import-two@localhost");
+        assertThat(two.getFirstName()).isEqualTo("Two, \"Junior\"");
+        assertThat(two.isActivated()).isTrue();
+        assertThat(two.getResetKey()).isNotNull();
+        assertThat(two.getAuthorities()).extracting(Authority::getName).containsOnly(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN);
+    }
+
+    @Test
+    @Transactional
+    void importUsersFromCsvWithMultiLineAndEscapedValues() throws Exception {
+        String csv = String.join(
+            "\n",
+            "login,email,firstName,lastName",
+            "import-multi-line,import-multi-line@localhost,\"First",
+            "",
+            "Second\",\"'=1+1\"",
+            "import-after,import-after@localhost,\"'-1\",\"''@home\""
+        );
+
+        restUserMockMvc
+            .perform(post("/api/admin/users/import").contentType("text/csv").content(csv))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("{\"created\":2,\"failed\":0}")));
+
+        User multiLine = userRepository.findOneByLogin("import-multi-line").orElseThrow();
+        assertThat(multiLine.getFirstName()).isEqualTo("First\n\nSecond");
+        assertThat(multiLine.getLastName()).isEqualTo("=1+1");
+        User after = userRepository.findOneByLogin("import-after").orElseThrow();
+        assertThat(after.getFirstName()).isEqualTo("-1");
+        assertThat(after.getLastName()).isEqualTo("'@home");
+    }
+
+    @Test
+    @Transactional
+    void importUsersFromCsvWithAnUnknownColumn() throws Exception {
+        restUserMockMvc
+            .perform(post("/api/admin/users/import").contentType("text/csv").content("login,password\nimport-one,secret"))
+            .andExpect(status().isBadRequest());
+
+        assertThat(userRepository.findOneByLogin("import-one")).isEmpty();
+    }
+
+    @Test
+    @Transactional
+    void importUsersFromNdjsonInBatches() throws Exception {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 60; i++) {
+            AdminUserDTO userDTO = new AdminUserDTO();
+            userDTO.setLogin("import-" + i);
+            userDTO.setEmail("import-" + i + "@localhost");
+            userDTO.setAuthorities(Collections.singleton(AuthoritiesConstants.USER));
+            ndjson.append(new String(TestUtil.convertObjectToJsonBytes(userDTO))).append('\n');
+        }
+        ndjson.append("{\"login\": \"import-not-json\"\n");
+        em.clear();
+
+        long statements = countStatements(
+            () ->
+                restUserMockMvc
+                    .perform(post("/api/admin/users/import").contentType(MediaType.APPLICATION_NDJSON).content(ndjson.toString()))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(containsString("\"row\":61,\"login\":null,\"error\":\"unreadable\"")))
+                    .andExpect(content().string(containsString("{\"created\":60,\"failed\":1}")))
+        );
+        // per batch of 25 users: the login and email lookups, and the batched inserts of the users and of their
+        // authorities, with a sequence call every 50 users
+        assertThat(statements).isLessThan(20);
+        assertThat(userRepository.findOneWithAuthoritiesByLogin("import-59"))
+            .hasValueSatisfying(
+                imported -> assertThat(imported.getAuthorities()).extracting(Authority::getName).containsOnly(AuthoritiesConstants.USER)
+            );
+    }
+
+    @Test
+    @Transactional
+    void exportUsersAsNdjson() throws Exception {
+        // Initialize the database
+        user.getAuthorities().add(em.getReference(Authority.class, AuthoritiesConstants.USER));
+        userRepository.saveAndFlush(user);
+        long userCount = userRepository.count();
+        em.clear();
+
+        MvcResult[] result = new MvcResult[1];
+        long statements = countStatements(
+            () ->
+                result[0] =
+                    restUserMockMvc
+                        .perform(get("/api/admin/users/export").accept(MediaType.APPLICATION_NDJSON))
+                        .andExpect(status().isOk())
+                        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                        .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("users.ndjson")))
+                        .andReturn()
+        );
+        // the stream of users, and the authorities of the only chunk
+        assertThat(statements).isEqualTo(2);
+
+        List<String> lines = Arrays.asList(result[0].getResponse().getContentAsString().split("\n"));
+        assertThat(lines).hasSize((int) userCount);
+        assertThat(lines)
+            .extracting(line -> JsonPath.<Integer>read(line, "$.id").longValue())
+            .isSorted()
+            .contains(user.getId());
+        String exported = lines.stream().filter(line -> line.contains("\"login\":\"" + DEFAULT_LOGIN + "\"")).findFirst().orElseThrow();
+        assertThat(JsonPath.<String>read(exported, "$.email")).isEqualTo(DEFAULT_EMAIL);
+        assertThat(JsonPath.<List<String>>read(exported, "$.authorities")).containsExactly(AuthoritiesConstants.USER);
+    }
+
+    @Test
+    @Transactional
+    void exportUsersAsCsv() throws Exception {
+        // Initialize the database
+        user.setFirstName("john, \"jr\"");
+        userRepository.saveAndFlush(user);
+
+        MvcResult result = restUserMockMvc
+            .perform(get("/api/admin/users/export").accept("text/csv"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("users.csv")))
+            .andReturn();
+
+        List<String> lines = Arrays.asList(result.getResponse().getContentAsString().split("\n"));
+        assertThat(lines.get(0))
+            .isEqualTo(
+                "id,login,firstName,lastName,email,imageUrl,activated,langKey," +
+                "createdBy,createdDate,lastModifiedBy,lastModifiedDate,authorities"
+            );
+        assertThat(lines).hasSize((int) userRepository.count() + 1);
+        assertThat(lines)
+            .anyMatch(line -> line.startsWith(user.getId() + "," + DEFAULT_LOGIN + ",\"john, \"\"jr\"\"\"," + DEFAULT_LASTNAME + ","));
+        String adminAuthorities = AuthoritiesConstants.ADMIN + " " + AuthoritiesConstants.USER;
+        assertThat(lines).anyMatch(line -> line.startsWith("1,admin,") && line.endsWith("," + adminAuthorities));
+    }
+
+    @Test
+    @Transactional
+    void exportUsersAsCsvEscapesFormulas() throws Exception {
+        user.setFirstName("=HYPERLINK(\"http://example.com\")");
+        user.setLastName("'+1");
+        userRepository.saveAndFlush(user);
+
+        restUserMockMvc
+            .perform(get("/api/admin/users/export").accept("text/csv"))
+            .andExpect(status().isOk())
+            .andExpect(
+                content()
+                    .string(
+                        containsString(
+                            user.getId() + "," + DEFAULT_LOGIN + ",\"'=HYPERLINK(\"\"http://example.com\"\")\",\"''+1\"," + DEFAULT_EMAIL + ","
+                        )
+                    )
+            );
+    }
+
+    @Test
+    @Transactional
+    void exportUsersAsCsvCanBeImportedBack() throws Exception {
+        // Initialize the database
+        user.setFirstName("=1+1");
+        user.setLastName("Doe,\n\"jr\"");
+        user.getAuthorities().add(em.getReference(Authority.class, AuthoritiesConstants.USER));
+        userRepository.saveAndFlush(user);
+        long userCount = userRepository.count();
+
+        String csv = restUserMockMvc
+            .perform(get("/api/admin/users/export").accept("text/csv"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        userRepository.delete(user);
+        userRepository.flush();
+
+        MvcResult result = restUserMockMvc
+            .perform(post("/api/admin/users/import").contentType("text/csv").content(csv))
+            .andExpect(status().isOk())
+            .andReturn();
+
+        List<String> lines = Arrays.asList(result.getResponse().getContentAsString().split("\n"));
+        // the other users are still there
+        assertThat(lines.subList(0, lines.size() - 1))
+            .extracting(line -> JsonPath.<String>read(line, "$.error"))
+            .containsOnly("userexists");
+        String summary = lines.get(lines.size() - 1);
+        assertThat(JsonPath.<Integer>read(summary, "$.created")).isEqualTo(1);
+        assertThat(JsonPath.<Integer>read(summary, "$.failed")).isEqualTo(userCount - 1);
+        User imported = userRepository.findOneWithAuthoritiesByLogin(DEFAULT_LOGIN).orElseThrow();
+        assertThat(imported.getId()).isNotEqualTo(user.getId());
+        assertThat(imported.getFirstName()).isEqualTo("=1+1");
+        assertThat(imported.getLastName()).isEqualTo("Doe,\n\"jr\"");
+        assertThat(imported.getEmail()).isEqualTo(DEFAULT_EMAIL);
+        assertThat(imported.getImageUrl()).isEqualTo(DEFAULT_IMAGEURL);
+        assertThat(imported.getLangKey()).isEqualTo(DEFAULT_LANGKEY);
+        assertThat(imported.getAuthorities()).extracting(Authority::getName).containsOnly(AuthoritiesConstants.USER);
+    }
+
     @Test
     @Transactional
     void getAllUsers() throws Exception {
@@ -251,6 +491,158 @@ class UserResourceIT {
             .andExpect(jsonPath("$.[*].langKey").value(hasItem(DEFAULT_LANGKEY)));
     }
 
+    @Test
+    @Transactional
+    void getAllUsersWithAFixedNumberOfStatements() throws Exception {
+        // Initialize the database, with more users than a batch fetch of their authorities could load at once
+        for (int i = 0; i < 45; i++) {
+            User otherUser = createEntity(em);
+            Set<Authority> authorities = new HashSet<>();
+            authorities.add(em.getReference(Authority.class, AuthoritiesConstants.ADMIN));
+            authorities.add(em.getReference(Authority.class, AuthoritiesConstants.USER));
+            otherUser.setAuthorities(authorities);
+            em.persist(otherUser);
+        }
+        em.flush();
+
+        for (int size : new int[] { 2, 100 }) {
+            em.clear();
+            long statements = countStatements(
+                () ->
+                    restUserMockMvc
+                        .perform(get("/api/admin/users?sort=id,desc&size=" + size).accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.[0].authorities").value(hasItems(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER)))
+            );
+            // the page of users, the total count, and their authorities
+            assertThat(statements).isLessThanOrEqualTo(3);
+        }
+    }
+
+    @Test
+    @Transactional
+    void getAllUsersWithoutLoadingEntities() throws Exception {
+        // Initialize the database
+        user.getAuthorities().add(em.getReference(Authority.class, AuthoritiesConstants.USER));
+        userRepository.saveAndFlush(user);
+        em.clear();
+
+        for (String query : new String[] { "sort=id,desc", "count=none", "cursor=&sort=lastName,asc" }) {
+            long loadedEntities = countLoadedEntities(
+                () ->
+                    restUserMockMvc
+                        .perform(get("/api/admin/users?" + query).accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.[*].login").value(hasItem(DEFAULT_LOGIN)))
+                        .andExpect(jsonPath("$.[*].authorities").value(hasItem(contains(AuthoritiesConstants.USER))))
+            );
+            assertThat(loadedEntities).isZero();
+        }
+    }
+
+    @Test
+    @Transactional
+    void getAllUsersByCursor() throws Exception {
+        // Initialize the database, with duplicate and null sort values
+        for (String lastName : Arrays.asList("doe", null, "doe", "smith", null, "adams")) {
+            User otherUser = createEntity(em);
+            otherUser.setLastName(lastName);
+            em.persist(otherUser);
+        }
+        em.flush();
+
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            Comparator<User> byLastName = Comparator.comparing(User::getLastName, Comparator.nullsLast(Comparator.naturalOrder()));
+            Comparator<User> order = byLastName.thenComparing(User::getId);
+            List<String> expectedLogins = userRepository
+                .findAll()
+                .stream()
+                .sorted(direction.isAscending() ? order : order.reversed())
+                .map(User::getLogin)
+                .collect(Collectors.toList());
+
+            // walk to the last page, then back to the first one
+            List<String> logins = new ArrayList<>();
+            String url = "/api/admin/users?size=2&cursor=&sort=lastName," + direction.name().toLowerCase();
+            MvcResult result;
+            List<String> page;
+            do {
+                result = restUserMockMvc.perform(get(url).accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk()).andReturn();
+                page = JsonPath.read(result.getResponse().getContentAsString(), "$[*].login");
+                logins.addAll(page);
+                url = getLink(result, "next");
+            } while (url != null);
+            assertThat(logins).containsExactlyElementsOf(expectedLogins);
+
+            List<String> previousLogins = new ArrayList<>();
+            url = getLink(result, "prev");
+            while (url != null) {
+                result = restUserMockMvc.perform(get(url).accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk()).andReturn();
+                previousLogins.addAll(0, JsonPath.read(result.getResponse().getContentAsString(), "$[*].login"));
+                url = getLink(result, "prev");
+            }
+            assertThat(previousLogins).containsExactlyElementsOf(expectedLogins.subList(0, expectedLogins.size() - page.size()));
+        }
+    }
+
+    @Test
+    @Transactional
+    void getAllUsersByInvalidCursor() throws Exception {
+        restUserMockMvc
+            .perform(get("/api/admin/users?cursor=not-a-cursor").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+        restUserMockMvc
+            .perform(get("/api/admin/users?cursor=&sort=lastName,asc&sort=login,asc").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getAllUsersWithoutCount() throws Exception {
+        // Initialize the database
+        userRepository.saveAndFlush(user);
+        em.clear();
+
+        long statements = countStatements(
+            () ->
+                restUserMockMvc
+                    .perform(get("/api/admin/users?count=none&size=1&sort=id,asc").accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(header().doesNotExist("X-Total-Count"))
+                    .andExpect(header().string(HttpHeaders.LINK, containsString("page=1&size=1>; rel=\"next\"")))
+                    .andExpect(header().string(HttpHeaders.LINK, not(containsString("rel=\"last\""))))
+        );
+        // the slice of users and their authorities
+        assertThat(statements).isEqualTo(2);
+    }
+
+    @Test
+    @Transactional
+    void getAllUsersWithEstimatedCount() throws Exception {
+        // Initialize the database
+        userRepository.saveAndFlush(user);
+        long exactCount = userRepository.count();
+
+        MvcResult result = restUserMockMvc
+            .perform(get("/api/admin/users?count=estimated&size=1&sort=id,asc").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(header().exists("X-Total-Count"))
+            .andReturn();
+        assertThat(Long.valueOf(result.getResponse().getHeader("X-Total-Count"))).isGreaterThan(1);
+
+        // the last page tells the exact total
+        restUserMockMvc
+            .perform(get("/api/admin/users?count=estimated&size=1&sort=id,asc&page=" + (exactCount - 1)).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", String.valueOf(exactCount)));
+
+        restUserMockMvc
+            .perform(get("/api/admin/users?count=approximate").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void getUser() throws Exception {
@@ -567,6 +959,38 @@ class UserResourceIT {
         assertThat(authorityA).isEqualTo(authorityB).hasSameHashCodeAs(authorityB);
     }
 
+    private static String getLink(MvcResult result, String relType) {
+        String link = result.getResponse().getHeader(HttpHeaders.LINK);
+        Matcher matcher = Pattern.compile("<([^>]*)>; rel=\"" + relType + "\"").matcher(link);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private long countStatements(ThrowingRunnable runnable) throws Exception {
+        return measure(runnable, Statistics::getPrepareStatementCount);
+    }
+
+    private long countLoadedEntities(ThrowingRunnable runnable) throws Exception {
+        return measure(runnable, Statistics::getEntityLoadCount);
+    }
+
+    private long measure(ThrowingRunnable runnable, ToLongFunction<Statistics> measurement) throws Exception {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+        try {
+            runnable.run();
+            return measurement.applyAsLong(statistics);
+        } finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+
     private void assertPersistedUsers(Consumer<List<User>> userAssertion) {
         userAssertion.accept(userRepository.findAll());
     }
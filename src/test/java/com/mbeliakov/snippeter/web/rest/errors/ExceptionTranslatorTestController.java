@@ -1,5 +1,7 @@
 package com.mbeliakov.snippeter.web.rest.errors;
 
+import com.mbeliakov.snippeter.security.LoginThrottledException;
+import com.mbeliakov.snippeter.security.PasswordHashingRejectedException;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.springframework.dao.ConcurrencyFailureException;
@@ -36,6 +38,16 @@ public class ExceptionTranslatorTestController {
         throw new BadCredentialsException("test authentication failed!");
     }
 
+    @GetMapping("/password-hashing-rejected")
+    public void passwordHashingRejected() {
+        throw new PasswordHashingRejectedException(2);
+    }
+
+    @GetMapping("/login-throttled")
+    public void loginThrottled() {
+        throw new LoginThrottledException(30);
+    }
+
     @GetMapping("/response-status")
     public void exceptionWithResponseStatus() {
         throw new TestResponseStatusException();
@@ -118,4 +118,22 @@ describe('LoginForm Component', () => {
     expect(loginForm.authenticationError).toBeFalsy();
     expect(sessionStorage.getItem('jhi-authenticationToken')).toEqual(jwtSecret);
   });
+
+  it('should store refresh token along with the token', async () => {
+    // GIVEN
+    loginForm.login = 'login';
+    loginForm.password = 'pwd';
+    loginForm.rememberMe = true;
+    const jwtSecret = 'jwt-secret';
+    axiosStub.post.resolves({ headers: { authorization: 'Bearer ' + jwtSecret }, data: { refresh_token: 'refresh-secret' } });
+
+    // WHEN
+    loginForm.doLogin();
+    await loginForm.$nextTick();
+
+    // THEN
+    expect(loginForm.authenticationError).toBeFalsy();
+    expect(localStorage.getItem('jhi-authenticationToken')).toEqual(jwtSecret);
+    expect(localStorage.getItem('jhi-refreshToken')).toEqual('refresh-secret');
+  });
 });
@@ -45,8 +45,7 @@ describe('UserManagement Component', () => {
       i18n,
       localVue,
       stubs: {
-        bPagination: true,
-        jhiItemCount: true,
+        infiniteLoading: true,
         bModal: true,
       },
       provide: {
@@ -63,7 +62,31 @@ describe('UserManagement Component', () => {
       await userManagement.$nextTick();
 
       // THEN
-      expect(axiosStub.get.calledWith(`api/admin/users?sort=id,asc&page=0&size=20`)).toBeTruthy();
+      expect(axiosStub.get.calledWith(`api/admin/users?sort=id,asc&page=0&size=20&count=none`)).toBeTruthy();
+    });
+  });
+
+  describe('loadMore', () => {
+    it('Should append the next page of users', async () => {
+      // GIVEN
+      axiosStub.get.resolves({
+        data: [{ id: 1 }],
+        headers: {
+          link: '<http://localhost/api/admin/users?page=1&size=20>; rel="next",<http://localhost/api/admin/users?page=0&size=20>; rel="first"',
+        },
+      });
+      userManagement.loadAll();
+      await userManagement.$nextTick();
+      axiosStub.get.resolves({ data: [{ id: 2 }], headers: {} });
+
+      // WHEN
+      userManagement.loadMore();
+      await userManagement.$nextTick();
+
+      // THEN
+      expect(axiosStub.get.calledWith(`api/admin/users?sort=id,asc&page=1&size=20&count=none`)).toBeTruthy();
+      expect(userManagement.users.map(user => user.id)).toContain(2);
+      expect(userManagement.links['next']).toBeUndefined();
     });
   });
 
@@ -78,7 +101,7 @@ describe('UserManagement Component', () => {
 
       // THEN
       expect(axiosStub.put.calledWith(`api/admin/users`, { id: 123, activated: true })).toBeTruthy();
-      expect(axiosStub.get.calledWith(`api/admin/users?sort=id,asc&page=0&size=20`)).toBeTruthy();
+      expect(axiosStub.get.calledWith(`api/admin/users?sort=id,asc&page=0&size=20&count=none`)).toBeTruthy();
     });
   });
 
@@ -99,7 +122,7 @@ describe('UserManagement Component', () => {
 
       // THEN
       expect(axiosStub.delete.calledWith('api/admin/users/' + 123)).toBeTruthy();
-      expect(axiosStub.get.calledWith(`api/admin/users?sort=id,asc&page=0&size=20`)).toBeTruthy();
+      expect(axiosStub.get.calledWith(`api/admin/users?sort=id,asc&page=0&size=20&count=none`)).toBeTruthy();
     });
   });
 